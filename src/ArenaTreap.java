@@ -0,0 +1,390 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ArenaTreap class is a treap for very large key sets that stores the case-folded keys in a
+ * shared {@link KeyArena} instead of one String per node. A node holds only the handle and length
+ * of its key, and searches compare the encoded query directly against the arena bytes, which
+ * removes the String object and array header of every key. Keys are ordered by code point, which
+ * matches the Treap's order for all characters outside the surrogate range.
+ *
+ * Removed keys leave their bytes behind in the arena. Once they make up more than half of the
+ * arena, the live keys are copied into a fresh arena in key order; compact() does the same on demand.
+ * Unlike the Treap, duplicate keys are rejected rather than duplicate heap values, so adding a key
+ * never scans the whole tree.
+ */
+public class ArenaTreap implements Searchable {
+
+	/**
+	 * The ArenaNode class represents a node whose key lives in the arena.
+	 */
+	private static class ArenaNode {
+		long handle;     // Position of the key bytes in the arena
+		int length;      // Length of the key in bytes
+		int heapValue;   // Priority value used to maintain the heap property
+		ArenaNode left;  // Reference to the left child of this node
+		ArenaNode right; // Reference to the right child of this node
+
+		/**
+		 * Constructs a new ArenaNode for a key that is already stored in the arena.
+		 *
+		 * @param handle    The handle of the key in the arena.
+		 * @param length    The length of the key in bytes.
+		 * @param heapValue The priority value for maintaining the heap property.
+		 */
+		ArenaNode(long handle, int length, int heapValue) {
+			this.handle = handle;
+			this.length = length;
+			this.heapValue = heapValue;
+		}
+	}
+
+	// Minimum number of unused arena bytes before an automatic compaction is considered
+	private static final long MIN_COMPACTION_BYTES = 1 << 20;
+
+	// Root node of the treap
+	private ArenaNode root;
+
+	// Number of nodes in the treap
+	private int count;
+
+	// Arena holding the bytes of every key, including removed ones until the next compaction
+	private KeyArena arena;
+
+	// Chunk size used when a fresh arena is created by compaction
+	private final int chunkSize;
+
+	// Number of arena bytes that belong to removed keys
+	private long deadBytes;
+
+	/**
+	 * Constructs an empty arena treap with the default chunk size.
+	 */
+	public ArenaTreap() {
+		this(KeyArena.DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Constructs an empty arena treap whose arena allocates chunks of the given size.
+	 *
+	 * @param chunkSize The number of bytes in each arena chunk; must be positive.
+	 */
+	public ArenaTreap(int chunkSize) {
+		this.arena = new KeyArena(chunkSize);
+		this.chunkSize = chunkSize;
+		this.root = null;
+		this.count = 0;
+		this.deadBytes = 0;
+	}
+
+	// ==================== Rotations ====================
+
+	/**
+	 * Performs a right rotation on the given node y.
+	 *
+	 * @param y The node to rotate.
+	 * @return  The new root of the subtree after the rotation.
+	 */
+	private ArenaNode rightRotate(ArenaNode y) {
+		ArenaNode x = y.left;
+		y.left = x.right;
+		x.right = y;
+		return x;
+	}
+
+	/**
+	 * Performs a left rotation on the given node x.
+	 *
+	 * @param x The node to rotate.
+	 * @return  The new root of the subtree after the rotation.
+	 */
+	private ArenaNode leftRotate(ArenaNode x) {
+		ArenaNode y = x.right;
+		x.right = y.left;
+		y.left = x;
+		return y;
+	}
+
+	// ==================== Helper Methods ====================
+
+	/**
+	 * Helper method to check if a key is valid (not null).
+	 *
+	 * @param key The key to check.
+	 * @return    True if the key is valid, false otherwise.
+	 */
+	private boolean isValidKey(String key) {
+		return key != null;
+	}
+
+	/**
+	 * Helper method to compare an encoded key with the key of a node.
+	 *
+	 * @param bytes The encoded key.
+	 * @param node  The node to compare against.
+	 * @return      The comparison result, as for {@link KeyArena#compare(byte[], long, int)}.
+	 */
+	private int compare(byte[] bytes, ArenaNode node) {
+		return arena.compare(bytes, node.handle, node.length);
+	}
+
+	/**
+	 * Helper method to find the node with an encoded key.
+	 *
+	 * @param bytes The encoded lowercase key.
+	 * @return      The node with the key, or null if the key is not found.
+	 */
+	private ArenaNode locate(byte[] bytes) {
+		ArenaNode node = root;
+		while (node != null) {
+			int cmp = compare(bytes, node);
+			if (cmp == 0) return node;
+			node = cmp < 0 ? node.left : node.right;
+		}
+		return null;
+	}
+
+	// ==================== Add Method ====================
+
+	/**
+	 * Adds a new key with the given heap value. The key bytes are appended to the arena only once
+	 * the key is known to be new.
+	 *
+	 * @param key       The key to be added.
+	 * @param heapValue The associated heap value.
+	 * @return          True if the node was added, false if the key is invalid or already exists.
+	 */
+	public boolean add(String key, int heapValue) {
+		if (!isValidKey(key) || heapValue <= 0) return false;
+
+		byte[] bytes = KeyArena.encode(key.toLowerCase());
+		if (locate(bytes) != null) return false;
+
+		ArenaNode node = new ArenaNode(arena.append(bytes), bytes.length, heapValue);
+		root = insertNode(root, node, bytes);
+		count++;
+		return true;
+	}
+
+	/**
+	 * Helper method to insert a detached node into the treap.
+	 *
+	 * @param node    The current node in the treap.
+	 * @param newNode The node to insert.
+	 * @param bytes   The encoded key of the node to insert.
+	 * @return        The root of the subtree after insertion.
+	 */
+	private ArenaNode insertNode(ArenaNode node, ArenaNode newNode, byte[] bytes) {
+		if (node == null) return newNode;
+
+		if (compare(bytes, node) < 0) node.left = insertNode(node.left, newNode, bytes);
+		else node.right = insertNode(node.right, newNode, bytes);
+
+		// Perform rotations to maintain heap property
+		if (node.left != null && node.left.heapValue > node.heapValue) node = rightRotate(node);
+		if (node.right != null && node.right.heapValue > node.heapValue) node = leftRotate(node);
+
+		return node;
+	}
+
+	// ==================== Build Method ====================
+
+	/**
+	 * Builds the treap from arrays of keys and heap values, starting from an empty arena.
+	 *
+	 * @param keys       Array of keys to be inserted.
+	 * @param heapValues Array of heap values corresponding to the keys.
+	 * @return           True if the treap was built successfully, false otherwise.
+	 */
+	public boolean build(String[] keys, int[] heapValues) {
+		if (keys == null || heapValues == null || keys.length != heapValues.length) return false;
+		root = null;
+		count = 0;
+		arena = new KeyArena(chunkSize);
+		deadBytes = 0;
+		for (int i = 0; i < keys.length; i++) add(keys[i], heapValues[i]);
+		return true;
+	}
+
+	// ==================== Find Method ====================
+
+	/**
+	 * Finds if a node with the given key exists in the treap.
+	 *
+	 * @param key The key to search for.
+	 * @return    True if the key is found, false otherwise.
+	 */
+	public boolean find(String key) {
+		return isValidKey(key) && locate(KeyArena.encode(key.toLowerCase())) != null;
+	}
+
+	// ==================== FindPath Method ====================
+
+	/**
+	 * Finds the path from the node with the given key to the root of the treap.
+	 *
+	 * @param key The key whose path to the root is to be found.
+	 * @return    A list of keys representing the path from the node to the root, or null if the key is not found.
+	 */
+	public List<String> findPath(String key) {
+		PathBuffer path = new PathBuffer();
+		return findPath(key, path) ? path.toList() : null;
+	}
+
+	/**
+	 * Finds the path from the node with the given key to the root and writes it into a
+	 * caller-supplied buffer. Keys on the path are decoded from the arena.
+	 *
+	 * @param key  The key whose path to the root is to be found.
+	 * @param path The buffer that receives the keys from the node to the root; cleared first.
+	 * @return     True if the key was found, false otherwise (the buffer is then left empty).
+	 */
+	public boolean findPath(String key, PathBuffer path) {
+		path.clear();
+		if (!isValidKey(key)) return false;
+
+		byte[] bytes = KeyArena.encode(key.toLowerCase());
+		ArenaNode node = root;
+		while (node != null) {
+			path.append(arena.decode(node.handle, node.length));
+			int cmp = compare(bytes, node);
+			if (cmp == 0) {
+				path.reverse(); // Collected root-to-node, report node-to-root
+				return true;
+			}
+			node = cmp < 0 ? node.left : node.right;
+		}
+
+		path.clear();
+		return false;
+	}
+
+	// ==================== ChangeOrder Method ====================
+
+	/**
+	 * Changes the heap value of a node by unlinking it and inserting the same node again, so the
+	 * key stays where it is in the arena.
+	 *
+	 * @param key          The key whose heap value is to be changed.
+	 * @param newHeapValue The new heap value.
+	 * @return             True if the order was successfully changed, false otherwise.
+	 */
+	public boolean changeOrder(String key, int newHeapValue) {
+		if (!isValidKey(key) || newHeapValue <= 0) return false;
+
+		byte[] bytes = KeyArena.encode(key.toLowerCase());
+		ArenaNode node = locate(bytes);
+		if (node == null) return false;
+
+		root = deleteNode(root, bytes);
+		node.left = null;
+		node.right = null;
+		node.heapValue = newHeapValue;
+		root = insertNode(root, node, bytes);
+		return true;
+	}
+
+	// ==================== Remove Method ====================
+
+	/**
+	 * Removes a node with the given key from the treap. Its bytes stay in the arena until the next
+	 * compaction, which starts automatically once removed keys fill more than half of the arena.
+	 *
+	 * @param key The key of the node to be removed.
+	 * @return    True if the node was removed, false otherwise.
+	 */
+	public boolean remove(String key) {
+		if (!isValidKey(key)) return false;
+
+		byte[] bytes = KeyArena.encode(key.toLowerCase());
+		ArenaNode node = locate(bytes);
+		if (node == null) return false;
+
+		root = deleteNode(root, bytes);
+		count--;
+		deadBytes += node.length;
+		if (deadBytes >= MIN_COMPACTION_BYTES && deadBytes * 2 > arena.usedBytes()) compact();
+		return true;
+	}
+
+	/**
+	 * Helper method to recursively unlink a node from the treap.
+	 *
+	 * @param node  The current node in the treap.
+	 * @param bytes The encoded key of the node to be deleted.
+	 * @return      The root of the subtree after deletion.
+	 */
+	private ArenaNode deleteNode(ArenaNode node, byte[] bytes) {
+		if (node == null) return null;
+
+		int cmp = compare(bytes, node);
+		if (cmp < 0) node.left = deleteNode(node.left, bytes);
+		else if (cmp > 0) node.right = deleteNode(node.right, bytes);
+		else {
+			if (node.left == null) return node.right;
+			if (node.right == null) return node.left;
+
+			if (node.left.heapValue > node.right.heapValue) {
+				node = rightRotate(node);
+				node.right = deleteNode(node.right, bytes);
+			} else {
+				node = leftRotate(node);
+				node.left = deleteNode(node.left, bytes);
+			}
+		}
+		return node;
+	}
+
+	// ==================== Compaction ====================
+
+	/**
+	 * Copies the keys of all nodes into a fresh arena in ascending key order and drops the old one,
+	 * reclaiming the space of removed keys. Neighbouring keys end up next to each other in memory.
+	 */
+	public void compact() {
+		KeyArena compacted = new KeyArena(chunkSize);
+		List<ArenaNode> stack = new ArrayList<>();
+		ArenaNode node = root;
+		while (node != null || !stack.isEmpty()) {
+			while (node != null) {
+				stack.add(node);
+				node = node.left;
+			}
+			node = stack.remove(stack.size() - 1);
+			node.handle = compacted.copyFrom(arena, node.handle, node.length);
+			node = node.right;
+		}
+		arena = compacted;
+		deadBytes = 0;
+	}
+
+	/**
+	 * Returns the number of arena bytes in use, including bytes of removed keys that have not been
+	 * compacted away yet.
+	 *
+	 * @return The number of stored key bytes.
+	 */
+	public long arenaBytes() {
+		return arena.usedBytes();
+	}
+
+	/**
+	 * Returns the number of arena bytes that belong to removed keys.
+	 *
+	 * @return The number of reclaimable bytes.
+	 */
+	public long deadBytes() {
+		return deadBytes;
+	}
+
+	// ==================== Size Method ====================
+
+	/**
+	 * Returns the number of nodes in the treap.
+	 *
+	 * @return The number of nodes.
+	 */
+	public int size() {
+		return count;
+	}
+}
@@ -0,0 +1,112 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ArenaTreapTest {
+
+	private ArenaTreap treap;
+
+	@BeforeEach
+	public void setUp() {
+		treap = new ArenaTreap(64);  // Small chunks so that tests span several of them
+	}
+
+	// ========================= Add() Tests =========================
+
+	@Test
+	public void testAddAndFindIgnoreCase() {
+		assertTrue(treap.add("Apple", 10));
+		assertTrue(treap.add("banana", 20));
+		assertTrue(treap.find("APPLE"));
+		assertTrue(treap.find("Banana"));
+		assertFalse(treap.find("cherry"));
+		assertEquals(2, treap.size());
+	}
+
+	@Test
+	public void testAddRejectsDuplicateKeysNotHeapValues() {
+		assertTrue(treap.add("apple", 10));
+		assertFalse(treap.add("APPLE", 20));  // Same key after case folding
+		assertTrue(treap.add("banana", 10));  // Same heap value is allowed
+		assertFalse(treap.add(null, 5));  // Invalid key
+		assertFalse(treap.add("cherry", 0));  // Invalid heap value
+		assertEquals(2, treap.size());
+	}
+
+	@Test
+	public void testKeysLongerThanAChunk() {
+		String longKey = "x".repeat(200);
+		assertTrue(treap.add(longKey, 10));
+		assertTrue(treap.add("short", 5));
+		assertTrue(treap.find(longKey.toUpperCase()));
+		assertEquals(List.of("short", longKey), treap.findPath("short"));
+	}
+
+	@Test
+	public void testEmptyKey() {
+		assertTrue(treap.add("", 10));  // The first key of a fresh arena
+		assertTrue(treap.add("apple", 20));
+		assertTrue(treap.find(""));
+		assertEquals("", treap.findPath("").get(0));  // Path runs from the node to the root
+
+		treap.compact();  // "" is the first key in order
+		assertTrue(treap.find(""));
+		assertTrue(treap.find("apple"));
+		assertEquals(2, treap.size());
+	}
+
+	// ========================= FindPath() Tests =========================
+
+	@Test
+	public void testFindPathDecodesKeys() {
+		treap.add("Root", 10);
+		treap.add("Left", 5);
+		treap.add("Über", 2);  // Non-ASCII keys are stored as UTF-8
+		assertEquals(List.of("left", "root"), treap.findPath("left"));
+		assertEquals(List.of("über", "root"), treap.findPath("ÜBER"));
+		assertNull(treap.findPath("missing"));
+	}
+
+	// ========================= ChangeOrder() Tests =========================
+
+	@Test
+	public void testChangeOrderMovesNodeToRoot() {
+		treap.build(new String[] {"a", "b", "c"}, new int[] {30, 20, 10});
+		assertTrue(treap.changeOrder("c", 50));
+		assertEquals(List.of("c"), treap.findPath("c"));
+		assertFalse(treap.changeOrder("missing", 5));
+		assertEquals(3, treap.size());
+	}
+
+	// ========================= Remove() / Compact() Tests =========================
+
+	@Test
+	public void testRemoveLeavesDeadBytesUntilCompaction() {
+		treap.add("apple", 10);
+		treap.add("banana", 20);
+		assertTrue(treap.remove("Apple"));
+		assertFalse(treap.remove("apple"));  // Already removed
+		assertEquals(5, treap.deadBytes());
+		assertEquals(11, treap.arenaBytes());
+
+		treap.compact();
+		assertEquals(0, treap.deadBytes());
+		assertEquals(6, treap.arenaBytes());  // Only "banana" is left
+		assertTrue(treap.find("banana"));
+		assertFalse(treap.find("apple"));
+	}
+
+	@Test
+	public void testRemoveCompactsAutomatically() {
+		Random random = new Random(42);
+		for (int i = 0; i < 200_000; i++) treap.add("key" + i, 1 + random.nextInt(Integer.MAX_VALUE - 1));
+		for (int i = 0; i < 150_000; i++) treap.remove("key" + i);
+		assertTrue(treap.deadBytes() * 2 <= treap.arenaBytes());  // Dead bytes never exceed half of the arena
+		assertEquals(50_000, treap.size());
+		assertTrue(treap.find("key199999"));
+	}
+}
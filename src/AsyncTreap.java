@@ -0,0 +1,422 @@
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The AsyncTreap class is a single-writer front end for a Treap. Any number of threads submit
+ * mutations with addAsync(), removeAsync() and changeOrderAsync(); the calls put a request on a
+ * lock-free queue and return a CompletableFuture right away. One writer thread owns the treap,
+ * drains the queue in batches and completes each future with the result the treap returned, so
+ * the treap itself never needs a lock.
+ *
+ * Within a batch, a run of changeOrder requests for the same key (with no add or remove of that key
+ * in between) is coalesced: only the last one is applied and the earlier ones receive its result.
+ * This is exact because keys are unique in the treap (addAsync rejects keys that are already
+ * present), so each request in the run sees the same key and only the final heap value survives.
+ *
+ * If the treap throws, the failing request's future completes exceptionally with that exception
+ * (and so do the requests coalesced into it); the writer carries on with the next request.
+ *
+ * Readers do not go through the queue. snapshot() returns an immutable sorted copy of the keys
+ * and heap values, which the writer republishes once the previous snapshot has been read. Each
+ * copy costs O(n) on the writer thread, so while requests keep arriving a new copy is taken only
+ * after the writer has spent {@link #SNAPSHOT_COST_FACTOR} times as long as the previous copy took
+ * on other work, which holds copying to about a tenth of the writer's time however large the
+ * treap is. An active reader therefore sees data at most that old, or older by one batch; as soon
+ * as the queue runs dry the writer brings the snapshot up to date, and flush() always does.
+ */
+public class AsyncTreap implements Closeable {
+
+	// Maximum number of requests the writer applies per batch
+	private static final int MAX_BATCH = 1024;
+
+	// While busy, the writer spends at least this many times the duration of the last snapshot copy
+	// on other work before it copies again
+	static final int SNAPSHOT_COST_FACTOR = 9;
+
+	// Request kinds
+	private static final int ADD = 0;
+	private static final int REMOVE = 1;
+	private static final int CHANGE_ORDER = 2;
+	private static final int FLUSH = 3;
+
+	/**
+	 * The Request class is one queued mutation and the future that receives its result.
+	 */
+	private static class Request {
+		final int kind;           // ADD, REMOVE, CHANGE_ORDER or FLUSH
+		final String key;         // The lowercase key, or null for FLUSH
+		final int heapValue;      // The heap value for ADD and CHANGE_ORDER
+		final CompletableFuture<Boolean> result = new CompletableFuture<>();
+		Request supersededBy;     // A later changeOrder in the same batch that replaces this one
+
+		Request(int kind, String key, int heapValue) {
+			this.kind = kind;
+			this.key = key;
+			this.heapValue = heapValue;
+		}
+	}
+
+	/**
+	 * The Snapshot class is an immutable, sorted copy of the treap's keys and heap values that can
+	 * be read from any thread.
+	 */
+	public static final class Snapshot {
+		private final String[] keys;     // Keys in ascending order
+		private final int[] heapValues;  // Heap value of each key
+		private final long version;      // Number of batches applied before the snapshot was taken
+
+		private Snapshot(String[] keys, int[] heapValues, long version) {
+			this.keys = keys;
+			this.heapValues = heapValues;
+			this.version = version;
+		}
+
+		/**
+		 * Returns whether the snapshot contains the given key.
+		 *
+		 * @param key The key to look up.
+		 * @return    True if the key is present, false otherwise.
+		 */
+		public boolean contains(String key) {
+			return key != null && Arrays.binarySearch(keys, key.toLowerCase()) >= 0;
+		}
+
+		/**
+		 * Returns the heap value of the given key.
+		 *
+		 * @param key The key to look up.
+		 * @return    The heap value, or -1 if the key is not present.
+		 */
+		public int heapValueOf(String key) {
+			int index = key == null ? -1 : Arrays.binarySearch(keys, key.toLowerCase());
+			return index >= 0 ? heapValues[index] : -1;
+		}
+
+		/**
+		 * Returns the keys in ascending order.
+		 *
+		 * @return An unmodifiable list of the keys.
+		 */
+		public List<String> keys() {
+			return Collections.unmodifiableList(Arrays.asList(keys));
+		}
+
+		/**
+		 * Returns the number of keys in the snapshot.
+		 *
+		 * @return The number of keys.
+		 */
+		public int size() {
+			return keys.length;
+		}
+
+		/**
+		 * Returns the number of batches the writer had applied when the snapshot was taken.
+		 *
+		 * @return The snapshot version.
+		 */
+		public long version() {
+			return version;
+		}
+	}
+
+	// The treap owned by the writer thread
+	private final Treap tree;
+
+	// Requests submitted by any thread and consumed only by the writer
+	private final ConcurrentLinkedQueue<Request> queue;
+
+	// The writer thread
+	private final Thread writer;
+
+	// The most recently published snapshot
+	private volatile Snapshot snapshot;
+
+	// Set by readers when they read the snapshot, so the writer knows to publish a new one
+	private volatile boolean snapshotRead;
+
+	// Set by the writer when it has applied batches that the published snapshot does not reflect
+	private boolean snapshotStale;
+
+	// When the writer finished its last snapshot copy, and how long that copy took (in nanoseconds)
+	private long lastSnapshotEnd;
+	private long lastSnapshotCost;
+
+	// Number of changeOrder requests answered without touching the treap
+	private volatile long coalesced;
+
+	// Set when the facade is shutting down
+	private volatile boolean closed;
+
+	// Set by the writer once it no longer takes requests from the queue
+	private volatile boolean stopped;
+
+	/**
+	 * Starts a writer thread for the given treap.
+	 *
+	 * @param tree The treap to own; it must not be used by anyone else afterwards.
+	 */
+	public AsyncTreap(Treap tree) {
+		if (tree == null) throw new IllegalArgumentException("tree must not be null");
+		this.tree = tree;
+		this.queue = new ConcurrentLinkedQueue<>();
+		this.snapshot = takeSnapshot(0);
+		this.snapshotRead = false;
+		this.closed = false;
+		this.stopped = false;
+		this.writer = new Thread(this::run, "async-treap-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	// ==================== Asynchronous Mutations ====================
+
+	/**
+	 * Adds a key with the given heap value unless the key is already present. The heap value
+	 * rules of {@link Treap#add(String, int)} apply.
+	 *
+	 * @param key       The key to add.
+	 * @param heapValue The heap value of the new node.
+	 * @return          A future that completes with true if the key was added, false otherwise.
+	 */
+	public CompletableFuture<Boolean> addAsync(String key, int heapValue) {
+		return submit(ADD, key, heapValue);
+	}
+
+	/**
+	 * Removes a key.
+	 *
+	 * @param key The key to remove.
+	 * @return    A future that completes with true if the key was removed, false otherwise.
+	 */
+	public CompletableFuture<Boolean> removeAsync(String key) {
+		return submit(REMOVE, key, 0);
+	}
+
+	/**
+	 * Changes the heap value of a key.
+	 *
+	 * @param key       The key whose heap value is changed.
+	 * @param heapValue The new heap value.
+	 * @return          A future that completes with true if the heap value was changed, false otherwise.
+	 */
+	public CompletableFuture<Boolean> changeOrderAsync(String key, int heapValue) {
+		return submit(CHANGE_ORDER, key, heapValue);
+	}
+
+	/**
+	 * Returns a future that completes once every request submitted before this call has been
+	 * applied and a snapshot reflecting them has been published.
+	 *
+	 * @return A future that completes with true.
+	 */
+	public CompletableFuture<Boolean> flush() {
+		return enqueue(new Request(FLUSH, null, 0));
+	}
+
+	/**
+	 * Helper method to validate and queue a mutation.
+	 */
+	private CompletableFuture<Boolean> submit(int kind, String key, int heapValue) {
+		if (key == null) return CompletableFuture.completedFuture(false);
+		return enqueue(new Request(kind, key.toLowerCase(), heapValue));
+	}
+
+	/**
+	 * Helper method to queue a request and wake the writer.
+	 */
+	private CompletableFuture<Boolean> enqueue(Request request) {
+		if (closed) {
+			request.result.completeExceptionally(new IllegalStateException("AsyncTreap is closed"));
+			return request.result;
+		}
+		queue.offer(request);
+		LockSupport.unpark(writer);
+		if (stopped && queue.remove(request)) {
+			request.result.completeExceptionally(new IllegalStateException("AsyncTreap is closed")); // Raced with close()
+		}
+		return request.result;
+	}
+
+	// ==================== Reads ====================
+
+	/**
+	 * Returns the latest published snapshot without waiting for the writer.
+	 *
+	 * @return An immutable view of the keys and heap values.
+	 */
+	public Snapshot snapshot() {
+		snapshotRead = true;
+		return snapshot;
+	}
+
+	/**
+	 * Returns the number of changeOrder requests that were answered by coalescing instead of being
+	 * applied to the treap.
+	 *
+	 * @return The number of coalesced requests.
+	 */
+	public long coalesced() {
+		return coalesced;
+	}
+
+	/**
+	 * Stops the writer after it has applied the requests already queued. Requests submitted after
+	 * this call fail with an IllegalStateException.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		LockSupport.unpark(writer);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// ==================== Writer ====================
+
+	/**
+	 * Main loop of the writer thread: drains batches until the facade is closed and the queue is empty.
+	 */
+	private void run() {
+		List<Request> batch = new ArrayList<>(MAX_BATCH);
+		long version = 0;
+		while (true) {
+			Request request;
+			while (batch.size() < MAX_BATCH && (request = queue.poll()) != null) batch.add(request);
+
+			if (batch.isEmpty()) {
+				if (snapshotStale && snapshotRead) { // Idle: bring readers up to date before waiting
+					publishSnapshot(version);
+					continue;
+				}
+				if (closed) break;
+				LockSupport.park(this);
+				continue;
+			}
+
+			boolean flushed = applyBatch(batch);
+			version++;
+			snapshotStale = true;
+			if (flushed || (snapshotRead && System.nanoTime() - lastSnapshotEnd >= SNAPSHOT_COST_FACTOR * lastSnapshotCost)) {
+				publishSnapshot(version);
+			}
+			for (Request done : batch) {
+				if (done.kind == FLUSH) done.result.complete(true); // Only after the snapshot is published
+			}
+			batch.clear();
+		}
+		// Anything that raced with close() is rejected
+		stopped = true;
+		for (Request request; (request = queue.poll()) != null; ) {
+			request.result.completeExceptionally(new IllegalStateException("AsyncTreap is closed"));
+		}
+	}
+
+	/**
+	 * Helper method to coalesce and apply one batch, completing every mutation's future.
+	 *
+	 * @param batch The requests in submission order.
+	 * @return      True if the batch contains a flush request.
+	 */
+	private boolean applyBatch(List<Request> batch) {
+		// Link each changeOrder to the next changeOrder of the same key, unless an add or remove of that key comes between
+		Map<String, Request> openRuns = new HashMap<>();
+		boolean flushed = false;
+		for (Request request : batch) {
+			if (request.kind == FLUSH) {
+				flushed = true;
+			} else if (request.kind == CHANGE_ORDER && request.heapValue > 0) {
+				Request previous = openRuns.put(request.key, request);
+				if (previous != null) previous.supersededBy = request;
+			} else {
+				openRuns.remove(request.key);
+			}
+		}
+
+		for (Request request : batch) {
+			if (request.kind == FLUSH || request.supersededBy != null) continue;
+			try {
+				request.result.complete(applyToTree(request));
+			} catch (Throwable e) {
+				request.result.completeExceptionally(e); // Keep the writer alive for the requests after it
+			}
+		}
+
+		// Superseded requests take the result (or failure) of the request that replaced them, which is already complete
+		long answered = 0;
+		for (int i = batch.size() - 1; i >= 0; i--) {
+			Request request = batch.get(i);
+			if (request.supersededBy != null) {
+				try {
+					request.result.complete(request.supersededBy.result.join());
+				} catch (CompletionException e) {
+					request.result.completeExceptionally(e.getCause());
+				}
+				answered++;
+			}
+		}
+		if (answered > 0) coalesced += answered;
+		return flushed;
+	}
+
+	/**
+	 * Helper method to run one mutation against the treap.
+	 *
+	 * @param request The ADD, REMOVE or CHANGE_ORDER request.
+	 * @return        The result the treap returned.
+	 */
+	private boolean applyToTree(Request request) {
+		switch (request.kind) {
+			case ADD:
+				return tree.findDepth(request.key) < 0 && tree.add(request.key, request.heapValue);
+			case REMOVE:
+				return tree.remove(request.key);
+			default:
+				return tree.changeOrder(request.key, request.heapValue);
+		}
+	}
+
+	/**
+	 * Helper method to publish a new snapshot and record how long copying took.
+	 *
+	 * @param version The number of batches applied so far.
+	 */
+	private void publishSnapshot(long version) {
+		long start = System.nanoTime();
+		snapshotRead = false;
+		snapshot = takeSnapshot(version);
+		snapshotStale = false;
+		lastSnapshotEnd = System.nanoTime();
+		lastSnapshotCost = lastSnapshotEnd - start;
+	}
+
+	/**
+	 * Helper method to copy the treap into an immutable snapshot. Called only by the writer (and
+	 * once by the constructor before the writer starts).
+	 *
+	 * @param version The number of batches applied so far.
+	 * @return        The new snapshot.
+	 */
+	private Snapshot takeSnapshot(long version) {
+		TreapNode[] nodes = tree.inOrderNodes();
+		String[] keys = new String[nodes.length];
+		int[] heapValues = new int[nodes.length];
+		for (int i = 0; i < nodes.length; i++) {
+			keys[i] = nodes[i].key;
+			heapValues[i] = nodes[i].heapValue;
+		}
+		return new Snapshot(keys, heapValues, version);
+	}
+}
@@ -0,0 +1,140 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AsyncTreapTest {
+
+	private AsyncTreap treap;
+
+	@BeforeEach
+	public void setUp() {
+		treap = new AsyncTreap(new Treap());
+	}
+
+	@AfterEach
+	public void tearDown() {
+		treap.close();
+	}
+
+	// ========================= Mutation Tests =========================
+
+	@Test
+	public void testAddRejectsPresentKeys() {
+		assertTrue(treap.addAsync("Apple", 10).join());
+		assertFalse(treap.addAsync("apple", 20).join());  // Key already present
+		assertFalse(treap.addAsync("banana", 10).join());  // Duplicate heap value, as in Treap.add
+		assertFalse(treap.addAsync(null, 5).join());
+	}
+
+	@Test
+	public void testRemoveAndChangeOrder() {
+		treap.addAsync("apple", 10);
+		assertTrue(treap.changeOrderAsync("APPLE", 30).join());
+		assertFalse(treap.changeOrderAsync("missing", 30).join());
+		assertTrue(treap.removeAsync("apple").join());
+		assertFalse(treap.removeAsync("apple").join());
+	}
+
+	@Test
+	public void testRepeatedChangeOrderIsCoalesced() {
+		treap.addAsync("hot", 10);
+		List<CompletableFuture<Boolean>> results = new ArrayList<>();
+		for (int i = 1; i <= 500; i++) results.add(treap.changeOrderAsync("hot", i * 3));
+		treap.flush().join();
+
+		for (CompletableFuture<Boolean> result : results) assertTrue(result.join());  // Every request reports success
+		assertEquals(1500, treap.snapshot().heapValueOf("hot"));  // Only the last heap value survives
+	}
+
+	@Test
+	public void testChangeOrderAfterRemoveIsNotCoalesced() {
+		treap.addAsync("key", 10);
+		CompletableFuture<Boolean> before = treap.changeOrderAsync("key", 20);
+		treap.removeAsync("key");
+		CompletableFuture<Boolean> after = treap.changeOrderAsync("key", 30);
+		assertTrue(before.join());
+		assertFalse(after.join());  // The key was removed in between
+	}
+
+	@Test
+	public void testFailingRequestDoesNotStallLaterOnes() {
+		AsyncTreap failing = new AsyncTreap(new Treap() {
+			@Override
+			public boolean remove(String key) {
+				if ("boom".equals(key)) throw new IllegalStateException("tree failure");
+				return super.remove(key);
+			}
+
+			@Override
+			public boolean changeOrder(String key, int newHeapValue) {
+				if ("boom".equals(key)) throw new IllegalStateException("tree failure");
+				return super.changeOrder(key, newHeapValue);
+			}
+		});
+		try {
+			CompletableFuture<Boolean> removed = failing.removeAsync("boom");
+			CompletableFuture<Boolean> superseded = failing.changeOrderAsync("boom", 10);
+			CompletableFuture<Boolean> last = failing.changeOrderAsync("boom", 20);
+			CompletableFuture<Boolean> added = failing.addAsync("ok", 5);
+			assertTrue(added.join());  // Requests after the failure are still applied
+			CompletionException e = assertThrows(CompletionException.class, removed::join);
+			assertTrue(e.getCause() instanceof IllegalStateException);
+			assertThrows(CompletionException.class, last::join);
+			assertThrows(CompletionException.class, superseded::join);  // Fails with the request that replaced it
+			assertTrue(failing.flush().join());
+			assertTrue(failing.snapshot().contains("ok"));
+		} finally {
+			failing.close();
+		}
+	}
+
+	// ========================= Snapshot Tests =========================
+
+	@Test
+	public void testSnapshotAfterFlush() {
+		treap.addAsync("b", 10);
+		treap.addAsync("a", 20);
+		treap.flush().join();
+		AsyncTreap.Snapshot snapshot = treap.snapshot();
+		assertEquals(List.of("a", "b"), snapshot.keys());
+		assertTrue(snapshot.contains("A"));
+		assertEquals(20, snapshot.heapValueOf("a"));
+		assertEquals(-1, snapshot.heapValueOf("c"));
+	}
+
+	@Test
+	public void testSnapshotIsImmutable() {
+		treap.addAsync("a", 10);
+		treap.flush().join();
+		AsyncTreap.Snapshot snapshot = treap.snapshot();
+		treap.removeAsync("a");
+		treap.flush().join();
+		assertTrue(snapshot.contains("a"));  // Old snapshot is unaffected
+		assertFalse(treap.snapshot().contains("a"));
+	}
+
+	@Test
+	public void testIdleWriterRefreshesReadSnapshot() throws InterruptedException {
+		treap.snapshot();  // A reader is active
+		treap.addAsync("a", 10).join();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!treap.snapshot().contains("a") && System.currentTimeMillis() < deadline) Thread.sleep(1);
+		assertTrue(treap.snapshot().contains("a"));  // Published without flush() once the queue ran dry
+	}
+
+	// ========================= Close Tests =========================
+
+	@Test
+	public void testSubmitAfterClose() {
+		treap.close();
+		CompletionException e = assertThrows(CompletionException.class, () -> treap.addAsync("late", 1).join());
+		assertTrue(e.getCause() instanceof IllegalStateException);
+	}
+}
@@ -0,0 +1,142 @@
+/**
+ * The BloomFilter class is a fixed-size, approximate set of string keys. A key that was added is
+ * always reported as possibly present; an absent key is reported as absent except for a small
+ * false-positive rate, so a negative answer lets a caller skip an expensive lookup.
+ *
+ * The filter is blocked: the bits are grouped into blocks of 512 bits (eight longs), and each key
+ * sets one bit in every long of a single block chosen by its hash. A query therefore reads one
+ * 64-byte block instead of eight scattered words, at the price of a slightly higher
+ * false-positive rate than a classic Bloom filter of the same size.
+ */
+public class BloomFilter {
+
+	// Number of longs per block; each key sets one bit in each of them
+	private static final int WORDS_PER_BLOCK = 8;
+
+	// Odd multipliers that derive the bit positions in the eight words from one 32-bit hash
+	private static final int[] SALTS = {
+			0x47B6137B, 0x44974D91, 0x8824AD5B, 0xA2B7289D,
+			0x705495C7, 0x2DF1424B, 0x9EFC4947, 0x5C6BFB31
+	};
+
+	// Bits of all blocks, stored block after block
+	private final long[] words;
+
+	// Number of blocks
+	private final int blocks;
+
+	// Number of keys the filter was sized for
+	private final int capacity;
+
+	// Number of added keys that set at least one new bit
+	private int insertions;
+
+	/**
+	 * Constructs an empty filter sized for the given number of keys.
+	 *
+	 * @param capacity   The number of keys the filter is expected to hold; must be positive.
+	 * @param bitsPerKey The number of bits to spend per expected key; must be positive.
+	 */
+	public BloomFilter(int capacity, int bitsPerKey) {
+		if (capacity <= 0 || bitsPerKey <= 0) throw new IllegalArgumentException("capacity and bitsPerKey must be positive");
+		long bits = (long) capacity * bitsPerKey;
+		long blockCount = (bits + 64 * WORDS_PER_BLOCK - 1) / (64 * WORDS_PER_BLOCK);
+		if (blockCount * WORDS_PER_BLOCK > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("filter too large");
+		this.blocks = (int) blockCount;
+		this.words = new long[blocks * WORDS_PER_BLOCK];
+		this.capacity = capacity;
+		this.insertions = 0;
+	}
+
+	/**
+	 * Adds a key to the filter.
+	 *
+	 * @param key The key to add.
+	 * @return    True if the key set a new bit, false if the filter already reported it as possibly present.
+	 */
+	public boolean add(String key) {
+		long hash = hash(key);
+		int base = block(hash);
+		int low = (int) hash;
+		long changed = 0;
+		for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+			long bit = 1L << ((low * SALTS[i]) >>> 26);
+			changed |= ~words[base + i] & bit;
+			words[base + i] |= bit;
+		}
+		if (changed == 0) return false;
+		insertions++;
+		return true;
+	}
+
+	/**
+	 * Checks whether a key may have been added.
+	 *
+	 * @param key The key to check.
+	 * @return    False if the key was certainly never added, true if it possibly was.
+	 */
+	public boolean mightContain(String key) {
+		long hash = hash(key);
+		int base = block(hash);
+		int low = (int) hash;
+		long missing = 0;
+		for (int i = 0; i < WORDS_PER_BLOCK; i++) missing |= ~words[base + i] & (1L << ((low * SALTS[i]) >>> 26));
+		return missing == 0;
+	}
+
+	/**
+	 * Returns the number of keys the filter was sized for.
+	 *
+	 * @return The capacity.
+	 */
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of added keys that were new to the filter. Keys that were already
+	 * reported as possibly present, including repeated adds of the same key, are not counted.
+	 *
+	 * @return The number of insertions.
+	 */
+	public int insertions() {
+		return insertions;
+	}
+
+	/**
+	 * Returns the memory used by the bits of the filter.
+	 *
+	 * @return The size of the bit array in bytes.
+	 */
+	public long sizeInBytes() {
+		return (long) words.length * Long.BYTES;
+	}
+
+	/**
+	 * Helper method to hash all characters of a key into 64 bits (FNV-1a over the characters,
+	 * followed by the MurmurHash3 finalizer so that every bit depends on every character).
+	 *
+	 * @param key The key to hash.
+	 * @return    The 64-bit hash.
+	 */
+	static long hash(String key) {
+		long h = 0xCBF29CE484222325L;
+		for (int i = 0; i < key.length(); i++) h = (h ^ key.charAt(i)) * 0x100000001B3L;
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * Helper method to map the upper half of a hash to the index of the first word of a block.
+	 *
+	 * @param hash The key's hash.
+	 * @return     The index of the block's first word.
+	 */
+	private int block(long hash) {
+		return (int) (((hash >>> 32) * blocks) >>> 32) * WORDS_PER_BLOCK;
+	}
+}
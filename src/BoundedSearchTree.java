@@ -0,0 +1,148 @@
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The BoundedSearchTree class is a SearchTree with a fixed capacity, for use as a hot-key cache.
+ * When an insertion takes the tree above its capacity, the least-searched key is evicted (LFU).
+ * New keys get random heap values like in any SearchTree, which keeps the tree balanced for any
+ * insertion order, and frequently searched nodes are promoted above their less searched parents,
+ * so rarely searched nodes collect below them; the eviction candidate is therefore found on a few
+ * sampled root-to-leaf walks instead of by scanning the whole tree.
+ */
+public class BoundedSearchTree extends SearchTree {
+
+	// Maximum number of keys kept in the tree
+	private final int capacity;
+
+	// Number of random root-to-leaf walks sampled when looking for a key to evict
+	private static final int EVICTION_WALKS = 4;
+
+	// Number of keys evicted so far
+	private long evictions;
+
+	/**
+	 * Constructs an empty bounded search tree with per-node search counts.
+	 *
+	 * @param capacity The maximum number of keys; must be positive.
+	 */
+	public BoundedSearchTree(int capacity) {
+		this(capacity, null);
+	}
+
+	/**
+	 * Constructs an empty bounded search tree that keeps search frequencies in the given sketch.
+	 *
+	 * @param capacity The maximum number of keys; must be positive.
+	 * @param sketch   The sketch holding search frequencies, or null to use per-node counters.
+	 */
+	public BoundedSearchTree(int capacity, CountMinSketch sketch) {
+		super(sketch);
+		if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+		this.capacity = capacity;
+		this.evictions = 0;
+	}
+
+	// ==================== Add() Methods ====================
+
+	/**
+	 * Adds a key with a generated heap value and evicts the least-searched other key if the tree
+	 * is now over capacity.
+	 *
+	 * @param key The key to be added.
+	 * @return    True if the key was added, false otherwise (e.g., if key is invalid or already exists).
+	 */
+	@Override
+	public boolean add(String key) {
+		if (!super.add(key)) return false;
+		evictIfOverCapacity(key.toLowerCase());
+		return true;
+	}
+
+	/**
+	 * Adds a key with the given heap value and evicts the least-searched other key if the tree
+	 * is now over capacity.
+	 *
+	 * @param key       The key to be added.
+	 * @param heapValue The associated heap value.
+	 * @return          True if the node was added, false otherwise.
+	 */
+	@Override
+	public boolean add(String key, int heapValue) {
+		if (!super.add(key, heapValue)) return false;
+		evictIfOverCapacity(key.toLowerCase());
+		return true;
+	}
+
+	// ==================== Eviction ====================
+
+	/**
+	 * Returns the maximum number of keys kept in the tree.
+	 *
+	 * @return The capacity.
+	 */
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of keys evicted since the tree was created.
+	 *
+	 * @return The eviction count.
+	 */
+	public long evictions() {
+		return evictions;
+	}
+
+	/**
+	 * Evicts least-searched keys until the tree is within its capacity again.
+	 *
+	 * @param keepKey The lowercase key that was just added and must not be evicted.
+	 */
+	private void evictIfOverCapacity(String keepKey) {
+		while (count > capacity) {
+			TreapNode victim = findEvictionCandidate(keepKey);
+			if (victim == null) return;
+			root = deleteNode(root, victim.key); // Remove directly so the search count is not bumped
+			count--;
+			nodeRemoved(victim.key);
+			invalidateCachedKey(victim.key);
+			evictions++;
+		}
+		checkBloomFilter();
+	}
+
+	/**
+	 * Samples a few root-to-leaf walks and returns the least frequently searched node seen on them.
+	 * The choice rests on search counts alone, not on heap values. The first walk always steps to
+	 * the less searched child, so it reaches a cold key even when a newly inserted key with a high
+	 * heap value sits above a hot leaf; the other walks pick children at random, since walks that
+	 * all follow the colder child keep ending in the same few subtrees. In a skewed workload most
+	 * keys are rarely searched, so a handful of walks almost always finds a key with the minimum
+	 * count while touching only O(log n) nodes each. Reading frequencies does not count as a
+	 * search, so the walks neither bump counts nor rotate nodes.
+	 *
+	 * @param keepKey The lowercase key that must not be chosen.
+	 * @return        The node to evict, or null if there is no candidate.
+	 */
+	private TreapNode findEvictionCandidate(String keepKey) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		TreapNode victim = null;
+		int victimFrequency = Integer.MAX_VALUE;
+
+		for (int walk = 0; walk < EVICTION_WALKS; walk++) {
+			TreapNode node = root;
+			while (node != null) {
+				int frequency = frequencyOf(node);
+				if (frequency <= victimFrequency && !node.key.equals(keepKey)) {
+					victim = node;  // Ties go to the node seen last, which is usually deeper
+					victimFrequency = frequency;
+				}
+
+				if (node.left == null) node = node.right;
+				else if (node.right == null) node = node.left;
+				else if (walk == 0) node = frequencyOf(node.left) <= frequencyOf(node.right) ? node.left : node.right;
+				else node = random.nextBoolean() ? node.left : node.right;
+			}
+		}
+		return victim;
+	}
+}
@@ -0,0 +1,346 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The CopyOnWriteTreap class is a treap for read-mostly workloads in which readers never wait.
+ * Nodes are immutable. A writer copies only the nodes on the path it changes (expected O(log n)
+ * of them), shares every other subtree with the previous version, and publishes the result with a
+ * single volatile write. find(), findPath(), keys() and iteration read whatever version is
+ * published when they start, without locks, CAS or retries, and always see a complete, consistent
+ * tree. Writers are serialized by the object's monitor.
+ *
+ * Like the ArenaTreap, duplicate keys are rejected rather than duplicate heap values, so adding a
+ * key never scans the whole tree.
+ */
+public class CopyOnWriteTreap implements Searchable, Iterable<String> {
+
+	/**
+	 * The Node class is an immutable treap node that may be shared by several versions.
+	 */
+	private static final class Node {
+		final String key;     // The lowercase key
+		final int heapValue;  // Priority value used to maintain the heap property
+		final Node left;      // Reference to the left child of this node
+		final Node right;     // Reference to the right child of this node
+
+		Node(String key, int heapValue, Node left, Node right) {
+			this.key = key;
+			this.heapValue = heapValue;
+			this.left = left;
+			this.right = right;
+		}
+
+		/**
+		 * Returns this node with other children, reusing it when nothing changes.
+		 */
+		Node with(Node newLeft, Node newRight) {
+			return newLeft == left && newRight == right ? this : new Node(key, heapValue, newLeft, newRight);
+		}
+	}
+
+	/**
+	 * The Version class pairs a root with the number of keys under it, so both are published
+	 * together.
+	 */
+	private static final class Version {
+		final Node root;  // Root of this version, or null if it is empty
+		final int size;   // Number of keys in this version
+
+		Version(Node root, int size) {
+			this.root = root;
+			this.size = size;
+		}
+	}
+
+	// The published version; replaced by writers, read by everyone
+	private volatile Version current;
+
+	/**
+	 * Constructs an empty copy-on-write treap.
+	 */
+	public CopyOnWriteTreap() {
+		this.current = new Version(null, 0);
+	}
+
+	// ==================== Path Copying ====================
+
+	/**
+	 * Helper method to insert a new key into a version, copying the nodes on its path. The new
+	 * node is placed where its heap value belongs, and the subtree it replaces is split around it.
+	 *
+	 * @param node      The root of the subtree.
+	 * @param key       The lowercase key, known to be absent.
+	 * @param heapValue The heap value of the new node.
+	 * @return          The root of the new subtree.
+	 */
+	private static Node insert(Node node, String key, int heapValue) {
+		if (node == null || heapValue > node.heapValue) {
+			Node[] parts = new Node[2];
+			split(node, key, parts);
+			return new Node(key, heapValue, parts[0], parts[1]);
+		}
+		return key.compareTo(node.key) < 0
+				? node.with(insert(node.left, key, heapValue), node.right)
+				: node.with(node.left, insert(node.right, key, heapValue));
+	}
+
+	/**
+	 * Helper method to split a subtree into the keys before and after a key that is not in it,
+	 * copying the nodes on the split path.
+	 *
+	 * @param node  The root of the subtree.
+	 * @param key   The lowercase key to split at.
+	 * @param parts Two-element array that receives the smaller part at index 0 and the larger at index 1.
+	 */
+	private static void split(Node node, String key, Node[] parts) {
+		if (node == null) {
+			parts[0] = null;
+			parts[1] = null;
+		} else if (node.key.compareTo(key) < 0) {
+			split(node.right, key, parts);
+			parts[0] = node.with(node.left, parts[0]);
+		} else {
+			split(node.left, key, parts);
+			parts[1] = node.with(parts[1], node.right);
+		}
+	}
+
+	/**
+	 * Helper method to remove a key from a version, copying the nodes on its path and replacing
+	 * the removed node by the join of its children.
+	 *
+	 * @param node The root of the subtree.
+	 * @param key  The lowercase key, known to be present.
+	 * @return     The root of the new subtree.
+	 */
+	private static Node delete(Node node, String key) {
+		int cmp = key.compareTo(node.key);
+		if (cmp == 0) return join(node.left, node.right);
+		return cmp < 0 ? node.with(delete(node.left, key), node.right) : node.with(node.left, delete(node.right, key));
+	}
+
+	/**
+	 * Helper method to join two subtrees where every key in the left one is smaller than every key
+	 * in the right one, copying the nodes along the seam.
+	 *
+	 * @param left  The root of the subtree holding the smaller keys.
+	 * @param right The root of the subtree holding the larger keys.
+	 * @return      The root of the joined subtree.
+	 */
+	private static Node join(Node left, Node right) {
+		if (left == null) return right;
+		if (right == null) return left;
+		if (left.heapValue > right.heapValue) return left.with(left.left, join(left.right, right));
+		return right.with(join(left, right.left), right.right);
+	}
+
+	/**
+	 * Helper method to look up a node in a version.
+	 *
+	 * @param node The root of the version.
+	 * @param key  The lowercase key.
+	 * @return     The node with the key, or null if it is not present.
+	 */
+	private static Node locate(Node node, String key) {
+		while (node != null) {
+			int cmp = key.compareTo(node.key);
+			if (cmp == 0) return node;
+			node = cmp < 0 ? node.left : node.right;
+		}
+		return null;
+	}
+
+	// ==================== Write Methods ====================
+
+	/**
+	 * Adds a new key with the given heap value and publishes the new version.
+	 *
+	 * @param key       The key to be added.
+	 * @param heapValue The associated heap value; must be positive.
+	 * @return          True if the key was added, false if it is invalid or already present.
+	 */
+	@Override
+	public synchronized boolean add(String key, int heapValue) {
+		if (key == null || heapValue <= 0) return false;
+		String lowerKey = key.toLowerCase();
+		Version version = current;
+		if (locate(version.root, lowerKey) != null) return false;
+		current = new Version(insert(version.root, lowerKey, heapValue), version.size + 1);
+		return true;
+	}
+
+	/**
+	 * Replaces the contents with the given keys and publishes them as one version. Later
+	 * duplicates of a key and entries that add() would reject are skipped.
+	 *
+	 * @param keys       Array of keys to be inserted.
+	 * @param heapValues Array of heap values corresponding to the keys.
+	 * @return           True if the treap was built successfully, false otherwise.
+	 */
+	@Override
+	public synchronized boolean build(String[] keys, int[] heapValues) {
+		if (keys == null || heapValues == null || keys.length != heapValues.length) return false;
+		Node root = null;
+		int size = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] == null || heapValues[i] <= 0) continue;
+			String lowerKey = keys[i].toLowerCase();
+			if (locate(root, lowerKey) != null) continue;
+			root = insert(root, lowerKey, heapValues[i]);
+			size++;
+		}
+		current = new Version(root, size); // Readers see the old contents or the new, never a mix
+		return true;
+	}
+
+	/**
+	 * Changes the heap value of a key and publishes the new version.
+	 *
+	 * @param key          The key whose heap value is to be changed.
+	 * @param newHeapValue The new heap value; must be positive.
+	 * @return             True if the heap value was changed, false otherwise.
+	 */
+	@Override
+	public synchronized boolean changeOrder(String key, int newHeapValue) {
+		if (key == null || newHeapValue <= 0) return false;
+		String lowerKey = key.toLowerCase();
+		Version version = current;
+		if (locate(version.root, lowerKey) == null) return false;
+		current = new Version(insert(delete(version.root, lowerKey), lowerKey, newHeapValue), version.size);
+		return true;
+	}
+
+	/**
+	 * Removes a key and publishes the new version.
+	 *
+	 * @param key The key to be removed.
+	 * @return    True if the key was removed, false otherwise.
+	 */
+	@Override
+	public synchronized boolean remove(String key) {
+		if (key == null) return false;
+		String lowerKey = key.toLowerCase();
+		Version version = current;
+		if (locate(version.root, lowerKey) == null) return false;
+		current = new Version(delete(version.root, lowerKey), version.size - 1);
+		return true;
+	}
+
+	// ==================== Read Methods ====================
+
+	/**
+	 * Finds if a key exists in the published version, without locking.
+	 *
+	 * @param key The key to search for.
+	 * @return    True if the key is found, false otherwise.
+	 */
+	@Override
+	public boolean find(String key) {
+		return key != null && locate(current.root, key.toLowerCase()) != null;
+	}
+
+	/**
+	 * Finds the path from the node with the given key to the root of the published version.
+	 *
+	 * @param key The key whose path to the root is to be found.
+	 * @return    A list of keys representing the path from the node to the root, or null if the key is not found.
+	 */
+	@Override
+	public List<String> findPath(String key) {
+		PathBuffer path = new PathBuffer();
+		return findPath(key, path) ? path.toList() : null;
+	}
+
+	/**
+	 * Finds the path from the node with the given key to the root of the published version and
+	 * writes it into a caller-supplied buffer, without locking.
+	 *
+	 * @param key  The key whose path to the root is to be found.
+	 * @param path The buffer that receives the keys from the node to the root; cleared first.
+	 * @return     True if the key was found, false otherwise (the buffer is then left empty).
+	 */
+	public boolean findPath(String key, PathBuffer path) {
+		path.clear();
+		if (key == null) return false;
+
+		String lowerKey = key.toLowerCase();
+		Node node = current.root;
+		while (node != null) {
+			path.append(node.key);
+			int cmp = lowerKey.compareTo(node.key);
+			if (cmp == 0) {
+				path.reverse(); // Collected root-to-node, report node-to-root
+				return true;
+			}
+			node = cmp < 0 ? node.left : node.right;
+		}
+
+		path.clear();
+		return false;
+	}
+
+	/**
+	 * Returns all keys of the published version in ascending order.
+	 *
+	 * @return A new list of the keys.
+	 */
+	public List<String> keys() {
+		Version version = current;
+		List<String> keys = new ArrayList<>(version.size);
+		for (Iterator<String> it = iterator(version.root); it.hasNext(); ) keys.add(it.next());
+		return keys;
+	}
+
+	/**
+	 * Returns an iterator over the keys of the version published when the call is made, in
+	 * ascending order. Later writes do not affect it.
+	 *
+	 * @return An iterator over the keys.
+	 */
+	@Override
+	public Iterator<String> iterator() {
+		return iterator(current.root);
+	}
+
+	/**
+	 * Helper method to iterate over the keys of a version with an explicit stack.
+	 */
+	private static Iterator<String> iterator(Node root) {
+		return new Iterator<String>() {
+			private final List<Node> stack = new ArrayList<>();
+
+			{
+				pushLeftSpine(root);
+			}
+
+			private void pushLeftSpine(Node node) {
+				for (; node != null; node = node.left) stack.add(node);
+			}
+
+			@Override
+			public boolean hasNext() {
+				return !stack.isEmpty();
+			}
+
+			@Override
+			public String next() {
+				if (stack.isEmpty()) throw new NoSuchElementException();
+				Node node = stack.remove(stack.size() - 1);
+				pushLeftSpine(node.right);
+				return node.key;
+			}
+		};
+	}
+
+	/**
+	 * Returns the number of keys in the published version.
+	 *
+	 * @return The number of keys.
+	 */
+	@Override
+	public int size() {
+		return current.size;
+	}
+}
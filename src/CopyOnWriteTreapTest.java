@@ -0,0 +1,102 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CopyOnWriteTreapTest {
+
+	private CopyOnWriteTreap treap;
+
+	@BeforeEach
+	public void setUp() {
+		treap = new CopyOnWriteTreap();
+	}
+
+	// ========================= Add() / Remove() Tests =========================
+
+	@Test
+	public void testAddRejectsDuplicateKeys() {
+		assertTrue(treap.add("Apple", 10));
+		assertFalse(treap.add("apple", 20));
+		assertTrue(treap.add("banana", 10));  // Duplicate heap values are allowed
+		assertFalse(treap.add(null, 5));
+		assertFalse(treap.add("cherry", 0));
+		assertEquals(2, treap.size());
+	}
+
+	@Test
+	public void testRemove() {
+		treap.add("apple", 10);
+		treap.add("banana", 20);
+		assertTrue(treap.remove("APPLE"));
+		assertFalse(treap.remove("apple"));
+		assertFalse(treap.find("apple"));
+		assertTrue(treap.find("banana"));
+		assertEquals(1, treap.size());
+	}
+
+	// ========================= ChangeOrder() / FindPath() Tests =========================
+
+	@Test
+	public void testChangeOrderMovesKeyToRoot() {
+		treap.add("a", 30);
+		treap.add("b", 20);
+		treap.add("c", 10);
+		assertEquals(List.of("c", "b", "a"), treap.findPath("c"));
+		assertTrue(treap.changeOrder("c", 40));
+		assertEquals(List.of("c"), treap.findPath("c"));
+		assertEquals(List.of("b", "a", "c"), treap.findPath("b"));  // The keys below c stay in a's subtree
+		assertFalse(treap.changeOrder("missing", 50));
+		assertEquals(3, treap.size());
+	}
+
+	@Test
+	public void testFindPathMissingKey() {
+		treap.add("a", 10);
+		assertNull(treap.findPath("b"));
+		assertNull(treap.findPath(null));
+	}
+
+	// ========================= Version Tests =========================
+
+	@Test
+	public void testIteratorSeesVersionAtCreation() {
+		treap.build(new String[] {"c", "a", "b"}, new int[] {3, 1, 2});
+		Iterator<String> before = treap.iterator();
+		treap.remove("b");
+		treap.add("d", 4);
+
+		List<String> seen = new ArrayList<>();
+		before.forEachRemaining(seen::add);
+		assertEquals(List.of("a", "b", "c"), seen);  // Writes after the call do not show up
+		assertEquals(List.of("a", "c", "d"), treap.keys());
+	}
+
+	@Test
+	public void testBuildSkipsDuplicates() {
+		assertTrue(treap.build(new String[] {"x", "X", "y"}, new int[] {1, 2, 3}));
+		assertEquals(List.of("x", "y"), treap.keys());
+		assertEquals(2, treap.size());
+		assertFalse(treap.build(new String[] {"x"}, new int[0]));
+	}
+
+	@Test
+	public void testReadersDuringWrites() throws InterruptedException {
+		for (int i = 0; i < 1000; i++) treap.add("key" + i, i + 1);
+		Thread writer = new Thread(() -> {
+			for (int i = 0; i < 20_000; i++) treap.changeOrder("key" + (i % 1000), (i * 7919) % 100_000 + 1);
+		});
+		writer.start();
+		boolean allFound = true;
+		while (writer.isAlive()) {
+			for (int i = 0; i < 1000; i++) allFound &= treap.find("key" + i);  // Every version holds every key
+		}
+		writer.join();
+		assertTrue(allFound);
+		assertEquals(1000, treap.size());
+	}
+}
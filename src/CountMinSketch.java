@@ -0,0 +1,147 @@
+/**
+ * The CountMinSketch class is a fixed-size, approximate frequency counter for string keys.
+ * Each key is hashed into one counter per row and its estimated frequency is the minimum of
+ * those counters, so estimates never undercount but may overcount on collisions. Counters are
+ * periodically halved (aged) so that the sketch follows recent rather than lifetime frequencies.
+ *
+ * The row columns of a string key come from a 64-bit hash of all its characters (the same hash
+ * as {@link BloomFilter}), split into two halves that are combined differently for every row, so
+ * keys that share a String.hashCode() still fall apart in the rows. The int overloads, for callers
+ * that only hold a 32-bit hash, spread it to 64 bits first; keys with equal 32-bit hashes then do
+ * collide in every row.
+ */
+public class CountMinSketch {
+
+	// Counters for all rows, stored row after row; each row has `width` counters
+	private final int[] counters;
+
+	// Number of counters per row (a power of two so the column can be found with a mask)
+	private final int width;
+
+	// Number of rows, i.e. independent hash functions
+	private final int depth;
+
+	// Number of increments after which every counter is halved (0 disables aging)
+	private final int agingPeriod;
+
+	// Increments since the counters were last halved
+	private int incrementsSinceAging;
+
+	/**
+	 * Constructs a sketch with the given dimensions.
+	 *
+	 * @param width       The number of counters per row; rounded up to a power of two.
+	 * @param depth       The number of rows (hash functions).
+	 * @param agingPeriod The number of increments between halvings of every counter, or 0 to never age.
+	 */
+	public CountMinSketch(int width, int depth, int agingPeriod) {
+		if (width <= 0 || depth <= 0 || agingPeriod < 0) {
+			throw new IllegalArgumentException("width and depth must be positive and agingPeriod non-negative");
+		}
+		this.width = Integer.highestOneBit(width) == width ? width : Integer.highestOneBit(width) << 1;
+		this.depth = depth;
+		this.agingPeriod = agingPeriod;
+		this.counters = new int[this.width * depth];
+		this.incrementsSinceAging = 0;
+	}
+
+	/**
+	 * Records one occurrence of a key and ages the sketch when the aging period has elapsed.
+	 *
+	 * @param key The key that occurred.
+	 */
+	public void increment(String key) {
+		increment64(BloomFilter.hash(key));
+	}
+
+	/**
+	 * Records one occurrence of a key given by its hash code, for callers that already hold it.
+	 *
+	 * @param hash The hash code of the key that occurred.
+	 */
+	public void increment(int hash) {
+		increment64(spread(hash));
+	}
+
+	/**
+	 * Helper method to record one occurrence of a key given by its 64-bit hash.
+	 */
+	private void increment64(long hash) {
+		for (int row = 0; row < depth; row++) {
+			int index = row * width + column(hash, row);
+			if (counters[index] != Integer.MAX_VALUE) counters[index]++;
+		}
+		if (agingPeriod > 0 && ++incrementsSinceAging >= agingPeriod) age();
+	}
+
+	/**
+	 * Returns the estimated number of occurrences of a key.
+	 *
+	 * @param key The key to estimate.
+	 * @return    The minimum of the key's counters across all rows.
+	 */
+	public int estimate(String key) {
+		return estimate64(BloomFilter.hash(key));
+	}
+
+	/**
+	 * Returns the estimated number of occurrences of a key given by its hash code.
+	 *
+	 * @param hash The hash code of the key to estimate.
+	 * @return     The minimum of the key's counters across all rows.
+	 */
+	public int estimate(int hash) {
+		return estimate64(spread(hash));
+	}
+
+	/**
+	 * Helper method to estimate the occurrences of a key given by its 64-bit hash.
+	 */
+	private int estimate64(long hash) {
+		int min = Integer.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			min = Math.min(min, counters[row * width + column(hash, row)]);
+		}
+		return min;
+	}
+
+	/**
+	 * Halves every counter, so that old occurrences lose weight relative to new ones.
+	 */
+	public void age() {
+		for (int i = 0; i < counters.length; i++) counters[i] >>>= 1;
+		incrementsSinceAging = 0;
+	}
+
+	/**
+	 * Helper method to derive the column of a key in a given row from the two halves of its 64-bit
+	 * hash (h1 + row * h2, double hashing), remixed with a 32-bit finalizer in the style of
+	 * MurmurHash3 so that the low bits used as the column depend on all bits of both halves.
+	 *
+	 * @param hash The key's 64-bit hash.
+	 * @param row  The row index.
+	 * @return     The column of the key in that row.
+	 */
+	private int column(long hash, int row) {
+		int h = (int) hash + row * ((int) (hash >>> 32) | 1);
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+		return h & (width - 1);
+	}
+
+	/**
+	 * Helper method to spread a 32-bit hash code over 64 bits with the SplitMix64 finalizer.
+	 *
+	 * @param hash The hash code.
+	 * @return     The 64-bit hash.
+	 */
+	private static long spread(int hash) {
+		long h = hash * 0x9E3779B97F4A7C15L;
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		return h ^ (h >>> 31);
+	}
+}
@@ -0,0 +1,181 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The FrozenTreap class is an immutable snapshot of a treap's keys for trees that are built once
+ * and then only queried, created by {@link Treap#freeze()}. The keys are stored in Eytzinger (BFS)
+ * order in an array: the root at index 1 and the children of index k at 2k and 2k + 1. The first
+ * levels of every search therefore share a few cache lines, and the children of a slot sit next to
+ * each other in memory.
+ *
+ * Next to the keys, a long array holds a packed prefix of each key (its first eight characters if
+ * every key is Latin-1, its first four otherwise), ordered so that comparing two prefixes as
+ * unsigned longs agrees with comparing the keys. A search reads only this array, 8 bytes per slot,
+ * and touches a key String only when the prefixes are equal. The descent has no early exit: it
+ * always runs to the bottom and computes the next slot arithmetically from the comparison, which
+ * keeps the loop free of hard-to-predict branches apart from the comparison itself.
+ */
+public final class FrozenTreap {
+
+	// Keys in Eytzinger order, 1-based; slot 0 is unused
+	private final String[] keys;
+
+	// Packed prefix of the key in each slot
+	private final long[] prefixes;
+
+	// Position of the key in each slot within the sorted order
+	private final int[] ranks;
+
+	// Number of keys
+	private final int size;
+
+	// True if every key is Latin-1, so prefixes hold 8 characters of 8 bits; otherwise 4 of 16 bits
+	private final boolean latin1;
+
+	/**
+	 * Constructs a frozen snapshot of keys that are already in ascending order.
+	 *
+	 * @param sortedKeys The lowercase keys in ascending order.
+	 */
+	FrozenTreap(String[] sortedKeys) {
+		this.size = sortedKeys.length;
+		this.keys = new String[size + 1];
+		this.prefixes = new long[size + 1];
+		this.ranks = new int[size + 1];
+
+		boolean allLatin1 = true;
+		for (String key : sortedKeys) {
+			for (int i = 0; i < key.length() && allLatin1; i++) allLatin1 = key.charAt(i) < 256;
+		}
+		this.latin1 = allLatin1;
+
+		// An in-order walk of the implicit tree visits the slots in sorted order
+		int slot = 1;
+		int next = 0;
+		int[] stack = new int[Integer.SIZE];
+		int top = 0;
+		while (slot <= size || top > 0) {
+			while (slot <= size) {
+				stack[top++] = slot;
+				slot = 2 * slot;
+			}
+			slot = stack[--top];
+			keys[slot] = sortedKeys[next];
+			prefixes[slot] = pack(sortedKeys[next]);
+			ranks[slot] = next++;
+			slot = 2 * slot + 1;
+		}
+	}
+
+	// ==================== Helper Methods ====================
+
+	/**
+	 * Packs the first characters of a key into a long whose unsigned order agrees with the order of
+	 * the keys. Missing characters count as 0, so a prefix of a key packs to a value that is not
+	 * greater. In Latin-1 mode a query character above 255 is larger than every stored character at
+	 * that position, so it and all later bytes are packed as 0xFF.
+	 *
+	 * @param key The lowercase key.
+	 * @return    The packed prefix.
+	 */
+	private long pack(String key) {
+		long packed = 0;
+		if (latin1) {
+			for (int i = 0; i < 8; i++) {
+				int c = i < key.length() ? key.charAt(i) : 0;
+				if (c > 0xFF) return (packed << (8 * (8 - i))) | (-1L >>> (8 * i));
+				packed = (packed << 8) | c;
+			}
+		} else {
+			for (int i = 0; i < 4; i++) packed = (packed << 16) | (i < key.length() ? key.charAt(i) : 0);
+		}
+		return packed;
+	}
+
+	/**
+	 * Finds the slot of the first key that is not less than the given key.
+	 *
+	 * @param key The lowercase key.
+	 * @return    The slot, or 0 if every key is less than the given key.
+	 */
+	private int lowerBound(String key) {
+		long packed = pack(key) + Long.MIN_VALUE; // Shifted so that signed comparison orders the values as unsigned
+		int slot = 1;
+		while (slot <= size) {
+			long prefix = prefixes[slot] + Long.MIN_VALUE;
+			boolean less = prefix != packed ? prefix < packed : keys[slot].compareTo(key) < 0;
+			slot = 2 * slot + (less ? 1 : 0);
+		}
+		// The last step that went left is marked by the lowest 0 bit; drop it and everything after
+		return slot >>> (Integer.numberOfTrailingZeros(~slot) + 1);
+	}
+
+	/**
+	 * Helper method to step from a slot to the slot of the next key in sorted order.
+	 *
+	 * @param slot The current slot.
+	 * @return     The slot of the next key, or 0 after the largest key.
+	 */
+	private int successor(int slot) {
+		if (2 * slot + 1 <= size) {
+			slot = 2 * slot + 1;
+			while (2 * slot <= size) slot = 2 * slot;
+			return slot;
+		}
+		return slot >>> (Integer.numberOfTrailingZeros(~slot) + 1); // Up past every right-child step
+	}
+
+	// ==================== Query Methods ====================
+
+	/**
+	 * Finds if a key is in the snapshot.
+	 *
+	 * @param key The key to search for.
+	 * @return    True if the key is found, false otherwise.
+	 */
+	public boolean find(String key) {
+		if (key == null) return false;
+		String lowerKey = key.toLowerCase();
+		int slot = lowerBound(lowerKey);
+		return slot != 0 && keys[slot].equals(lowerKey);
+	}
+
+	/**
+	 * Returns the number of keys that are less than the given key, which is the position the key
+	 * has (or would have) in sorted order.
+	 *
+	 * @param key The key to rank.
+	 * @return    The number of smaller keys, or -1 if the key is invalid.
+	 */
+	public int rank(String key) {
+		if (key == null) return -1;
+		int slot = lowerBound(key.toLowerCase());
+		return slot == 0 ? size : ranks[slot];
+	}
+
+	/**
+	 * Returns the keys in the inclusive range [lo, hi] in ascending order.
+	 *
+	 * @param lo The smallest key to return.
+	 * @param hi The largest key to return.
+	 * @return   The keys in the range (empty if either bound is invalid or lo is greater than hi).
+	 */
+	public List<String> range(String lo, String hi) {
+		List<String> result = new ArrayList<>();
+		if (lo == null || hi == null) return result;
+		String lowerHi = hi.toLowerCase();
+		for (int slot = lowerBound(lo.toLowerCase()); slot != 0 && keys[slot].compareTo(lowerHi) <= 0; slot = successor(slot)) {
+			result.add(keys[slot]);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of keys in the snapshot.
+	 *
+	 * @return The number of keys.
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FrozenTreapTest {
+
+	private Treap treap;
+
+	@BeforeEach
+	public void setUp() {
+		treap = new Treap();
+		treap.build(new String[] {"delta", "Alpha", "echo", "charlie", "bravo", "foxtrot"}, new int[] {60, 50, 40, 30, 20, 10});
+	}
+
+	// ========================= Find() Tests =========================
+
+	@Test
+	public void testFind() {
+		FrozenTreap frozen = treap.freeze();
+		assertTrue(frozen.find("alpha"));
+		assertTrue(frozen.find("FOXTROT"));
+		assertFalse(frozen.find("golf"));
+		assertFalse(frozen.find(""));
+		assertFalse(frozen.find(null));
+		assertEquals(6, frozen.size());
+	}
+
+	@Test
+	public void testSnapshotIgnoresLaterChanges() {
+		FrozenTreap frozen = treap.freeze();
+		treap.remove("alpha");
+		treap.add("golf", 70);
+		assertTrue(frozen.find("alpha"));
+		assertFalse(frozen.find("golf"));
+	}
+
+	@Test
+	public void testEmptySnapshot() {
+		FrozenTreap frozen = new Treap().freeze();
+		assertFalse(frozen.find("a"));
+		assertEquals(0, frozen.rank("a"));
+		assertTrue(frozen.range("a", "z").isEmpty());
+	}
+
+	// ========================= Rank() Tests =========================
+
+	@Test
+	public void testRank() {
+		FrozenTreap frozen = treap.freeze();
+		assertEquals(0, frozen.rank("alpha"));
+		assertEquals(3, frozen.rank("delta"));
+		assertEquals(3, frozen.rank("cz"));  // Absent keys rank where they would be inserted
+		assertEquals(6, frozen.rank("zulu"));
+		assertEquals(-1, frozen.rank(null));
+	}
+
+	@Test
+	public void testRankBeyondPackedPrefix() {
+		treap = new Treap();
+		treap.build(new String[] {"prefix0001", "prefix0002", "prefix0003"}, new int[] {3, 2, 1});  // Equal in the first 8 characters
+		FrozenTreap frozen = treap.freeze();
+		assertEquals(1, frozen.rank("prefix0002"));
+		assertEquals(2, frozen.rank("prefix00025"));
+		assertTrue(frozen.find("prefix0003"));
+	}
+
+	@Test
+	public void testNonLatin1Keys() {
+		treap = new Treap();
+		treap.build(new String[] {"été", "日本", "abc"}, new int[] {3, 2, 1});
+		FrozenTreap frozen = treap.freeze();
+		assertTrue(frozen.find("日本"));
+		assertEquals(2, frozen.rank("日本"));
+		assertEquals(1, frozen.rank("été"));
+	}
+
+	// ========================= Range() Tests =========================
+
+	@Test
+	public void testRange() {
+		FrozenTreap frozen = treap.freeze();
+		assertEquals(List.of("bravo", "charlie", "delta"), frozen.range("b", "delta"));
+		assertEquals(List.of("alpha", "bravo", "charlie", "delta", "echo", "foxtrot"), frozen.range("", "z"));
+		assertTrue(frozen.range("x", "z").isEmpty());
+		assertTrue(frozen.range("delta", "bravo").isEmpty());
+		assertTrue(frozen.range(null, "z").isEmpty());
+	}
+}
@@ -0,0 +1,396 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The ImplicitTreap class stores a sequence of elements in a treap whose nodes are ordered by
+ * position instead of by key. Every node records the size of its subtree, so the position of a
+ * node is the size of everything to its left, and positional access, insertion and removal all
+ * take expected O(log n) instead of the O(n) shifting of an array-backed list. Heap values are
+ * random, which keeps the tree balanced in expectation, and the same left/right rotations as in
+ * the Treap restore heap order after an insertion or move a node down before it is removed.
+ *
+ * @param <E> The type of the elements in the sequence.
+ */
+public class ImplicitTreap<E> implements Iterable<E> {
+
+	/**
+	 * The Node class holds one element of the sequence together with its random heap value and
+	 * the number of nodes in its subtree.
+	 */
+	private static class Node<E> {
+		E value;        // The element stored at this position
+		int heapValue;  // Random priority used to maintain the heap property
+		int size;       // Number of nodes in the subtree rooted at this node
+		Node<E> left;   // Elements before this one (within the subtree)
+		Node<E> right;  // Elements after this one (within the subtree)
+
+		/**
+		 * Constructs a single-element subtree.
+		 *
+		 * @param value     The element to store.
+		 * @param heapValue The random priority of the node.
+		 */
+		Node(E value, int heapValue) {
+			this.value = value;
+			this.heapValue = heapValue;
+			this.size = 1;
+		}
+	}
+
+	// Root node of the treap
+	private Node<E> root;
+
+	/**
+	 * Constructs an empty sequence.
+	 */
+	public ImplicitTreap() {
+		this.root = null;
+	}
+
+	// ==================== Rotations ====================
+
+	/**
+	 * Performs a right rotation on the given node y, which becomes y's left child, and updates the
+	 * subtree sizes of the two nodes that moved.
+	 *
+	 * @param y The node to rotate.
+	 * @return  The new root of the subtree after the rotation.
+	 */
+	private Node<E> rightRotate(Node<E> y) {
+		Node<E> x = y.left;
+		y.left = x.right;
+		x.right = y;
+		update(y);
+		update(x);
+		return x;
+	}
+
+	/**
+	 * Performs a left rotation on the given node x, which becomes x's right child, and updates the
+	 * subtree sizes of the two nodes that moved.
+	 *
+	 * @param x The node to rotate.
+	 * @return  The new root of the subtree after the rotation.
+	 */
+	private Node<E> leftRotate(Node<E> x) {
+		Node<E> y = x.right;
+		x.right = y.left;
+		y.left = x;
+		update(x);
+		update(y);
+		return y;
+	}
+
+	// ==================== Helper Methods ====================
+
+	/**
+	 * Helper method to read the size of a possibly empty subtree.
+	 *
+	 * @param node The root of the subtree, may be null.
+	 * @return     The number of nodes in the subtree.
+	 */
+	private static int sizeOf(Node<?> node) {
+		return node == null ? 0 : node.size;
+	}
+
+	/**
+	 * Helper method to recompute a node's subtree size from its children.
+	 *
+	 * @param node The node to update.
+	 */
+	private static void update(Node<?> node) {
+		node.size = 1 + sizeOf(node.left) + sizeOf(node.right);
+	}
+
+	/**
+	 * Helper method to check a position against the current size.
+	 *
+	 * @param index    The position to check.
+	 * @param maxIndex The largest allowed position.
+	 */
+	private void checkIndex(int index, int maxIndex) {
+		if (index < 0 || index > maxIndex) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+	}
+
+	/**
+	 * Helper method to allocate an array of nodes, which Java cannot do directly for a generic type.
+	 *
+	 * @param length The length of the array.
+	 * @return       A new array of null nodes.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <E> Node<E>[] newNodeArray(int length) {
+		return (Node<E>[]) new Node<?>[length];
+	}
+
+	// ==================== Size Method ====================
+
+	/**
+	 * Returns the number of elements in the sequence.
+	 *
+	 * @return The number of elements.
+	 */
+	public int size() {
+		return sizeOf(root);
+	}
+
+	// ==================== Get / Set Methods ====================
+
+	/**
+	 * Returns the element at the given position.
+	 *
+	 * @param index The position, from 0 to size() - 1.
+	 * @return      The element at that position.
+	 */
+	public E get(int index) {
+		checkIndex(index, size() - 1);
+		return nodeAt(index).value;
+	}
+
+	/**
+	 * Replaces the element at the given position.
+	 *
+	 * @param index The position, from 0 to size() - 1.
+	 * @param value The new element.
+	 * @return      The element previously at that position.
+	 */
+	public E set(int index, E value) {
+		checkIndex(index, size() - 1);
+		Node<E> node = nodeAt(index);
+		E previous = node.value;
+		node.value = value;
+		return previous;
+	}
+
+	/**
+	 * Helper method to descend to the node at a valid position using the subtree sizes.
+	 *
+	 * @param index The position of the node.
+	 * @return      The node at that position.
+	 */
+	private Node<E> nodeAt(int index) {
+		Node<E> node = root;
+		while (true) {
+			int leftSize = sizeOf(node.left);
+			if (index == leftSize) return node;
+			if (index < leftSize) {
+				node = node.left;
+			} else {
+				index -= leftSize + 1;
+				node = node.right;
+			}
+		}
+	}
+
+	// ==================== InsertAt Method ====================
+
+	/**
+	 * Appends an element to the end of the sequence.
+	 *
+	 * @param value The element to append.
+	 */
+	public void add(E value) {
+		insertAt(size(), value);
+	}
+
+	/**
+	 * Inserts an element at the given position, shifting later elements one position back.
+	 *
+	 * @param index The position of the new element, from 0 to size().
+	 * @param value The element to insert.
+	 */
+	public void insertAt(int index, E value) {
+		checkIndex(index, size());
+		root = insertNode(root, index, value, ThreadLocalRandom.current().nextInt());
+	}
+
+	/**
+	 * Helper method to insert a new node at a position within a subtree and rotate it up while its
+	 * heap value is larger than its parent's.
+	 *
+	 * @param node      The root of the subtree.
+	 * @param index     The position within the subtree.
+	 * @param value     The element to insert.
+	 * @param heapValue The random heap value of the new node.
+	 * @return          The root of the subtree after insertion.
+	 */
+	private Node<E> insertNode(Node<E> node, int index, E value, int heapValue) {
+		if (node == null) return new Node<>(value, heapValue);
+
+		int leftSize = sizeOf(node.left);
+		if (index <= leftSize) {
+			node.left = insertNode(node.left, index, value, heapValue);
+			update(node);
+			if (node.left.heapValue > node.heapValue) node = rightRotate(node);
+		} else {
+			node.right = insertNode(node.right, index - leftSize - 1, value, heapValue);
+			update(node);
+			if (node.right.heapValue > node.heapValue) node = leftRotate(node);
+		}
+		return node;
+	}
+
+	// ==================== RemoveAt Method ====================
+
+	/**
+	 * Removes the element at the given position, shifting later elements one position forward.
+	 *
+	 * @param index The position, from 0 to size() - 1.
+	 * @return      The removed element.
+	 */
+	public E removeAt(int index) {
+		checkIndex(index, size() - 1);
+		Node<E>[] removed = newNodeArray(1);
+		root = deleteNode(root, index, removed);
+		return removed[0].value;
+	}
+
+	/**
+	 * Helper method to remove the node at a position within a subtree. The node is rotated down,
+	 * always below its child with the larger heap value, until it has at most one child.
+	 *
+	 * @param node    The root of the subtree.
+	 * @param index   The position within the subtree.
+	 * @param removed One-element array that receives the removed node.
+	 * @return        The root of the subtree after deletion.
+	 */
+	private Node<E> deleteNode(Node<E> node, int index, Node<E>[] removed) {
+		int leftSize = sizeOf(node.left);
+		if (index < leftSize) {
+			node.left = deleteNode(node.left, index, removed);
+		} else if (index > leftSize) {
+			node.right = deleteNode(node.right, index - leftSize - 1, removed);
+		} else {
+			if (node.left == null || node.right == null) {
+				removed[0] = node;
+				return node.left == null ? node.right : node.left;
+			}
+			if (node.left.heapValue > node.right.heapValue) {
+				node = rightRotate(node);
+				node.right = deleteNode(node.right, sizeOf(node.right.left), removed);
+			} else {
+				node = leftRotate(node);
+				node.left = deleteNode(node.left, sizeOf(node.left.left), removed);
+			}
+		}
+		update(node);
+		return node;
+	}
+
+	// ==================== SplitAt / Concat Methods ====================
+
+	/**
+	 * Splits the sequence at a position. This sequence keeps the elements before the position and
+	 * the elements from the position on are moved into the returned sequence.
+	 *
+	 * @param index The position to split at, from 0 to size().
+	 * @return      A new sequence holding the elements from the given position on.
+	 */
+	public ImplicitTreap<E> splitAt(int index) {
+		checkIndex(index, size());
+		Node<E>[] parts = newNodeArray(2);
+		split(root, index, parts);
+
+		ImplicitTreap<E> tail = new ImplicitTreap<>();
+		root = parts[0];
+		tail.root = parts[1];
+		return tail;
+	}
+
+	/**
+	 * Appends all elements of another sequence to this one. The other sequence is left empty.
+	 *
+	 * @param other The sequence to append; must not be this sequence.
+	 */
+	public void concat(ImplicitTreap<E> other) {
+		if (other == null || other == this) throw new IllegalArgumentException("cannot concatenate a sequence with null or itself");
+		root = join(root, other.root);
+		other.root = null;
+	}
+
+	/**
+	 * Helper method to split a subtree into its first {@code index} nodes and the rest.
+	 *
+	 * @param node  The root of the subtree.
+	 * @param index The number of nodes that go to the left part.
+	 * @param parts Two-element array that receives the left part at index 0 and the right part at index 1.
+	 */
+	private void split(Node<E> node, int index, Node<E>[] parts) {
+		if (node == null) {
+			parts[0] = null;
+			parts[1] = null;
+			return;
+		}
+
+		int leftSize = sizeOf(node.left);
+		if (index <= leftSize) {
+			split(node.left, index, parts);
+			node.left = parts[1];
+			update(node);
+			parts[1] = node;
+		} else {
+			split(node.right, index - leftSize - 1, parts);
+			node.right = parts[0];
+			update(node);
+			parts[0] = node;
+		}
+	}
+
+	/**
+	 * Helper method to join two subtrees, placing every node of the left one before every node of
+	 * the right one and keeping the node with the larger heap value on top.
+	 *
+	 * @param left  The subtree holding the earlier elements.
+	 * @param right The subtree holding the later elements.
+	 * @return      The root of the joined subtree.
+	 */
+	private Node<E> join(Node<E> left, Node<E> right) {
+		if (left == null) return right;
+		if (right == null) return left;
+
+		if (left.heapValue > right.heapValue) {
+			left.right = join(left.right, right);
+			update(left);
+			return left;
+		}
+		right.left = join(left, right.left);
+		update(right);
+		return right;
+	}
+
+	// ==================== Iteration ====================
+
+	/**
+	 * Returns an iterator over the elements in sequence order. The sequence must not be modified
+	 * while the iterator is in use.
+	 *
+	 * @return An iterator over the elements.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private final List<Node<E>> stack = new ArrayList<>();
+			private Node<E> next = root;
+
+			@Override
+			public boolean hasNext() {
+				return next != null || !stack.isEmpty();
+			}
+
+			@Override
+			public E next() {
+				while (next != null) {
+					stack.add(next);
+					next = next.left;
+				}
+				if (stack.isEmpty()) throw new NoSuchElementException();
+				Node<E> node = stack.remove(stack.size() - 1);
+				next = node.right;
+				return node.value;
+			}
+		};
+	}
+}
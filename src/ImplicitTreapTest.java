@@ -0,0 +1,114 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ImplicitTreapTest {
+
+	private ImplicitTreap<String> sequence;
+
+	@BeforeEach
+	public void setUp() {
+		sequence = new ImplicitTreap<>();
+	}
+
+	/**
+	 * Collects the elements of a sequence in order.
+	 */
+	private static List<String> toList(ImplicitTreap<String> treap) {
+		List<String> list = new ArrayList<>();
+		for (String value : treap) list.add(value);
+		return list;
+	}
+
+	// ========================= InsertAt() Tests =========================
+
+	@Test
+	public void testInsertAtShiftsLaterElements() {
+		sequence.add("a");
+		sequence.add("c");
+		sequence.insertAt(1, "b");  // Middle
+		sequence.insertAt(0, "start");  // Front
+		sequence.insertAt(4, "end");  // Back
+		assertEquals(List.of("start", "a", "b", "c", "end"), toList(sequence));
+		assertEquals(5, sequence.size());
+	}
+
+	@Test
+	public void testInsertAtInvalidIndex() {
+		sequence.add("a");
+		assertThrows(IndexOutOfBoundsException.class, () -> sequence.insertAt(2, "x"));
+		assertThrows(IndexOutOfBoundsException.class, () -> sequence.insertAt(-1, "x"));
+	}
+
+	// ========================= Get() / Set() Tests =========================
+
+	@Test
+	public void testGetAndSet() {
+		for (int i = 0; i < 100; i++) sequence.add("v" + i);
+		assertEquals("v42", sequence.get(42));
+		assertEquals("v42", sequence.set(42, "changed"));  // Returns the previous element
+		assertEquals("changed", sequence.get(42));
+		assertThrows(IndexOutOfBoundsException.class, () -> sequence.get(100));
+	}
+
+	// ========================= RemoveAt() Tests =========================
+
+	@Test
+	public void testRemoveAt() {
+		for (String value : new String[] {"a", "b", "c", "d"}) sequence.add(value);
+		assertEquals("b", sequence.removeAt(1));
+		assertEquals("d", sequence.removeAt(2));  // Last element
+		assertEquals(List.of("a", "c"), toList(sequence));
+		assertThrows(IndexOutOfBoundsException.class, () -> sequence.removeAt(2));
+	}
+
+	@Test
+	public void testRemoveAtMatchesArrayList() {
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			int index = (i * 7) % (expected.size() + 1);
+			sequence.insertAt(index, "v" + i);
+			expected.add(index, "v" + i);
+		}
+		for (int i = 0; i < 250; i++) {
+			int index = (i * 13) % expected.size();
+			assertEquals(expected.remove(index), sequence.removeAt(index));
+		}
+		assertEquals(expected, toList(sequence));
+	}
+
+	// ========================= SplitAt() / Concat() Tests =========================
+
+	@Test
+	public void testSplitAtAndConcat() {
+		for (int i = 0; i < 10; i++) sequence.add("v" + i);
+		ImplicitTreap<String> tail = sequence.splitAt(4);
+		assertEquals(4, sequence.size());
+		assertEquals(6, tail.size());
+		assertEquals("v4", tail.get(0));  // Tail starts at the split position
+
+		tail.concat(sequence);  // Move the head behind the tail
+		assertEquals(0, sequence.size());
+		assertEquals(List.of("v4", "v5", "v6", "v7", "v8", "v9", "v0", "v1", "v2", "v3"), toList(tail));
+	}
+
+	@Test
+	public void testSplitAtEnds() {
+		sequence.add("a");
+		sequence.add("b");
+		assertEquals(0, sequence.splitAt(2).size());  // Split at the end leaves an empty tail
+		ImplicitTreap<String> tail = sequence.splitAt(0);  // Split at the front moves everything
+		assertEquals(0, sequence.size());
+		assertEquals(List.of("a", "b"), toList(tail));
+	}
+
+	@Test
+	public void testConcatWithItself() {
+		sequence.add("a");
+		assertThrows(IllegalArgumentException.class, () -> sequence.concat(sequence));
+	}
+}
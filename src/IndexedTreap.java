@@ -0,0 +1,254 @@
+/**
+ * The IndexedTreap class is a LinkedTreap with a hash index from every key to its node, kept
+ * alongside the tree. find() answers from the index alone in expected O(1), and findPath(),
+ * changeOrder() and remove() use it to locate their node without a descent; from there the parent
+ * links take over, so the remaining cost is the walk or the rotations at the node. Ordered
+ * operations (cursors, removeRange(), topK() and so on) are served by the tree as before.
+ *
+ * The index is open-addressed with linear probing and stores only an int hash and a node
+ * reference per slot, in two parallel arrays; the key itself is read from the node. Like the
+ * ArenaTreap, duplicate keys are rejected rather than duplicate heap values, which the index makes
+ * an O(1) check.
+ */
+public class IndexedTreap extends LinkedTreap {
+
+	/**
+	 * The NodeIndex class is an open-addressed hash table from lowercase keys to nodes. Removal
+	 * shifts later entries of the probe run back, so the table never holds tombstones.
+	 */
+	private static final class NodeIndex {
+
+		// Table size at creation and after clear()
+		private static final int INITIAL_CAPACITY = 16;
+
+		// Spread hash of the key in each slot
+		private int[] hashes;
+
+		// Node in each slot; null slots are free
+		private TreapNode[] nodes;
+
+		// Number of indexed nodes
+		private int size;
+
+		NodeIndex() {
+			clear();
+		}
+
+		/**
+		 * Returns the node with a key.
+		 *
+		 * @param key The lowercase key.
+		 * @return    The node, or null if the key is not indexed.
+		 */
+		TreapNode get(String key) {
+			int hash = spread(key);
+			int mask = nodes.length - 1;
+			for (int i = hash & mask; nodes[i] != null; i = (i + 1) & mask) {
+				if (hashes[i] == hash && nodes[i].key.equals(key)) return nodes[i];
+			}
+			return null;
+		}
+
+		/**
+		 * Adds a node whose key is not indexed yet, growing the table to keep it at most half full.
+		 *
+		 * @param node The node to index.
+		 */
+		void add(TreapNode node) {
+			if (2 * (size + 1) > nodes.length) resize(nodes.length * 2);
+			insert(spread(node.key), node);
+			size++;
+		}
+
+		/**
+		 * Removes a node from the index.
+		 *
+		 * @param node The node to remove.
+		 */
+		void remove(TreapNode node) {
+			int mask = nodes.length - 1;
+			int i = spread(node.key) & mask;
+			while (nodes[i] != node) {
+				if (nodes[i] == null) return;
+				i = (i + 1) & mask;
+			}
+
+			// Shift back every later entry of the run that may move to the freed slot, i.e. whose
+			// home slot is not between the freed slot (exclusive) and its own slot (inclusive)
+			for (int j = (i + 1) & mask; nodes[j] != null; j = (j + 1) & mask) {
+				int home = hashes[j] & mask;
+				if (((j - home) & mask) >= ((j - i) & mask)) {
+					nodes[i] = nodes[j];
+					hashes[i] = hashes[j];
+					i = j;
+				}
+			}
+			nodes[i] = null;
+			size--;
+		}
+
+		/**
+		 * Removes every node and shrinks the table back to its initial size.
+		 */
+		void clear() {
+			hashes = new int[INITIAL_CAPACITY];
+			nodes = new TreapNode[INITIAL_CAPACITY];
+			size = 0;
+		}
+
+		/**
+		 * Returns the memory used by the two slot arrays, counting 4 bytes per reference
+		 * (compressed references, the default for heaps below 32 GB).
+		 *
+		 * @return The size of the table in bytes.
+		 */
+		long sizeInBytes() {
+			return (long) nodes.length * (Integer.BYTES + 4);
+		}
+
+		/**
+		 * Helper method to place a node in the first free slot of its probe run.
+		 */
+		private void insert(int hash, TreapNode node) {
+			int mask = nodes.length - 1;
+			int i = hash & mask;
+			while (nodes[i] != null) i = (i + 1) & mask;
+			hashes[i] = hash;
+			nodes[i] = node;
+		}
+
+		/**
+		 * Helper method to move every node into a table of the given size.
+		 */
+		private void resize(int capacity) {
+			int[] oldHashes = hashes;
+			TreapNode[] oldNodes = nodes;
+			hashes = new int[capacity];
+			nodes = new TreapNode[capacity];
+			for (int i = 0; i < oldNodes.length; i++) {
+				if (oldNodes[i] != null) insert(oldHashes[i], oldNodes[i]);
+			}
+		}
+
+		/**
+		 * Helper method to spread the bits of a key's hash code; the low bits select the home slot.
+		 */
+		private static int spread(String key) {
+			int h = key.hashCode() * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+	}
+
+	// Index from every key in the tree to its node
+	private final NodeIndex index = new NodeIndex();
+
+	// ==================== Index Maintenance ====================
+
+	/**
+	 * Creates the node for a newly inserted key and indexes it.
+	 *
+	 * @param key       The lowercase key of the new node.
+	 * @param heapValue The heap value of the new node.
+	 * @return          The new node.
+	 */
+	@Override
+	protected TreapNode createNode(String key, int heapValue) {
+		TreapNode node = super.createNode(key, heapValue);
+		index.add(node);
+		return node;
+	}
+
+	/**
+	 * Drops a node that left the tree through a bulk removal from the index.
+	 *
+	 * @param node The removed node.
+	 */
+	@Override
+	protected void releaseNode(TreapNode node) {
+		index.remove(node);
+	}
+
+	/**
+	 * Finds the node with the given key through the index instead of descending from the root.
+	 *
+	 * @param key The lowercase key to search for.
+	 * @return    The node with the given key, or null if the key is not found.
+	 */
+	@Override
+	protected LinkedTreapNode locate(String key) {
+		return (LinkedTreapNode) index.get(key);
+	}
+
+	/**
+	 * Returns the memory used by the hash index, in addition to the tree.
+	 *
+	 * @return The size of the index in bytes.
+	 */
+	public long indexSizeInBytes() {
+		return index.sizeInBytes();
+	}
+
+	// ==================== Add and Build ====================
+
+	/**
+	 * Adds a new key with the given heap value. Unlike Treap.add(), a key that is already present
+	 * is rejected, while heap values may repeat.
+	 *
+	 * @param key       The key to be added.
+	 * @param heapValue The associated heap value; must be positive.
+	 * @return          True if the key was added, false if it is invalid or already present.
+	 */
+	@Override
+	public boolean add(String key, int heapValue) {
+		if (!isValidKey(key) || heapValue <= 0) return false;
+		String lowerKey = key.toLowerCase();
+		if (index.get(lowerKey) != null) return false;
+		root = insertNode(root, lowerKey, heapValue);
+		count++;
+		checkBloomFilter();
+		return true;
+	}
+
+	/**
+	 * Builds the treap from arrays of keys and heap values. Later duplicates of a key are skipped.
+	 *
+	 * @param keys       Array of keys to be inserted.
+	 * @param heapValues Array of heap values corresponding to the keys.
+	 * @return           True if the treap was built successfully, false otherwise.
+	 */
+	@Override
+	public boolean build(String[] keys, int[] heapValues) {
+		if (keys == null || heapValues == null || keys.length != heapValues.length) return false;
+		index.clear();
+		return super.build(keys, heapValues);
+	}
+
+	// ==================== Find and Remove ====================
+
+	/**
+	 * Finds if a key exists by looking it up in the index, without touching the tree.
+	 *
+	 * @param key The key to search for.
+	 * @return    True if the key is found, false otherwise.
+	 */
+	@Override
+	public boolean find(String key) {
+		return isValidKey(key) && index.get(key.toLowerCase()) != null;
+	}
+
+	/**
+	 * Removes a key by locating its node through the index, rotating it down to a leaf and
+	 * detaching it, then drops it from the index.
+	 *
+	 * @param key The key of the node to be removed.
+	 * @return    True if the node was removed, false otherwise.
+	 */
+	@Override
+	public boolean remove(String key) {
+		if (!isValidKey(key)) return false;
+		LinkedTreapNode node = locate(key.toLowerCase());
+		if (node == null || !super.remove(key)) return false;
+		index.remove(node);
+		return true;
+	}
+}
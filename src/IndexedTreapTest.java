@@ -0,0 +1,102 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class IndexedTreapTest {
+
+	private IndexedTreap treap;
+
+	@BeforeEach
+	public void setUp() {
+		treap = new IndexedTreap();
+	}
+
+	// ========================= Add() Tests =========================
+
+	@Test
+	public void testAddRejectsDuplicateKeys() {
+		assertTrue(treap.add("apple", 10));
+		assertFalse(treap.add("APPLE", 20));  // Same key in another case
+		assertTrue(treap.add("banana", 10));  // Heap values may repeat
+		assertFalse(treap.add(null, 5));
+		assertFalse(treap.add("cherry", 0));
+		assertEquals(2, treap.size());
+	}
+
+	@Test
+	public void testBuildSkipsDuplicatesAndResetsIndex() {
+		treap.add("old", 5);
+		assertTrue(treap.build(new String[] {"a", "b", "A"}, new int[] {3, 2, 1}));
+		assertEquals(2, treap.size());
+		assertFalse(treap.find("old"));
+		assertTrue(treap.find("a"));
+	}
+
+	// ========================= Find() / FindPath() Tests =========================
+
+	@Test
+	public void testFindThroughIndex() {
+		for (int i = 0; i < 1000; i++) treap.add("key" + i, i + 1);
+		for (int i = 0; i < 1000; i++) assertTrue(treap.find("KEY" + i));
+		assertFalse(treap.find("key1000"));
+		assertFalse(treap.find(null));
+		assertTrue(treap.indexSizeInBytes() >= 1000 * 2 * 8);  // At most half full, 8 bytes per slot
+	}
+
+	@Test
+	public void testFindPathFromIndexedNode() {
+		treap.build(new String[] {"m", "c", "x", "a"}, new int[] {40, 30, 20, 10});
+		assertEquals(List.of("a", "c", "m"), treap.findPath("A"));
+		assertNull(treap.findPath("z"));
+	}
+
+	// ========================= ChangeOrder() / Remove() Tests =========================
+
+	@Test
+	public void testChangeOrderAndRemove() {
+		treap.build(new String[] {"a", "b", "c", "d"}, new int[] {40, 30, 20, 10});
+		assertTrue(treap.changeOrder("d", 50));
+		assertEquals("d", treap.peekMax());
+		assertTrue(treap.remove("B"));
+		assertFalse(treap.remove("b"));
+		assertFalse(treap.find("b"));
+		assertTrue(treap.add("b", 5));  // The key can be added again
+		assertEquals(List.of("a", "b", "c", "d"), treap.keys());
+	}
+
+	@Test
+	public void testBulkRemovalsUpdateIndex() {
+		for (int i = 0; i < 100; i++) treap.add(String.format("key%03d", i), i + 1);
+		assertEquals(10, treap.removeRange("key010", "key019"));
+		assertEquals(2, treap.removeAll(new String[] {"key050", "key051"}));
+		assertEquals("key099", treap.pollMax());
+		for (int i = 0; i < 100; i++) {
+			boolean removed = (i >= 10 && i <= 19) || i == 50 || i == 51 || i == 99;
+			assertEquals(!removed, treap.find(String.format("key%03d", i)));
+		}
+		assertEquals(87, treap.size());
+	}
+
+	@Test
+	public void testIndexAgreesWithTreeUnderChurn() {
+		Random random = new Random(7);
+		boolean[] present = new boolean[500];
+		for (int step = 0; step < 20000; step++) {
+			int k = random.nextInt(present.length);
+			if (present[k]) assertTrue(treap.remove("key" + k));
+			else assertTrue(treap.add("key" + k, 1 + random.nextInt(1000)));
+			present[k] = !present[k];
+		}
+		int live = 0;
+		for (int k = 0; k < present.length; k++) {
+			assertEquals(present[k], treap.find("key" + k));
+			assertEquals(present[k], treap.findPath("key" + k) != null);
+			if (present[k]) live++;
+		}
+		assertEquals(live, treap.keys().size());
+	}
+}
@@ -0,0 +1,153 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The KeyArena class stores many short byte strings back to back in a list of large byte chunks.
+ * A stored key is identified by a handle (the chunk index in the upper 32 bits and the position
+ * inside the chunk in the lower 32 bits) plus its length, so callers keep two primitives per key
+ * instead of a String object and its backing array. The arena only grows; space of keys that are
+ * no longer needed is reclaimed by copying the live keys into a fresh arena.
+ */
+public class KeyArena {
+
+	// Default size of each chunk in bytes
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+	// Chunks holding the key bytes; only chunk `chunkCount - 1` is still being filled
+	private byte[][] chunks;
+
+	// Number of chunks allocated so far
+	private int chunkCount;
+
+	// Size of a regular chunk; longer keys get a chunk of their own
+	private final int chunkSize;
+
+	// Next free position in the last chunk
+	private int position;
+
+	// Total number of key bytes stored
+	private long usedBytes;
+
+	/**
+	 * Constructs an empty arena with the default chunk size.
+	 */
+	public KeyArena() {
+		this(DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Constructs an empty arena with the given chunk size.
+	 *
+	 * @param chunkSize The number of bytes in each chunk; must be positive.
+	 */
+	public KeyArena(int chunkSize) {
+		if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be positive");
+		this.chunks = new byte[16][];
+		this.chunkCount = 0;
+		this.chunkSize = chunkSize;
+		this.position = 0;
+		this.usedBytes = 0;
+	}
+
+	/**
+	 * Encodes a key the way the arena stores it: UTF-8 bytes, which compare in code point order
+	 * when read as unsigned values.
+	 *
+	 * @param key The key to encode.
+	 * @return    The encoded bytes.
+	 */
+	public static byte[] encode(String key) {
+		return key.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Appends a key to the arena. A key never spans two chunks.
+	 *
+	 * @param bytes The encoded key.
+	 * @return      The handle of the stored key.
+	 */
+	public long append(byte[] bytes) {
+		long handle = reserve(bytes.length);
+		System.arraycopy(bytes, 0, chunks[chunkCount - 1], (int) handle, bytes.length);
+		return handle;
+	}
+
+	/**
+	 * Copies a key from another arena into this one.
+	 *
+	 * @param source The arena that holds the key.
+	 * @param handle The handle of the key in the source arena.
+	 * @param length The length of the key in bytes.
+	 * @return       The handle of the copy in this arena.
+	 */
+	public long copyFrom(KeyArena source, long handle, int length) {
+		long copy = reserve(length);
+		System.arraycopy(source.chunks[(int) (handle >>> 32)], (int) handle, chunks[chunkCount - 1], (int) copy, length);
+		return copy;
+	}
+
+	/**
+	 * Helper method to make room for a key at the end of the last chunk, allocating a new chunk
+	 * when there is no chunk yet or the key does not fit.
+	 *
+	 * @param length The length of the key in bytes.
+	 * @return       The handle at which the key is to be written.
+	 */
+	private long reserve(int length) {
+		if (chunkCount == 0 || length > chunkSize - position) {
+			if (chunkCount == chunks.length) chunks = Arrays.copyOf(chunks, chunkCount * 2);
+			chunks[chunkCount++] = new byte[Math.max(chunkSize, length)];
+			position = 0;
+		}
+		long handle = ((long) (chunkCount - 1) << 32) | position;
+		position += length;
+		usedBytes += length;
+		return handle;
+	}
+
+	/**
+	 * Compares an encoded key with a stored key byte by byte, treating bytes as unsigned, so that
+	 * the order matches the code point order of the original strings.
+	 *
+	 * @param key    The encoded key.
+	 * @param handle The handle of the stored key.
+	 * @param length The length of the stored key in bytes.
+	 * @return       A negative number, zero, or a positive number as the key is less than, equal
+	 *               to, or greater than the stored key.
+	 */
+	public int compare(byte[] key, long handle, int length) {
+		int offset = (int) handle;
+		return Arrays.compareUnsigned(key, 0, key.length, chunks[(int) (handle >>> 32)], offset, offset + length);
+	}
+
+	/**
+	 * Decodes a stored key back into a String.
+	 *
+	 * @param handle The handle of the stored key.
+	 * @param length The length of the stored key in bytes.
+	 * @return       The key.
+	 */
+	public String decode(long handle, int length) {
+		return new String(chunks[(int) (handle >>> 32)], (int) handle, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the total number of key bytes stored, including keys that are no longer used.
+	 *
+	 * @return The number of stored bytes.
+	 */
+	public long usedBytes() {
+		return usedBytes;
+	}
+
+	/**
+	 * Returns the number of bytes allocated for chunks.
+	 *
+	 * @return The allocated size of the arena.
+	 */
+	public long allocatedBytes() {
+		long total = 0;
+		for (int i = 0; i < chunkCount; i++) total += chunks[i].length;
+		return total;
+	}
+}
@@ -0,0 +1,375 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The LinkedTreap class extends the Treap with parent pointers in every node. Rotations keep the
+ * parent links up to date, so a node that has been located once can be moved up or down directly
+ * instead of being found again from the root. This turns changeOrder into an in-place sift,
+ * remove into a rotate-down from the located node, findPath into a walk along parent links, and
+ * lets in-order cursors step to the successor in amortized O(1).
+ */
+public class LinkedTreap extends Treap implements Iterable<String> {
+
+	/**
+	 * The LinkedTreapNode class extends TreapNode with a reference to its parent. The parent link of
+	 * the root is not maintained and is never followed; upward walks stop at the root.
+	 */
+	protected static class LinkedTreapNode extends TreapNode {
+		LinkedTreapNode parent; // Reference to the parent of this node (undefined for the root)
+
+		/**
+		 * Constructs a new LinkedTreapNode with the specified key and heap value.
+		 *
+		 * @param key       The key to be stored in this node.
+		 * @param heapValue The priority value for maintaining the heap property.
+		 */
+		public LinkedTreapNode(String key, int heapValue) {
+			super(key, heapValue);
+			this.parent = null;
+		}
+	}
+
+	// ==================== Rotations ====================
+
+	/**
+	 * Performs a right rotation and updates the parent links of the three nodes whose parent changes.
+	 *
+	 * @param y The node to rotate.
+	 * @return  The new root of the subtree after the rotation.
+	 */
+	@Override
+	protected TreapNode rightRotate(TreapNode y) {
+		LinkedTreapNode oldTop = (LinkedTreapNode) y;
+		LinkedTreapNode newTop = (LinkedTreapNode) super.rightRotate(y);
+		newTop.parent = oldTop.parent;
+		oldTop.parent = newTop;
+		if (oldTop.left != null) ((LinkedTreapNode) oldTop.left).parent = oldTop;
+		return newTop;
+	}
+
+	/**
+	 * Performs a left rotation and updates the parent links of the three nodes whose parent changes.
+	 *
+	 * @param x The node to rotate.
+	 * @return  The new root of the subtree after the rotation.
+	 */
+	@Override
+	protected TreapNode leftRotate(TreapNode x) {
+		LinkedTreapNode oldTop = (LinkedTreapNode) x;
+		LinkedTreapNode newTop = (LinkedTreapNode) super.leftRotate(x);
+		newTop.parent = oldTop.parent;
+		oldTop.parent = newTop;
+		if (oldTop.right != null) ((LinkedTreapNode) oldTop.right).parent = oldTop;
+		return newTop;
+	}
+
+	// ==================== Helper Methods ====================
+
+	/**
+	 * Creates a LinkedTreapNode instead of a TreapNode for each new key.
+	 *
+	 * @param key       The lowercase key of the new node.
+	 * @param heapValue The heap value of the new node.
+	 * @return          The new node.
+	 */
+	@Override
+	protected TreapNode createNode(String key, int heapValue) {
+		return new LinkedTreapNode(key, heapValue);
+	}
+
+	/**
+	 * Points the parent links of a node's children back at the node.
+	 *
+	 * @param node The node whose children are relinked, may be null.
+	 * @return     The same node.
+	 */
+	protected TreapNode linkChildren(TreapNode node) {
+		if (node != null) {
+			if (node.left != null) ((LinkedTreapNode) node.left).parent = (LinkedTreapNode) node;
+			if (node.right != null) ((LinkedTreapNode) node.right).parent = (LinkedTreapNode) node;
+		}
+		return node;
+	}
+
+	/**
+	 * Inserts like the Treap does and then relinks the children of the returned subtree root, so
+	 * that every level of the recursion fixes the parent links of its own children.
+	 */
+	@Override
+	protected TreapNode insertNode(TreapNode node, String key, int heapValue) {
+		return linkChildren(super.insertNode(node, key, heapValue));
+	}
+
+	/**
+	 * Deletes like the Treap does and then relinks the children of the returned subtree root.
+	 */
+	@Override
+	protected TreapNode deleteNode(TreapNode node, String key) {
+		return linkChildren(super.deleteNode(node, key));
+	}
+
+	/**
+	 * Rebuilds heap order like the Treap does and then relinks every node's children, which keeps
+	 * the batch update linear.
+	 */
+	@Override
+	protected TreapNode rebuildHeapOrder(TreapNode[] nodes) {
+		TreapNode rebuilt = super.rebuildHeapOrder(nodes);
+		for (TreapNode node : nodes) linkChildren(node);
+		return rebuilt;
+	}
+
+	/**
+	 * Splits like the Treap does and then relinks the children of both part roots; the part root
+	 * whose child changed at this level is always one of them.
+	 */
+	@Override
+	protected void split(TreapNode node, String key, boolean inclusive, TreapNode[] parts) {
+		super.split(node, key, inclusive, parts);
+		linkChildren(parts[0]);
+		linkChildren(parts[1]);
+	}
+
+	/**
+	 * Joins like the Treap does and then relinks the children of the returned root.
+	 */
+	@Override
+	protected TreapNode join(TreapNode left, TreapNode right) {
+		return linkChildren(super.join(left, right));
+	}
+
+	/**
+	 * Deletes a batch like the Treap does and then relinks the children of the returned root.
+	 */
+	@Override
+	protected TreapNode deleteAll(TreapNode node, String[] keys, int from, int to, int[] removed) {
+		return linkChildren(super.deleteAll(node, keys, from, to, removed));
+	}
+
+	/**
+	 * Finds the node with the given key by descending from the root.
+	 *
+	 * @param key The lowercase key to search for.
+	 * @return    The node with the given key, or null if the key is not found.
+	 */
+	@Override
+	protected LinkedTreapNode locate(String key) {
+		return (LinkedTreapNode) super.locate(key);
+	}
+
+	/**
+	 * Rotates a node above its parent and hooks the rotated subtree back into the grandparent
+	 * (or makes it the root).
+	 *
+	 * @param node The node to move up one level; must not be the root.
+	 */
+	protected void rotateUp(LinkedTreapNode node) {
+		LinkedTreapNode parent = node.parent;
+		boolean parentWasRoot = parent == root;
+		LinkedTreapNode grandparent = parentWasRoot ? null : parent.parent;
+
+		TreapNode subtree = node == parent.left ? rightRotate(parent) : leftRotate(parent);
+
+		if (parentWasRoot) root = subtree;
+		else if (grandparent.left == parent) grandparent.left = subtree;
+		else grandparent.right = subtree;
+	}
+
+	/**
+	 * Moves a node up while its heap value is larger than its parent's.
+	 *
+	 * @param node The node to sift up.
+	 */
+	protected void siftUp(LinkedTreapNode node) {
+		while (node != root && node.heapValue > node.parent.heapValue) rotateUp(node);
+	}
+
+	/**
+	 * Moves a node down while one of its children has a larger heap value, always rotating the
+	 * larger child above it.
+	 *
+	 * @param node The node to sift down.
+	 */
+	protected void siftDown(LinkedTreapNode node) {
+		while (true) {
+			LinkedTreapNode larger = largerChild(node);
+			if (larger == null || larger.heapValue <= node.heapValue) return;
+			rotateUp(larger);
+		}
+	}
+
+	/**
+	 * Helper method to pick the child with the larger heap value.
+	 *
+	 * @param node The parent node.
+	 * @return     The child with the larger heap value, or null if the node is a leaf.
+	 */
+	private LinkedTreapNode largerChild(LinkedTreapNode node) {
+		if (node.left == null) return (LinkedTreapNode) node.right;
+		if (node.right == null) return (LinkedTreapNode) node.left;
+		return (LinkedTreapNode) (node.left.heapValue > node.right.heapValue ? node.left : node.right);
+	}
+
+	// ==================== FindPath Method ====================
+
+	/**
+	 * Finds the path from the node with the given key to the root by locating the node and then
+	 * following parent links, writing the keys into a caller-supplied buffer.
+	 *
+	 * @param key  The key whose path to the root is to be found.
+	 * @param path The buffer that receives the keys from the node to the root; cleared first.
+	 * @return     True if the key was found, false otherwise.
+	 */
+	@Override
+	public boolean findPath(String key, PathBuffer path) {
+		path.clear();
+		if (!isValidKey(key)) return false;
+
+		LinkedTreapNode node = locate(key.toLowerCase());
+		if (node == null) return false;
+
+		path.append(node.key);
+		while (node != root) {
+			node = node.parent;
+			path.append(node.key);
+		}
+		return true;
+	}
+
+	// ==================== ChangeOrder Method ====================
+
+	/**
+	 * Changes the heap value of a node in place and sifts it up or down to restore the heap
+	 * property, without removing and re-inserting it.
+	 *
+	 * @param key          The key whose heap value is to be changed.
+	 * @param newHeapValue The new heap value.
+	 * @return             True if the order was successfully changed, false otherwise.
+	 */
+	@Override
+	public boolean changeOrder(String key, int newHeapValue) {
+		if (!isValidKey(key) || newHeapValue <= 0) return false;
+
+		LinkedTreapNode node = locate(key.toLowerCase());
+		if (node == null) return false;
+
+		int oldHeapValue = node.heapValue;
+		node.heapValue = newHeapValue;
+		if (newHeapValue > oldHeapValue) siftUp(node);
+		else siftDown(node);
+		return true;
+	}
+
+	// ==================== Remove Method ====================
+
+	/**
+	 * Removes a node by locating it once, rotating it down until it is a leaf and detaching it
+	 * from its parent.
+	 *
+	 * @param key The key of the node to be removed.
+	 * @return    True if the node was removed, false otherwise.
+	 */
+	@Override
+	public boolean remove(String key) {
+		if (!isValidKey(key)) return false;
+
+		LinkedTreapNode node = locate(key.toLowerCase());
+		if (node == null) return false;
+
+		// Rotate the larger child above the node until the node is a leaf
+		for (LinkedTreapNode child = largerChild(node); child != null; child = largerChild(node)) rotateUp(child);
+
+		if (node == root) root = null;
+		else if (node.parent.left == node) node.parent.left = null;
+		else node.parent.right = null;
+		node.parent = null;
+		count--;
+		invalidateCachedKey(node.key);
+		checkBloomFilter();
+		return true;
+	}
+
+	// ==================== Cursors ====================
+
+	/**
+	 * Returns a cursor over all keys in ascending order.
+	 *
+	 * @return An iterator over the keys of the treap.
+	 */
+	@Override
+	public Iterator<String> iterator() {
+		TreapNode node = root;
+		while (node != null && node.left != null) node = node.left;
+		return new Cursor((LinkedTreapNode) node);
+	}
+
+	/**
+	 * Returns a cursor over the keys greater than or equal to the given key, in ascending order.
+	 *
+	 * @param key The key to start from; it does not have to be present in the treap.
+	 * @return    An iterator starting at the smallest key not less than the given key.
+	 */
+	public Iterator<String> iteratorFrom(String key) {
+		if (!isValidKey(key)) return new Cursor(null);
+
+		String lowerKey = key.toLowerCase();
+		TreapNode node = root;
+		TreapNode candidate = null;
+		while (node != null) {
+			if (lowerKey.compareTo(node.key) <= 0) {
+				candidate = node;  // node qualifies; a smaller qualifying key can only be on the left
+				node = node.left;
+			} else {
+				node = node.right;
+			}
+		}
+		return new Cursor((LinkedTreapNode) candidate);
+	}
+
+	/**
+	 * Helper method to find the in-order successor of a node using parent links. Over a full
+	 * traversal every edge is crossed at most twice, so each step costs amortized O(1).
+	 *
+	 * @param node The current node.
+	 * @return     The next node in key order, or null if the node holds the largest key.
+	 */
+	private LinkedTreapNode successor(LinkedTreapNode node) {
+		if (node.right != null) {
+			TreapNode next = node.right;
+			while (next.left != null) next = next.left;
+			return (LinkedTreapNode) next;
+		}
+		while (node != root && node == node.parent.right) node = node.parent;
+		return node == root ? null : node.parent;
+	}
+
+	/**
+	 * The Cursor class walks the keys in ascending order by following successor links. The treap
+	 * must not be modified while a cursor is in use.
+	 */
+	private class Cursor implements Iterator<String> {
+		private LinkedTreapNode next; // Node whose key is returned by the next call to next()
+
+		/**
+		 * Constructs a cursor positioned at the given node.
+		 *
+		 * @param start The first node to return, or null for an exhausted cursor.
+		 */
+		Cursor(LinkedTreapNode start) {
+			this.next = start;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public String next() {
+			if (next == null) throw new NoSuchElementException();
+			String key = next.key;
+			next = successor(next);
+			return key;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LinkedTreapTest {
+
+	private LinkedTreap treap;
+
+	@BeforeEach
+	public void setUp() {
+		treap = new LinkedTreap();
+	}
+
+	/**
+	 * Checks that every child points back at its parent and that the heap property holds.
+	 */
+	private void assertLinked(TreapNode node) {
+		if (node == null) return;
+		for (TreapNode child : new TreapNode[] {node.left, node.right}) {
+			if (child != null) {
+				assertSame(node, ((LinkedTreap.LinkedTreapNode) child).parent);  // Child links back to parent
+				assertTrue(child.heapValue <= node.heapValue);  // Heap property
+				assertLinked(child);
+			}
+		}
+	}
+
+	// ========================= Add() Tests =========================
+
+	@Test
+	public void testAddKeepsParentLinks() {
+		String[] keys = {"hot", "bed", "lime", "jack", "bake", "fox", "wake"};
+		int[] heapValues = {86, 72, 77, 60, 12, 50, 41};
+		assertTrue(treap.build(keys, heapValues));
+		assertEquals(7, treap.size());
+		assertLinked(treap.root);
+	}
+
+	// ========================= FindPath() Tests =========================
+
+	@Test
+	public void testFindPathFollowsParents() {
+		treap.add("root", 10);
+		treap.add("left", 5);
+		treap.add("leftLeft", 2);
+		assertEquals(List.of("leftleft", "left", "root"), treap.findPath("LeftLeft"));  // Node to root
+		assertNull(treap.findPath("missing"));  // Missing key
+	}
+
+	// ========================= ChangeOrder() Tests =========================
+
+	@Test
+	public void testChangeOrderSiftsUpToRoot() {
+		treap.build(new String[] {"a", "b", "c", "d"}, new int[] {40, 30, 20, 10});
+		assertTrue(treap.changeOrder("d", 50));
+		assertEquals(List.of("d"), treap.findPath("d"));  // Highest heap value is now the root
+		assertLinked(treap.root);
+	}
+
+	@Test
+	public void testChangeOrderSiftsDown() {
+		treap.build(new String[] {"a", "b", "c", "d"}, new int[] {40, 30, 20, 10});
+		assertTrue(treap.changeOrder("a", 5));
+		assertEquals(4, treap.size());
+		assertLinked(treap.root);
+	}
+
+	@Test
+	public void testChangeOrderMissingKey() {
+		treap.add("apple", 10);
+		assertFalse(treap.changeOrder("banana", 20));  // Key not in the tree
+		assertFalse(treap.changeOrder("apple", 0));  // Invalid heap value
+	}
+
+	// ========================= Remove() Tests =========================
+
+	@Test
+	public void testRemoveInteriorNodes() {
+		treap.build(new String[] {"hot", "bed", "lime", "jack", "bake", "fox", "wake"}, new int[] {86, 72, 77, 60, 12, 50, 41});
+		assertTrue(treap.remove("hot"));  // Remove the root
+		assertTrue(treap.remove("lime"));  // Remove an interior node
+		assertFalse(treap.remove("lime"));  // Already removed
+		assertEquals(5, treap.size());
+		assertFalse(treap.find("hot"));
+		assertLinked(treap.root);
+	}
+
+	// ========================= Cursor Tests =========================
+
+	@Test
+	public void testIteratorVisitsKeysInOrder() {
+		treap.build(new String[] {"hot", "bed", "lime", "jack", "bake", "fox", "wake"}, new int[] {86, 72, 77, 60, 12, 50, 41});
+		List<String> keys = new ArrayList<>();
+		for (String key : treap) keys.add(key);
+		assertEquals(List.of("bake", "bed", "fox", "hot", "jack", "lime", "wake"), keys);
+	}
+
+	@Test
+	public void testIteratorFromMissingKey() {
+		treap.build(new String[] {"hot", "bed", "lime", "jack"}, new int[] {86, 72, 77, 60});
+		Iterator<String> cursor = treap.iteratorFrom("Ice");
+		assertEquals("jack", cursor.next());  // First key not less than "ice"
+		assertEquals("lime", cursor.next());
+		assertFalse(cursor.hasNext());
+	}
+}
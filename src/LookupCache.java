@@ -0,0 +1,181 @@
+/**
+ * The LookupCache class is a small, fixed-size cache from raw query strings to the treap nodes
+ * they found. It is keyed by the query exactly as the caller passed it, before case folding, so a
+ * repeated lookup of a popular key costs one hash (cached inside the String after its first use),
+ * a reference or equals() check and no tree descent at all. Only successful lookups are cached.
+ *
+ * Slots are open-addressed: a query lives in one of {@link #PROBE_LENGTH} consecutive slots after
+ * its home slot. When all of them are taken, a new query replaces the least popular of them only
+ * if it is more popular itself, judged by a small Count-Min sketch of recent lookups, which keeps
+ * popular queries cached under a stream of rare ones. The hash of each slot's
+ * query is kept in a separate int array, so probing slots of other queries does not load their
+ * entries. Each slot holds an immutable entry, so a reader always sees a query together with its
+ * own node.
+ * Because a key can be cached under several spellings ("Apple", "APPLE", ...), invalidating a key
+ * scans the whole cache, which is cheap at the sizes this cache is meant for.
+ */
+public class LookupCache {
+
+	/**
+	 * The Entry class pairs a cached query with the node it found.
+	 */
+	private static final class Entry {
+		final String query;     // The query exactly as it was passed to find()
+		final TreapNode node;   // The node holding the case-folded key
+
+		Entry(String query, TreapNode node) {
+			this.query = query;
+			this.node = node;
+		}
+	}
+
+	// Number of consecutive slots a query may occupy, starting at its home slot
+	static final int PROBE_LENGTH = 4;
+
+	// Largest number of entries; invalidate() scans every slot, so the cache must stay small
+	public static final int MAX_CAPACITY = 4096;
+
+	// Cached entries; null slots are free
+	private final Entry[] entries;
+
+	// Hash code of the query in each slot, compared first so that probing a slot which holds
+	// another query, or weighing it for replacement, does not have to load its entry
+	private final int[] hashes;
+
+	// Mask that maps a hash to a slot (the number of slots is a power of two)
+	private final int mask;
+
+	// Recent frequency of every query, cached or not, used to decide which entries are worth keeping
+	private final CountMinSketch frequencies;
+
+	// Number of lookups and of lookups answered from the cache
+	private long lookups;
+	private long hits;
+
+	/**
+	 * Constructs an empty cache.
+	 *
+	 * @param capacity The number of entries, at most MAX_CAPACITY; rounded up to a power of two of
+	 *                 at least PROBE_LENGTH.
+	 */
+	public LookupCache(int capacity) {
+		if (capacity <= 0 || capacity > MAX_CAPACITY) throw new IllegalArgumentException("capacity must be in [1, " + MAX_CAPACITY + "]");
+		int slots = Math.max(PROBE_LENGTH, Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1);
+		this.entries = new Entry[slots];
+		this.hashes = new int[slots];
+		this.mask = slots - 1;
+		this.frequencies = new CountMinSketch(4 * slots, 4, 10 * slots);
+	}
+
+	/**
+	 * Returns the node cached for a query.
+	 *
+	 * @param query The query exactly as it was passed to find().
+	 * @return      The cached node, or null if the query is not cached.
+	 */
+	public TreapNode get(String query) {
+		lookups++;
+		int hash = query.hashCode();
+		frequencies.increment(hash);
+		int slot = home(hash);
+		for (int i = 0; i < PROBE_LENGTH; i++) {
+			int index = (slot + i) & mask;
+			if (hashes[index] != hash) continue;
+			Entry entry = entries[index];
+			if (entry != null && (entry.query == query || entry.query.equals(query))) {
+				hits++;
+				return entry.node;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Caches the node a query found. A free slot in the query's probe window is always used. When
+	 * the window is full, the query replaces the least frequently looked-up entry of the window,
+	 * but only if it has been looked up more often itself (TinyLFU admission), so a stream of
+	 * rarely repeated queries cannot flush out the popular ones.
+	 *
+	 * @param query The query exactly as it was passed to find().
+	 * @param node  The node that holds the query's key.
+	 */
+	public void put(String query, TreapNode node) {
+		int hash = query.hashCode();
+		int slot = home(hash);
+		for (int i = 0; i < PROBE_LENGTH; i++) {
+			int index = (slot + i) & mask;
+			if (entries[index] == null) {
+				store(index, hash, query, node);
+				return;
+			}
+		}
+
+		int victim = -1;
+		int victimFrequency = Integer.MAX_VALUE;
+		for (int i = 0; i < PROBE_LENGTH; i++) {
+			int index = (slot + i) & mask;
+			int frequency = frequencies.estimate(hashes[index]);
+			if (frequency < victimFrequency) {
+				victim = index;
+				victimFrequency = frequency;
+			}
+		}
+		if (frequencies.estimate(hash) > victimFrequency) store(victim, hash, query, node);
+	}
+
+	/**
+	 * Helper method to fill a slot; the entry is written before the hash that lets readers find it.
+	 */
+	private void store(int index, int hash, String query, TreapNode node) {
+		entries[index] = new Entry(query, node);
+		hashes[index] = hash;
+	}
+
+	/**
+	 * Drops every entry that leads to a node with the given key, whatever spelling it was cached under.
+	 *
+	 * @param key The lowercase key that left the treap.
+	 */
+	public void invalidate(String key) {
+		for (int i = 0; i < entries.length; i++) {
+			Entry entry = entries[i];
+			if (entry != null && entry.node.key.equals(key)) entries[i] = null;
+		}
+	}
+
+	/**
+	 * Drops every entry.
+	 */
+	public void clear() {
+		for (int i = 0; i < entries.length; i++) entries[i] = null;
+	}
+
+	/**
+	 * Returns the number of lookups made through the cache.
+	 *
+	 * @return The lookup count.
+	 */
+	public long lookups() {
+		return lookups;
+	}
+
+	/**
+	 * Returns the number of lookups that were answered by the cache.
+	 *
+	 * @return The hit count.
+	 */
+	public long hits() {
+		return hits;
+	}
+
+	/**
+	 * Helper method to find the home slot of a hash code by spreading its bits.
+	 *
+	 * @param hash The query's hash code.
+	 * @return     The home slot.
+	 */
+	private int home(int hash) {
+		int h = hash * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+}
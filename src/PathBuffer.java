@@ -0,0 +1,97 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PathBuffer class is a reusable, growable buffer that receives the keys on a path through a treap.
+ * Passing the same buffer to {@link Treap#findPath(String, PathBuffer)} on every call avoids
+ * allocating a new path for each lookup; the backing array only grows when a deeper path is seen.
+ */
+public class PathBuffer {
+
+	// Keys on the path; only the first `length` entries are valid
+	private String[] keys;
+
+	// Number of keys currently held in the buffer
+	private int length;
+
+	/**
+	 * Constructs an empty path buffer with a default initial capacity.
+	 */
+	public PathBuffer() {
+		this(32);
+	}
+
+	/**
+	 * Constructs an empty path buffer with the given initial capacity.
+	 *
+	 * @param initialCapacity The number of keys the buffer can hold before it has to grow.
+	 */
+	public PathBuffer(int initialCapacity) {
+		this.keys = new String[Math.max(1, initialCapacity)];
+		this.length = 0;
+	}
+
+	/**
+	 * Returns the number of keys on the path.
+	 *
+	 * @return The path length in nodes.
+	 */
+	public int size() {
+		return length;
+	}
+
+	/**
+	 * Returns the key at the given position on the path.
+	 *
+	 * @param index The position, where 0 is the node the path was searched for.
+	 * @return      The key at that position.
+	 */
+	public String get(int index) {
+		if (index < 0 || index >= length) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+		return keys[index];
+	}
+
+	/**
+	 * Copies the path into a new list, for callers that need a List view.
+	 *
+	 * @return A list of keys representing the path from the node to the root.
+	 */
+	public List<String> toList() {
+		List<String> list = new ArrayList<>(length);
+		for (int i = 0; i < length; i++) list.add(keys[i]);
+		return list;
+	}
+
+	/**
+	 * Empties the buffer while keeping its capacity for the next path.
+	 */
+	void clear() {
+		for (int i = 0; i < length; i++) keys[i] = null; // Do not keep removed keys reachable
+		length = 0;
+	}
+
+	/**
+	 * Appends a key to the end of the path, doubling the capacity when the buffer is full.
+	 *
+	 * @param key The key to append.
+	 */
+	void append(String key) {
+		if (length == keys.length) {
+			String[] grown = new String[keys.length * 2];
+			System.arraycopy(keys, 0, grown, 0, length);
+			keys = grown;
+		}
+		keys[length++] = key;
+	}
+
+	/**
+	 * Reverses the path in place, turning a root-to-node path into a node-to-root path.
+	 */
+	void reverse() {
+		for (int i = 0, j = length - 1; i < j; i++, j--) {
+			String tmp = keys[i];
+			keys[i] = keys[j];
+			keys[j] = tmp;
+		}
+	}
+}
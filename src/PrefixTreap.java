@@ -0,0 +1,381 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The PrefixTreap class is a treap for long keys with shared prefixes, such as URLs or paths. Each
+ * node stores its key relative to its parent: the length of the prefix it shares with the parent's
+ * key and the remaining suffix, as UTF-8 bytes of the lowercase key. Keys are ordered by code point,
+ * which matches the Treap's order for all characters outside the surrogate range.
+ *
+ * A search remembers how many bytes of the query it has already matched against the parent. A node
+ * that shares more than that with its parent compares like the parent did without reading any
+ * bytes, and otherwise the comparison starts at the node's prefix length, so every byte of the
+ * query is matched at most once on the way down. Rotations change parents, so the nodes they move
+ * are re-encoded against their new parents; updates therefore pass each node's full key down the
+ * recursion.
+ *
+ * Like the ArenaTreap, duplicate keys are rejected rather than duplicate heap values.
+ */
+public class PrefixTreap implements Searchable {
+
+	/**
+	 * The PrefixNode class represents a node whose key is encoded relative to its parent's key.
+	 */
+	private static class PrefixNode {
+		int prefixLength; // Number of leading bytes shared with the parent's key
+		byte[] suffix;    // Bytes of the key after the shared prefix
+		int heapValue;    // Priority value used to maintain the heap property
+		PrefixNode left;  // Reference to the left child of this node
+		PrefixNode right; // Reference to the right child of this node
+
+		/**
+		 * Constructs a new PrefixNode with the given heap value; the key is set by encode().
+		 *
+		 * @param heapValue The priority value for maintaining the heap property.
+		 */
+		PrefixNode(int heapValue) {
+			this.heapValue = heapValue;
+		}
+	}
+
+	// An empty key, used as the "parent key" of the root so that the root stores its key in full
+	private static final byte[] NO_KEY = new byte[0];
+
+	// Root node of the treap
+	private PrefixNode root;
+
+	// Number of nodes in the treap
+	private int count;
+
+	/**
+	 * Constructs an empty prefix treap.
+	 */
+	public PrefixTreap() {
+		this.root = null;
+		this.count = 0;
+	}
+
+	// ==================== Key Encoding ====================
+
+	/**
+	 * Helper method to encode a node's key relative to its parent's key.
+	 *
+	 * @param node      The node to encode.
+	 * @param key       The full key of the node.
+	 * @param parentKey The full key of the node's parent, or NO_KEY for the root.
+	 */
+	private static void encode(PrefixNode node, byte[] key, byte[] parentKey) {
+		int shared = Arrays.mismatch(key, parentKey);
+		if (shared < 0) shared = key.length; // Only possible for two empty keys
+		node.prefixLength = shared;
+		node.suffix = Arrays.copyOfRange(key, shared, key.length);
+	}
+
+	/**
+	 * Helper method to rebuild a node's full key from its parent's full key.
+	 *
+	 * @param node      The node whose key is decoded.
+	 * @param parentKey The full key of the node's parent, or NO_KEY for the root.
+	 * @return          The full key of the node.
+	 */
+	private static byte[] expand(PrefixNode node, byte[] parentKey) {
+		byte[] key = new byte[node.prefixLength + node.suffix.length];
+		System.arraycopy(parentKey, 0, key, 0, node.prefixLength);
+		System.arraycopy(node.suffix, 0, key, node.prefixLength, node.suffix.length);
+		return key;
+	}
+
+	/**
+	 * Helper method to encode a lowercase key as UTF-8.
+	 *
+	 * @param key The key to encode.
+	 * @return    The encoded bytes of the lowercase key.
+	 */
+	private static byte[] bytesOf(String key) {
+		return key.toLowerCase().getBytes(StandardCharsets.UTF_8);
+	}
+
+	// ==================== Rotations ====================
+
+	/**
+	 * Performs a right rotation on the given node y and re-encodes the three nodes whose parent
+	 * changes: y's left child (now attached to y's parent), y (now below that child) and the
+	 * child's former right subtree root (now y's left child).
+	 *
+	 * @param y         The node to rotate.
+	 * @param yKey      The full key of y.
+	 * @param parentKey The full key of y's parent, or NO_KEY if y is the root.
+	 * @return          The new root of the subtree after the rotation.
+	 */
+	private PrefixNode rightRotate(PrefixNode y, byte[] yKey, byte[] parentKey) {
+		PrefixNode x = y.left;
+		byte[] xKey = expand(x, yKey);
+		PrefixNode moved = x.right;
+		if (moved != null) encode(moved, expand(moved, xKey), yKey);
+
+		y.left = moved;
+		x.right = y;
+		encode(y, yKey, xKey);
+		encode(x, xKey, parentKey);
+		return x;
+	}
+
+	/**
+	 * Performs a left rotation on the given node x and re-encodes the three nodes whose parent
+	 * changes.
+	 *
+	 * @param x         The node to rotate.
+	 * @param xKey      The full key of x.
+	 * @param parentKey The full key of x's parent, or NO_KEY if x is the root.
+	 * @return          The new root of the subtree after the rotation.
+	 */
+	private PrefixNode leftRotate(PrefixNode x, byte[] xKey, byte[] parentKey) {
+		PrefixNode y = x.right;
+		byte[] yKey = expand(y, xKey);
+		PrefixNode moved = y.left;
+		if (moved != null) encode(moved, expand(moved, yKey), xKey);
+
+		x.right = moved;
+		y.left = x;
+		encode(x, xKey, yKey);
+		encode(y, yKey, parentKey);
+		return y;
+	}
+
+	// ==================== Add Method ====================
+
+	/**
+	 * Adds a new key with the given heap value.
+	 *
+	 * @param key       The key to be added.
+	 * @param heapValue The associated heap value.
+	 * @return          True if the node was added, false if the key is invalid or already exists.
+	 */
+	public boolean add(String key, int heapValue) {
+		if (key == null || heapValue <= 0) return false;
+
+		byte[] bytes = bytesOf(key);
+		if (locate(bytes)) return false;
+
+		root = insertNode(root, NO_KEY, bytes, heapValue);
+		count++;
+		return true;
+	}
+
+	/**
+	 * Helper method to insert a new key into the treap.
+	 *
+	 * @param node      The current node in the treap.
+	 * @param parentKey The full key of the current node's parent, or NO_KEY at the root.
+	 * @param key       The key to be added.
+	 * @param heapValue The heap value of the new node.
+	 * @return          The root of the subtree after insertion.
+	 */
+	private PrefixNode insertNode(PrefixNode node, byte[] parentKey, byte[] key, int heapValue) {
+		if (node == null) {
+			PrefixNode created = new PrefixNode(heapValue);
+			encode(created, key, parentKey);
+			return created;
+		}
+
+		byte[] nodeKey = expand(node, parentKey);
+		if (Arrays.compareUnsigned(key, nodeKey) < 0) {
+			node.left = insertNode(node.left, nodeKey, key, heapValue);
+			if (node.left.heapValue > node.heapValue) node = rightRotate(node, nodeKey, parentKey);
+		} else {
+			node.right = insertNode(node.right, nodeKey, key, heapValue);
+			if (node.right.heapValue > node.heapValue) node = leftRotate(node, nodeKey, parentKey);
+		}
+		return node;
+	}
+
+	// ==================== Build Method ====================
+
+	/**
+	 * Builds the treap from arrays of keys and heap values.
+	 *
+	 * @param keys       Array of keys to be inserted.
+	 * @param heapValues Array of heap values corresponding to the keys.
+	 * @return           True if the treap was built successfully, false otherwise.
+	 */
+	public boolean build(String[] keys, int[] heapValues) {
+		if (keys == null || heapValues == null || keys.length != heapValues.length) return false;
+		root = null;
+		count = 0;
+		for (int i = 0; i < keys.length; i++) add(keys[i], heapValues[i]);
+		return true;
+	}
+
+	// ==================== Find Method ====================
+
+	/**
+	 * Finds if a node with the given key exists in the treap.
+	 *
+	 * @param key The key to search for.
+	 * @return    True if the key is found, false otherwise.
+	 */
+	public boolean find(String key) {
+		return key != null && locate(bytesOf(key));
+	}
+
+	/**
+	 * Helper method to search for an encoded key while skipping bytes that are already known to
+	 * match. {@code matched} is the length of the common prefix of the query and the parent's key,
+	 * and {@code parentCmp} the result of comparing the query with the parent's key.
+	 *
+	 * @param query The encoded lowercase key.
+	 * @return      True if the key is found, false otherwise.
+	 */
+	private boolean locate(byte[] query) {
+		PrefixNode node = root;
+		int matched = 0;
+		int parentCmp = 0;
+		while (node != null) {
+			int cmp;
+			if (node.prefixLength > matched) {
+				// The node agrees with the parent beyond the point where the query left it
+				cmp = parentCmp;
+			} else {
+				// The query and the node agree on the first prefixLength bytes; compare the rest
+				byte[] suffix = node.suffix;
+				int q = node.prefixLength;
+				int s = 0;
+				while (q < query.length && s < suffix.length && query[q] == suffix[s]) {
+					q++;
+					s++;
+				}
+				if (q == query.length && s == suffix.length) return true;
+				if (q == query.length) cmp = -1;      // The query is a proper prefix of the node's key
+				else if (s == suffix.length) cmp = 1; // The node's key is a proper prefix of the query
+				else cmp = (query[q] & 0xff) - (suffix[s] & 0xff);
+				matched = q;
+			}
+			parentCmp = cmp;
+			node = cmp < 0 ? node.left : node.right;
+		}
+		return false;
+	}
+
+	// ==================== FindPath Method ====================
+
+	/**
+	 * Finds the path from the node with the given key to the root of the treap. Keys on the path
+	 * are decoded while descending.
+	 *
+	 * @param key The key whose path to the root is to be found.
+	 * @return    A list of keys representing the path from the node to the root, or null if the key is not found.
+	 */
+	public List<String> findPath(String key) {
+		PathBuffer path = new PathBuffer();
+		return findPath(key, path) ? path.toList() : null;
+	}
+
+	/**
+	 * Finds the path from the node with the given key to the root and writes it into a
+	 * caller-supplied buffer.
+	 *
+	 * @param key  The key whose path to the root is to be found.
+	 * @param path The buffer that receives the keys from the node to the root; cleared first.
+	 * @return     True if the key was found, false otherwise (the buffer is then left empty).
+	 */
+	public boolean findPath(String key, PathBuffer path) {
+		path.clear();
+		if (key == null) return false;
+
+		byte[] query = bytesOf(key);
+		byte[] parentKey = NO_KEY;
+		PrefixNode node = root;
+		while (node != null) {
+			byte[] nodeKey = expand(node, parentKey);
+			path.append(new String(nodeKey, StandardCharsets.UTF_8));
+			int cmp = Arrays.compareUnsigned(query, nodeKey);
+			if (cmp == 0) {
+				path.reverse(); // Collected root-to-node, report node-to-root
+				return true;
+			}
+			parentKey = nodeKey;
+			node = cmp < 0 ? node.left : node.right;
+		}
+
+		path.clear();
+		return false;
+	}
+
+	// ==================== ChangeOrder Method ====================
+
+	/**
+	 * Changes the heap value of a node by removing the key and inserting it again.
+	 *
+	 * @param key          The key whose heap value is to be changed.
+	 * @param newHeapValue The new heap value.
+	 * @return             True if the order was successfully changed, false otherwise.
+	 */
+	public boolean changeOrder(String key, int newHeapValue) {
+		if (key == null || newHeapValue <= 0 || !find(key)) return false;
+		byte[] bytes = bytesOf(key);
+		root = deleteNode(root, NO_KEY, bytes);
+		root = insertNode(root, NO_KEY, bytes, newHeapValue);
+		return true;
+	}
+
+	// ==================== Remove Method ====================
+
+	/**
+	 * Removes a node with the given key from the treap.
+	 *
+	 * @param key The key of the node to be removed.
+	 * @return    True if the node was removed, false otherwise.
+	 */
+	public boolean remove(String key) {
+		if (key == null || !find(key)) return false;
+		root = deleteNode(root, NO_KEY, bytesOf(key));
+		count--;
+		return true;
+	}
+
+	/**
+	 * Helper method to recursively delete a node. A child that replaces the deleted node is
+	 * re-encoded against its new parent.
+	 *
+	 * @param node      The current node in the treap.
+	 * @param parentKey The full key of the current node's parent, or NO_KEY at the root.
+	 * @param key       The key of the node to be deleted.
+	 * @return          The root of the subtree after deletion.
+	 */
+	private PrefixNode deleteNode(PrefixNode node, byte[] parentKey, byte[] key) {
+		if (node == null) return null;
+
+		byte[] nodeKey = expand(node, parentKey);
+		int cmp = Arrays.compareUnsigned(key, nodeKey);
+		if (cmp < 0) node.left = deleteNode(node.left, nodeKey, key);
+		else if (cmp > 0) node.right = deleteNode(node.right, nodeKey, key);
+		else {
+			if (node.left == null || node.right == null) {
+				PrefixNode child = node.left == null ? node.right : node.left;
+				if (child != null) encode(child, expand(child, nodeKey), parentKey);
+				return child;
+			}
+
+			if (node.left.heapValue > node.right.heapValue) {
+				node = rightRotate(node, nodeKey, parentKey);
+				node.right = deleteNode(node.right, expand(node, parentKey), key);
+			} else {
+				node = leftRotate(node, nodeKey, parentKey);
+				node.left = deleteNode(node.left, expand(node, parentKey), key);
+			}
+		}
+		return node;
+	}
+
+	// ==================== Size Method ====================
+
+	/**
+	 * Returns the number of nodes in the treap.
+	 *
+	 * @return The number of nodes.
+	 */
+	public int size() {
+		return count;
+	}
+}
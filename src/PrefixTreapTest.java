@@ -0,0 +1,77 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PrefixTreapTest {
+
+	private PrefixTreap treap;
+
+	@BeforeEach
+	public void setUp() {
+		treap = new PrefixTreap();
+	}
+
+	// ========================= Add() / Find() Tests =========================
+
+	@Test
+	public void testFindKeysWithSharedPrefixes() {
+		String[] urls = {"https://a.com/x/1", "https://a.com/x/2", "https://a.com/y", "https://a.com", "https://b.com/x/1"};
+		int[] heapValues = {50, 40, 30, 20, 10};
+		assertTrue(treap.build(urls, heapValues));
+		assertEquals(5, treap.size());
+		for (String url : urls) assertTrue(treap.find(url.toUpperCase()));
+		assertFalse(treap.find("https://a.com/x"));  // Prefix of stored keys
+		assertFalse(treap.find("https://a.com/x/10"));  // Extension of a stored key
+		assertFalse(treap.find("https://a.co"));
+	}
+
+	@Test
+	public void testAddRejectsDuplicateKeys() {
+		assertTrue(treap.add("https://a.com/x", 10));
+		assertFalse(treap.add("HTTPS://A.COM/X", 20));  // Same key after case folding
+		assertTrue(treap.add("https://a.com/y", 10));  // Same heap value is allowed
+		assertFalse(treap.add(null, 5));
+		assertFalse(treap.add("https://a.com/z", 0));
+		assertEquals(2, treap.size());
+	}
+
+	// ========================= FindPath() Tests =========================
+
+	@Test
+	public void testFindPathDecodesFullKeys() {
+		treap.add("/docs/guide", 30);
+		treap.add("/docs/api", 20);
+		treap.add("/docs/api/v2", 10);  // Right child of "/docs/api"
+		assertEquals(List.of("/docs/api/v2", "/docs/api", "/docs/guide"), treap.findPath("/docs/api/v2"));
+		assertNull(treap.findPath("/docs"));
+	}
+
+	// ========================= Rotation Tests =========================
+
+	@Test
+	public void testRotationsReencodeMovedNodes() {
+		treap.add("/a/b/c", 10);
+		treap.add("/a/b", 20);  // Rotates above "/a/b/c"
+		treap.add("/a/b/d", 30);  // Rotates to the root
+		treap.add("/a", 40);
+		assertEquals(List.of("/a/b/c", "/a/b", "/a/b/d", "/a"), treap.findPath("/a/b/c"));
+		for (String key : new String[] {"/a", "/a/b", "/a/b/c", "/a/b/d"}) assertTrue(treap.find(key));
+	}
+
+	// ========================= ChangeOrder() / Remove() Tests =========================
+
+	@Test
+	public void testChangeOrderAndRemove() {
+		treap.build(new String[] {"/x/1", "/x/2", "/x/3"}, new int[] {30, 20, 10});
+		assertTrue(treap.changeOrder("/x/3", 50));
+		assertEquals(List.of("/x/3"), treap.findPath("/x/3"));
+		assertTrue(treap.remove("/x/3"));  // Remove the root; children are re-encoded
+		assertFalse(treap.remove("/x/3"));
+		assertTrue(treap.find("/x/1"));
+		assertTrue(treap.find("/x/2"));
+		assertEquals(2, treap.size());
+	}
+}
@@ -1,3 +1,10 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * The SearchTree class extends the Treap data structure and modifies it by tracking search counts
  * for each node. Nodes with higher search counts are moved upwards in the tree to allow for faster
@@ -11,6 +18,7 @@ public class SearchTree extends Treap {
 	 */
 	private static class SearchTreeNode extends TreapNode {
 		int searchCount; // Tracks the number of times the node has been searched
+		int epoch;       // Decay epoch in which searchCount was last brought up to date
 
 		/**
 		 * Constructor for SearchTreeNode, initializing with a key, heap value, and setting searchCount to 1.
@@ -24,10 +32,162 @@ public class SearchTree extends Treap {
 		}
 	}
 
+	// Number of counted searches between halvings of every search count (0 disables decay)
+	private int decayInterval = 0;
+
+	// Counted searches since the current decay epoch began
+	private int searchesInEpoch = 0;
+
+	// Current decay epoch; a node's count is halved once for every epoch it has missed
+	private int currentEpoch = 0;
+
+	// Fraction of successful searches that update counts and may rotate (1 counts every search)
+	private double samplingRate = 1.0;
+
+	// Whether heap values of added keys are derived from a hash of the key instead of drawn at random
+	private boolean hashedPriorities = false;
+
+	// Shared frequency sketch used instead of per-node counters, or null to use SearchTreeNodes
+	private final CountMinSketch sketch;
+
+	// Default number of hottest nodes tracked for hottest(k)
+	private static final int DEFAULT_HOT_KEY_CAPACITY = 16;
+
+	// Nodes with the highest search frequencies seen so far; null slots are free
+	private TreapNode[] hotNodes = new TreapNode[DEFAULT_HOT_KEY_CAPACITY];
+
+	// Thread shared by all instances that computes rebuild plans in the background
+	private static ExecutorService rebuildExecutor;
+
+	// Number of nodes created or removed so far; a rebuild plan is only applied if this is unchanged
+	private long keyChanges = 0;
+
+	// Counted searches after which a background rebuild is started automatically (0 disables)
+	private int rebuildInterval = 0;
+
+	// Counted searches since the last rebuild was started
+	private int searchesSinceRebuild = 0;
+
+	// Set while a background rebuild is computing or waiting to be applied
+	private boolean rebuildPending = false;
+
+	// Plan finished by the background thread and not yet applied, or null
+	private volatile RebuildPlan completedPlan;
+
+	// Number of rebuilds applied so far
+	private long rebuilds = 0;
+
+	/**
+	 * Constructs an empty search tree that tracks an exact search count in every node.
+	 */
+	public SearchTree() {
+		this(null);
+	}
+
+	/**
+	 * Constructs an empty search tree that tracks search frequencies in a shared Count-Min sketch
+	 * instead of per-node counters. Nodes are then plain TreapNodes, so per-node memory is the same
+	 * as in a Treap, and promotion decisions compare the sketch's estimates. The sketch ages itself;
+	 * the decay interval of this tree only applies to per-node counters.
+	 *
+	 * @param sketch The sketch holding search frequencies, or null to use per-node counters.
+	 */
+	public SearchTree(CountMinSketch sketch) {
+		super();
+		this.sketch = sketch;
+	}
+
+	// ==================== Configuration ====================
+
+	/**
+	 * Enables exponential decay of search counts. After every {@code decayInterval} successful
+	 * searches all search counts are halved, so promotion reflects recent popularity rather than
+	 * lifetime totals. The halving is applied lazily: each node remembers the epoch its count was
+	 * last updated in and is shifted right once per missed epoch the next time it is read.
+	 *
+	 * @param decayInterval The number of searches per decay epoch, or 0 to disable decay.
+	 * @return              True if the interval was accepted, false if it is negative.
+	 */
+	public boolean setDecayInterval(int decayInterval) {
+		if (decayInterval < 0) return false;
+		this.decayInterval = decayInterval;
+		this.searchesInEpoch = 0;
+		return true;
+	}
+
+	/**
+	 * Chooses how heap values are generated for keys added with {@link #add(String)}. In hashed mode
+	 * each key's heap value is a deterministic hash of the key, so a given set of keys always
+	 * produces the same, canonical tree shape (before any promotion by search frequency).
+	 *
+	 * @param hashedPriorities True to derive heap values from keys, false to draw them at random.
+	 */
+	public void setHashedPriorities(boolean hashedPriorities) {
+		this.hashedPriorities = hashedPriorities;
+	}
+
+	/**
+	 * Sets the fraction of searches that are counted and may promote the found node. Lower rates
+	 * keep most of the adaptivity for skewed workloads while turning the majority of searches into
+	 * read-only lookups. With decay enabled, the decay interval is measured in counted searches.
+	 *
+	 * @param samplingRate The sampling rate in [0, 1]; 1 counts every search and 0 disables promotion.
+	 * @return             True if the rate was accepted, false if it is outside [0, 1].
+	 */
+	public boolean setSamplingRate(double samplingRate) {
+		if (!(samplingRate >= 0.0 && samplingRate <= 1.0)) return false;
+		this.samplingRate = samplingRate;
+		return true;
+	}
+
+	/**
+	 * Returns the search count of a node after applying any decay epochs it has missed.
+	 * The node itself is not modified.
+	 *
+	 * @param node The node whose search count is read.
+	 * @return     The decayed search count.
+	 */
+	private int searchCountOf(SearchTreeNode node) {
+		int missedEpochs = currentEpoch - node.epoch;
+		return missedEpochs >= Integer.SIZE ? 0 : node.searchCount >>> missedEpochs;
+	}
+
+	/**
+	 * Returns the current search frequency of a node, read from the sketch when one is configured
+	 * and from the node's decayed search count otherwise.
+	 *
+	 * @param node The node whose frequency is read.
+	 * @return     The search frequency used for promotion decisions.
+	 */
+	protected int frequencyOf(TreapNode node) {
+		return sketch != null ? sketch.estimate(node.key) : searchCountOf((SearchTreeNode) node);
+	}
+
+	/**
+	 * Records a successful search on the given node. With per-node counters the node's count is
+	 * brought up to the current epoch first, and the decay epoch advances when the configured
+	 * interval has elapsed.
+	 *
+	 * @param node The node that was found.
+	 */
+	private void recordSearch(TreapNode node) {
+		if (sketch != null) {
+			sketch.increment(node.key);
+			return;
+		}
+		SearchTreeNode searchNode = (SearchTreeNode) node;
+		searchNode.searchCount = searchCountOf(searchNode) + 1;
+		searchNode.epoch = currentEpoch;
+		if (decayInterval > 0 && ++searchesInEpoch >= decayInterval) {
+			currentEpoch++;
+			searchesInEpoch = 0;
+		}
+	}
+
 	// ==================== Add() Method ====================
 
 	/**
-	 * Overrides the add method to insert a key into the search tree. Generates a random heap value for
+	 * Overrides the add method to insert a key into the search tree. Generates a heap value for
 	 * each node, and ensures that duplicate keys are not added.
 	 *
 	 * @param key The key to be added.
@@ -39,19 +199,49 @@ public class SearchTree extends Treap {
 		// If the key already exists, do not add it again.
 		if (find(key)) return false;
 
-		int generatedHeapValue = generateRandomHeapValue();  // Generate a random heap value for the node
-		root = insertNode(root, key.toLowerCase(), generatedHeapValue);  // Insert the node
+		String lowerKey = key.toLowerCase();
+		int generatedHeapValue = generateHeapValue(lowerKey);  // Generate a random (or key-derived) heap value for the node
+		root = insertNode(root, lowerKey, generatedHeapValue);  // Insert the node
 		count++; // Increase the count of nodes
+		checkBloomFilter();
 		return true;
 	}
 
 	/**
-	 * Helper method to generate a random heap value for a new node.
+	 * Helper method to generate the heap value for a new node. By default the value is drawn
+	 * uniformly from the full positive int range using a thread-local generator, so priorities
+	 * practically never tie and threads never contend on a shared random source. In hashed mode
+	 * the value is derived from the key itself, giving the same tree shape for the same key set
+	 * regardless of insertion order.
 	 *
-	 * @return A random integer between 0 and 99 to be used as the heap value.
+	 * @param key The lowercase key of the new node.
+	 * @return    A positive heap value.
 	 */
-	private int generateRandomHeapValue() {
-		return (int) (Math.random() * 100);  // Generates a heap value in the range [0, 99]
+	protected int generateHeapValue(String key) {
+		if (hashedPriorities) return hashPriority(key);
+		return ThreadLocalRandom.current().nextInt(1, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Helper method to derive a heap value from a key with a seeded 64-bit hash. Every character
+	 * is mixed into the state and the result is finalized with the SplitMix64 mixer, so that
+	 * similar keys (for example "key1" and "key2") receive unrelated priorities.
+	 *
+	 * @param key The lowercase key to hash.
+	 * @return    A heap value in the range [1, Integer.MAX_VALUE].
+	 */
+	private static int hashPriority(String key) {
+		long h = 0x9E3779B97F4A7C15L ^ key.length();
+		for (int i = 0; i < key.length(); i++) {
+			h = (h ^ key.charAt(i)) * 0xBF58476D1CE4E5B9L;
+			h ^= h >>> 31;
+		}
+		h ^= h >>> 30;
+		h *= 0xBF58476D1CE4E5B9L;
+		h ^= h >>> 27;
+		h *= 0x94D049BB133111EBL;
+		h ^= h >>> 31;
+		return (int) ((h >>> 1) % Integer.MAX_VALUE) + 1;
 	}
 
 	// ==================== Find() Method ====================
@@ -59,7 +249,9 @@ public class SearchTree extends Treap {
 	/**
 	 * Overrides the find method to search for a key in the search tree. If the key is found, the
 	 * search count of the corresponding node is incremented, and the tree is updated to reflect the
-	 * increased frequency.
+	 * increased frequency. Counting and promotion happen in the same descent that locates the key.
+	 * When a sampling rate below 1 is configured, only that fraction of searches is counted; the
+	 * remaining ones are plain read-only lookups, answered from the lookup cache when one is set.
 	 *
 	 * @param key The key to search for.
 	 * @return    True if the key is found, false otherwise.
@@ -67,112 +259,418 @@ public class SearchTree extends Treap {
 	@Override
 	public boolean find(String key) {
 		if (!isValidKey(key)) return false;
+		if (completedPlan != null) applyCompletedRebuild();
 
-		boolean found = findRecursive(root, key.toLowerCase());
-		if (found) {
-			// Find the node with the given key and increment its search count
-			SearchTreeNode searchNode = (SearchTreeNode) findNode(root, key.toLowerCase());
-			if (searchNode != null) {
-				searchNode.searchCount++;  // Increment the search count for the found node
-				// Rebalance the tree based on the updated search frequency
-				root = updateTreeBasedOnFrequency((SearchTreeNode) root, key.toLowerCase());
-			}
-		}
-		return found;
+		boolean counted = shouldCountSearch();
+		if (!counted && lookupCache != null) return findCached(key) != null; // Unsampled: served by the lookup cache
+
+		String lowerKey = key.toLowerCase();
+		if (!mightContain(lowerKey)) return false; // Rejected by the Bloom filter: certainly absent
+
+		if (!counted) return findRecursive(root, lowerKey); // Unsampled: read-only lookup
+
+		boolean[] found = {false};
+		root = findAndPromote(root, lowerKey, found);
+		if (rebuildInterval > 0 && ++searchesSinceRebuild >= rebuildInterval) rebuildInBackground();
+		return found[0];
+	}
+
+	/**
+	 * Decides whether the current search should be counted, using a thread-local random source so
+	 * that concurrent readers never contend on a shared generator.
+	 *
+	 * @return True if the search should update counts and possibly rotate, false otherwise.
+	 */
+	private boolean shouldCountSearch() {
+		if (samplingRate >= 1.0) return true;
+		return samplingRate > 0.0 && ThreadLocalRandom.current().nextDouble() < samplingRate;
 	}
 
 	// ==================== Remove() Method ====================
 
 	/**
-	 * Overrides the remove method to delete a node from the search tree. The method first checks if
-	 * the key exists, and if it does, it removes the corresponding node.
+	 * Overrides the remove method to delete a node from the search tree. The superclass checks if
+	 * the key exists without counting a search or going through the lookup cache, and if it does,
+	 * removes the corresponding node.
 	 *
 	 * @param key The key of the node to be removed.
 	 * @return    True if the node was successfully removed, false otherwise.
 	 */
 	@Override
 	public boolean remove(String key) {
-		if (!isValidKey(key) || !find(key)) return false;
-		return super.remove(key); // Call the remove method from the superclass (Treap)
+		if (!isValidKey(key)) return false;
+		if (completedPlan != null) applyCompletedRebuild();
+		if (!super.remove(key)) return false; // Call the remove method from the superclass (Treap)
+		nodeRemoved(key.toLowerCase());
+		return true;
+	}
+
+	/**
+	 * Stops tracking a node that left the tree through a bulk removal as a hot key.
+	 *
+	 * @param node The removed node.
+	 */
+	@Override
+	protected void releaseNode(TreapNode node) {
+		for (int i = 0; i < hotNodes.length; i++) {
+			if (hotNodes[i] == node) hotNodes[i] = null;
+		}
+		keyChanges++;
+	}
+
+	/**
+	 * Called after a node has been removed by key: stops tracking it as a hot key and keeps a
+	 * pending rebuild plan, which still contains the node, from being applied.
+	 *
+	 * @param key The lowercase key of the removed node.
+	 */
+	protected void nodeRemoved(String key) {
+		forgetHotKey(key);
+		keyChanges++;
+	}
+
+	// ==================== Hottest() Method ====================
+
+	/**
+	 * Sets how many of the most searched nodes are tracked for {@link #hottest(int)}. Changing the
+	 * capacity discards the keys tracked so far.
+	 *
+	 * @param capacity The number of tracked nodes; must be positive.
+	 * @return         True if the capacity was accepted, false otherwise.
+	 */
+	public boolean setHotKeyCapacity(int capacity) {
+		if (capacity <= 0) return false;
+		hotNodes = new TreapNode[capacity];
+		return true;
+	}
+
+	/**
+	 * Returns the most searched keys, most searched first. The keys come from a small table of the
+	 * hottest nodes that counted searches keep up to date, so the query costs O(k log k) plus a
+	 * presence check per tracked key instead of a full traversal. Reading the report does not count
+	 * as a search: it neither bumps search counts nor rotates nodes.
+	 *
+	 * @param k The number of keys to return; at most the hot key capacity (16 by default) are available.
+	 * @return  Up to k keys ordered by decreasing search frequency.
+	 */
+	public List<String> hottest(int k) {
+		List<TreapNode> tracked = new ArrayList<>(hotNodes.length);
+		for (TreapNode node : hotNodes) {
+			if (node != null && isInTree(node)) tracked.add(node);
+		}
+
+		int[] frequencies = new int[tracked.size()];
+		Integer[] order = new Integer[tracked.size()];
+		for (int i = 0; i < order.length; i++) {
+			frequencies[i] = frequencyOf(tracked.get(i));
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Integer.compare(frequencies[b], frequencies[a]));
+
+		List<String> result = new ArrayList<>();
+		for (int i = 0; i < order.length && i < k; i++) result.add(tracked.get(order[i]).key);
+		return result;
+	}
+
+	/**
+	 * Records a counted search in the hot key table. A node that is not tracked yet takes a free
+	 * slot, or replaces the tracked node with the lowest current frequency if it is now searched
+	 * more often. Tracked nodes are compared by their live frequencies, so once decay or sketch
+	 * aging has cooled a formerly hot key, a newly hot key can displace it. The table is small, so
+	 * the linear scan is cheap.
+	 *
+	 * @param node The node that was just searched.
+	 */
+	private void trackHotNode(TreapNode node) {
+		int free = -1;
+		for (int i = 0; i < hotNodes.length; i++) {
+			if (hotNodes[i] == node) return;
+			if (hotNodes[i] == null && free < 0) free = i;
+		}
+		if (free >= 0) {
+			hotNodes[free] = node;
+			return;
+		}
+
+		int coldest = 0;
+		int coldestFrequency = Integer.MAX_VALUE;
+		for (int i = 0; i < hotNodes.length; i++) {
+			int slotFrequency = frequencyOf(hotNodes[i]);
+			if (slotFrequency < coldestFrequency) {
+				coldest = i;
+				coldestFrequency = slotFrequency;
+			}
+		}
+		if (frequencyOf(node) > coldestFrequency) hotNodes[coldest] = node;
+	}
+
+	/**
+	 * Stops tracking the node with the given key as a hot key.
+	 *
+	 * @param key The lowercase key of a removed node.
+	 */
+	private void forgetHotKey(String key) {
+		for (int i = 0; i < hotNodes.length; i++) {
+			if (hotNodes[i] != null && hotNodes[i].key.equals(key)) hotNodes[i] = null;
+		}
+	}
+
+	/**
+	 * Helper method to check that a tracked node is still part of the tree, by descending to its
+	 * key and comparing node identity. Does not count as a search.
+	 *
+	 * @param target The node to look for.
+	 * @return       True if the node is reachable from the root, false otherwise.
+	 */
+	private boolean isInTree(TreapNode target) {
+		TreapNode node = root;
+		while (node != null) {
+			int cmp = target.key.compareTo(node.key);
+			if (cmp == 0) return node == target;
+			node = cmp < 0 ? node.left : node.right;
+		}
+		return false;
+	}
+
+	// ==================== Rebuild ====================
+
+	/**
+	 * The RebuildPlan class describes a new shape for the tree: the nodes in key order, as they
+	 * were when the plan was started, and for each of them the positions of its children. Only
+	 * the positions are computed in the background, from a copy of the frequencies, so the
+	 * computation never reads the live tree.
+	 */
+	private static final class RebuildPlan {
+		final TreapNode[] nodes;  // The nodes in ascending key order
+		final long[] prefix;      // prefix[i] is the total weight of nodes[0..i-1]
+		final int[] left;         // Position of each node's left child, or -1
+		final int[] right;        // Position of each node's right child, or -1
+		final long keyChanges;    // Key changes of the tree when the plan was started
+		int root = -1;            // Position of the root, or -1 for an empty tree
+
+		RebuildPlan(TreapNode[] nodes, long[] prefix, long keyChanges) {
+			this.nodes = nodes;
+			this.prefix = prefix;
+			this.left = new int[nodes.length];
+			this.right = new int[nodes.length];
+			this.keyChanges = keyChanges;
+		}
+
+		/**
+		 * Computes the shape with Mehlhorn's bisection rule: the root of every key range is the
+		 * key whose weight straddles the middle of the range's total weight, found by binary
+		 * search over the prefix sums. Neither subtree then weighs more than half of the range,
+		 * so a key of weight w ends up at depth at most log2(W / w) + 1, within a couple of
+		 * comparisons of the entropy bound. Costs O(n log n).
+		 */
+		void compute() {
+			root = place(0, nodes.length);
+		}
+
+		/**
+		 * Helper method to build the subtree of the key range [lo, hi) and return its root position.
+		 * The recursion depth is at most log2 of the total weight, since weights halve at each level.
+		 */
+		private int place(int lo, int hi) {
+			if (lo >= hi) return -1;
+			long half = prefix[lo] + (prefix[hi] - prefix[lo]) / 2;
+
+			// Smallest r in [lo, hi) with prefix[r + 1] > half
+			int low = lo;
+			int high = hi - 1;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (prefix[mid + 1] > half) high = mid;
+				else low = mid + 1;
+			}
+
+			left[low] = place(lo, low);
+			right[low] = place(low + 1, hi);
+			return low;
+		}
+	}
+
+	/**
+	 * Reshapes the tree right away into a near-optimal binary search tree for the current search
+	 * frequencies (see {@link #rebuildInBackground()}), reusing the existing nodes.
+	 */
+	public void rebuild() {
+		RebuildPlan plan = prepareRebuild();
+		plan.compute();
+		applyRebuild(plan);
+	}
+
+	/**
+	 * Starts a rebuild into a near-optimal binary search tree for the current search frequencies.
+	 * Greedy promotion moves a node up one rotation per search and can leave poor shapes behind;
+	 * the rebuild instead lays out all keys at once with Mehlhorn's approximation, weighting each
+	 * key by its search frequency (at least 1, the count a new key starts with). The nodes and
+	 * frequencies are copied here, the shape is computed on a background thread, and the first
+	 * find(), add() or remove() after it is done relinks the existing nodes into it, which
+	 * replaces the whole shape at once. If keys were added or removed in the meantime, the plan
+	 * is dropped. Heap values no longer decide the shape of the rebuilt tree, just as they do
+	 * not after promotions.
+	 *
+	 * @return True if a rebuild was started, false if one is already pending.
+	 */
+	public boolean rebuildInBackground() {
+		if (rebuildPending) return false;
+		rebuildPending = true;
+		searchesSinceRebuild = 0;
+		RebuildPlan plan = prepareRebuild();
+		rebuildExecutor().execute(() -> {
+			plan.compute();
+			completedPlan = plan;
+		});
+		return true;
+	}
+
+	/**
+	 * Starts a background rebuild automatically after every {@code rebuildInterval} counted
+	 * searches.
+	 *
+	 * @param rebuildInterval The number of counted searches between rebuilds, or 0 to disable them.
+	 * @return                True if the interval was accepted, false if it is negative.
+	 */
+	public boolean setRebuildInterval(int rebuildInterval) {
+		if (rebuildInterval < 0) return false;
+		this.rebuildInterval = rebuildInterval;
+		this.searchesSinceRebuild = 0;
+		return true;
+	}
+
+	/**
+	 * Returns the number of rebuilds applied so far.
+	 *
+	 * @return The rebuild count.
+	 */
+	public long rebuilds() {
+		return rebuilds;
+	}
+
+	/**
+	 * Helper method to copy the nodes in key order and the prefix sums of their weights.
+	 *
+	 * @return A plan whose shape is still to be computed.
+	 */
+	private RebuildPlan prepareRebuild() {
+		TreapNode[] nodes = inOrderNodes();
+		long[] prefix = new long[nodes.length + 1];
+		for (int i = 0; i < nodes.length; i++) prefix[i + 1] = prefix[i] + Math.max(1, frequencyOf(nodes[i]));
+		return new RebuildPlan(nodes, prefix, keyChanges);
+	}
+
+	/**
+	 * Helper method to apply the plan the background thread has finished.
+	 */
+	private void applyCompletedRebuild() {
+		RebuildPlan plan = completedPlan;
+		completedPlan = null;
+		rebuildPending = false;
+		if (plan.keyChanges == keyChanges) applyRebuild(plan);
+	}
+
+	/**
+	 * Helper method to relink the nodes of a computed plan into its shape.
+	 */
+	private void applyRebuild(RebuildPlan plan) {
+		TreapNode[] nodes = plan.nodes;
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i].left = plan.left[i] < 0 ? null : nodes[plan.left[i]];
+			nodes[i].right = plan.right[i] < 0 ? null : nodes[plan.right[i]];
+		}
+		root = plan.root < 0 ? null : nodes[plan.root];
+		rebuilds++;
+	}
+
+	/**
+	 * Helper method to create the shared rebuild thread on first use.
+	 */
+	private static synchronized ExecutorService rebuildExecutor() {
+		if (rebuildExecutor == null) {
+			rebuildExecutor = Executors.newSingleThreadExecutor(task -> {
+				Thread thread = new Thread(task, "search-tree-rebuild");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return rebuildExecutor;
 	}
 
 	// ==================== Helper Methods ====================
 
 	/**
-	 * Helper method to insert a new SearchTreeNode into the tree.
+	 * Creates a SearchTreeNode instead of a TreapNode for each new key, or a plain TreapNode in
+	 * sketch mode, where the frequency lives in the sketch.
 	 *
-	 * @param node      The current node in the tree.
 	 * @param key       The key to be inserted.
 	 * @param heapValue The heap value of the node.
-	 * @return          The updated root of the subtree after insertion.
+	 * @return          The new node.
 	 */
 	@Override
-	protected TreapNode insertNode(TreapNode node, String key, int heapValue) {
-		if (node == null) return new SearchTreeNode(key, heapValue); // Create a SearchTreeNode instead of TreapNode
-		return super.insertNode(node, key, heapValue); // Call the insertNode method from the superclass (Treap)
+	protected TreapNode createNode(String key, int heapValue) {
+		keyChanges++;
+		if (sketch != null) {
+			sketch.increment(key); // Mirror the initial search count of 1 in the sketch
+			return new TreapNode(key, heapValue);
+		}
+		SearchTreeNode created = new SearchTreeNode(key, heapValue);
+		created.epoch = currentEpoch;
+		return created;
 	}
 
 	/**
-	 * Updates the tree by reordering nodes based on their search frequencies. If a child node has a
-	 * higher search count than its parent, a rotation is performed to bring the child closer to the root.
+	 * Searches for a key and, if it is found, increments its search count and reorders the nodes on
+	 * the way back up. If a child node has a higher search count than its parent, a rotation is
+	 * performed to bring the child closer to the root.
 	 *
-	 * @param node The root of the subtree to be updated.
-	 * @param key  The key of the node whose frequency has changed.
-	 * @return     The updated root of the subtree after rebalancing.
+	 * @param node  The root of the subtree to be searched.
+	 * @param key   The key to search for.
+	 * @param found Single-element holder set to true when the key is found.
+	 * @return      The updated root of the subtree after rebalancing.
 	 */
-	private SearchTreeNode updateTreeBasedOnFrequency(SearchTreeNode node, String key) {
+	private TreapNode findAndPromote(TreapNode node, String key, boolean[] found) {
 		if (node == null) return null;
 
-		if (key.equals(node.key)) return node;
+		if (key.equals(node.key)) {
+			recordSearch(node);  // Increment the (decayed) search count for the found node
+			trackHotNode(node);
+			found[0] = true;
+			return node;
+		}
 
-		// Update the subtree and check whether rotation is needed based on search counts
+		// Search the subtree and check whether rotation is needed based on search counts
 		if (key.compareTo(node.key) < 0) {
-			return updateChildNodeFrequency(node, key, true); // True indicates left child
+			return promoteChild(node, key, true, found); // True indicates left child
 		} else {
-			return updateChildNodeFrequency(node, key, false); // False indicates right child
+			return promoteChild(node, key, false, found); // False indicates right child
 		}
 	}
 
 	/**
-	 * Updates the frequency count of a child node and performs rotations if the search count of the child
-	 * exceeds that of the parent.
+	 * Continues the search in one child of a node and performs a rotation if the search count of
+	 * that child now exceeds the search count of the node.
 	 *
-	 * @param node    The parent node whose child needs frequency update.
-	 * @param key     The key of the node whose search count has changed.
-	 * @param isLeft  True if the child is a left child, false if it's a right child.
-	 * @return        The updated parent node after potential rotations.
+	 * @param node   The parent node whose child is searched.
+	 * @param key    The key to search for.
+	 * @param isLeft True if the search continues in the left child, false for the right child.
+	 * @param found  Single-element holder set to true when the key is found.
+	 * @return       The updated parent node after potential rotations.
 	 */
-	private SearchTreeNode updateChildNodeFrequency(SearchTreeNode node, String key, boolean isLeft) {
+	private TreapNode promoteChild(TreapNode node, String key, boolean isLeft, boolean[] found) {
 		if (isLeft) {
-			// Update left child and check if rotation is needed
-			node.left = updateTreeBasedOnFrequency((SearchTreeNode) node.left, key);
-			if (node.left != null && ((SearchTreeNode) node.left).searchCount > node.searchCount) {
-				node = (SearchTreeNode) rightRotate(node); // Perform right rotation if left child's search count is greater
+			// Search left child and check if rotation is needed
+			node.left = findAndPromote(node.left, key, found);
+			if (found[0] && node.left != null && frequencyOf(node.left) > frequencyOf(node)) {
+				node = rightRotate(node); // Perform right rotation if left child's search count is greater
 			}
 		} else {
-			// Update right child and check if rotation is needed
-			node.right = updateTreeBasedOnFrequency((SearchTreeNode) node.right, key);
-			if (node.right != null && ((SearchTreeNode) node.right).searchCount > node.searchCount) {
-				node = (SearchTreeNode) leftRotate(node); // Perform left rotation if right child's search count is greater
+			// Search right child and check if rotation is needed
+			node.right = findAndPromote(node.right, key, found);
+			if (found[0] && node.right != null && frequencyOf(node.right) > frequencyOf(node)) {
+				node = leftRotate(node); // Perform left rotation if right child's search count is greater
 			}
 		}
 		return node;
 	}
-
-	/**
-	 * Helper method to find a node in the tree by its key.
-	 *
-	 * @param node The current node in the search tree.
-	 * @param key  The key of the node to be found.
-	 * @return     The node with the given key, or null if the key is not found.
-	 */
-	private TreapNode findNode(TreapNode node, String key) {
-		if (node == null) return null;
-
-		if (key.equals(node.key)) return node;
-
-		return key.compareTo(node.key) < 0
-				? findNode(node.left, key)   // Search in the left subtree if key is smaller
-				: findNode(node.right, key); // Search in the right subtree if key is larger
-	}
 }
@@ -1,3 +1,5 @@
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
@@ -255,4 +257,300 @@ public class SearchTreeTest {
 		assertTrue(tree.remove(longKey), "Should successfully remove long key");
 		assertFalse(tree.find(longKey), "Should not find long key after removal");
 	}
+
+	// ========== Tests for search count decay ==========
+	@Test
+	public void testSetDecayIntervalNegative() {
+		assertFalse(tree.setDecayInterval(-1), "Should reject a negative decay interval");
+	}
+
+	@Test
+	public void testFindWithDecayEnabled() {
+		assertTrue(tree.setDecayInterval(2), "Should accept a positive decay interval");
+		for (int i = 0; i < 20; i++) {
+			tree.add("key" + i);
+		}
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 20; i++) {
+				assertTrue(tree.find("key" + i), "Should find key" + i + " while counts decay");
+			}
+		}
+		assertEquals(20, tree.size(), "Size should be unaffected by decay");
+	}
+
+	@Test
+	public void testDecayPromotesRecentlyHotKey() {
+		tree.setDecayInterval(4);
+		tree.add("old");
+		tree.add("new");
+		for (int i = 0; i < 50; i++) tree.find("old");
+		for (int i = 0; i < 50; i++) tree.find("new");
+		assertEquals(1, tree.findPath("new").size(), "Recently hot key should be promoted to the root");
+	}
+
+	// ========== Tests for sampled promotion ==========
+	@Test
+	public void testSetSamplingRateOutOfRange() {
+		assertFalse(tree.setSamplingRate(-0.1), "Should reject a negative sampling rate");
+		assertFalse(tree.setSamplingRate(1.5), "Should reject a sampling rate above 1");
+		assertFalse(tree.setSamplingRate(Double.NaN), "Should reject NaN as a sampling rate");
+	}
+
+	@Test
+	public void testFindWithPromotionDisabled() {
+		assertTrue(tree.setSamplingRate(0.0), "Should accept a sampling rate of 0");
+		tree.add("apple");
+		tree.add("banana");
+		String rootBefore = tree.findPath("apple").get(tree.findPath("apple").size() - 1);
+		for (int i = 0; i < 10; i++) assertTrue(tree.find("banana"), "Should find 'banana' without counting");
+		assertEquals(rootBefore, tree.findPath("apple").get(tree.findPath("apple").size() - 1), "Root should not change when promotion is disabled");
+		assertFalse(tree.find("cherry"), "Should not find a missing key");
+	}
+
+	@Test
+	public void testFindWithPartialSampling() {
+		tree.setSamplingRate(0.5);
+		for (int i = 0; i < 50; i++) tree.add("key" + i);
+		for (int i = 0; i < 50; i++) assertTrue(tree.find("key" + i), "Should find key" + i + " with sampled promotion");
+		assertEquals(50, tree.size(), "Size should be unaffected by sampled promotion");
+	}
+
+	// ========== Tests for Count-Min sketch frequencies ==========
+	@Test
+	public void testSketchModeAddFindRemove() {
+		SearchTree sketchTree = new SearchTree(new CountMinSketch(256, 4, 1000));
+		for (int i = 0; i < 100; i++) assertTrue(sketchTree.add("key" + i), "Should add key" + i);
+		for (int i = 0; i < 100; i++) assertTrue(sketchTree.find("KEY" + i), "Should find key" + i + " case-insensitively");
+		assertTrue(sketchTree.remove("key50"), "Should remove 'key50'");
+		assertFalse(sketchTree.find("key50"), "Should not find 'key50' after removal");
+		assertEquals(99, sketchTree.size(), "Size should be 99 after one removal");
+	}
+
+	@Test
+	public void testSketchModePromotesHotKey() {
+		SearchTree sketchTree = new SearchTree(new CountMinSketch(256, 4, 0));
+		for (int i = 0; i < 20; i++) sketchTree.add("key" + i);
+		for (int i = 0; i < 100; i++) sketchTree.find("key7");
+		assertEquals(1, sketchTree.findPath("key7").size(), "Most searched key should be promoted to the root");
+	}
+
+	@Test
+	public void testCountMinSketchSeparatesEqualHashCodes() {
+		CountMinSketch sketch = new CountMinSketch(1024, 4, 0);
+		assertEquals("Aa".hashCode(), "BB".hashCode(), "Test keys should share a String hash code");
+		for (int i = 0; i < 100; i++) sketch.increment("Aa");
+		assertEquals(0, sketch.estimate("BB"), "Keys with equal hash codes should not share every counter");
+	}
+
+	@Test
+	public void testCountMinSketchEstimateAndAging() {
+		CountMinSketch sketch = new CountMinSketch(64, 3, 0);
+		for (int i = 0; i < 10; i++) sketch.increment("apple");
+		assertTrue(sketch.estimate("apple") >= 10, "Estimate should never undercount");
+		sketch.age();
+		assertTrue(sketch.estimate("apple") >= 5 && sketch.estimate("apple") < 10, "Aging should halve the counters");
+		assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 1, 0), "Should reject a zero width");
+	}
+
+	// ========== Tests for heap value generation ==========
+	@Test
+	public void testHashedPrioritiesGiveCanonicalShape() {
+		SearchTree reversed = new SearchTree();
+		tree.setHashedPriorities(true);
+		reversed.setHashedPriorities(true);
+		for (int i = 0; i < 200; i++) tree.add("key" + i);
+		for (int i = 199; i >= 0; i--) reversed.add("key" + i);
+		for (int i = 0; i < 200; i++) {
+			assertEquals(tree.findPath("key" + i), reversed.findPath("key" + i), "Path to key" + i + " should not depend on insertion order");
+		}
+	}
+
+	@Test
+	public void testRandomPrioritiesKeepSortedInsertShallow() {
+		for (int i = 0; i < 2000; i++) tree.add(String.format("key%05d", i));
+		int maxDepth = 0;
+		for (int i = 0; i < 2000; i++) maxDepth = Math.max(maxDepth, tree.findPath(String.format("key%05d", i)).size());
+		assertTrue(maxDepth < 100, "Sorted insertion should not degenerate the tree, depth was " + maxDepth);
+	}
+
+	// ========== Tests for the bounded (LFU) search tree ==========
+	@Test
+	public void testBoundedTreeStaysWithinCapacity() {
+		BoundedSearchTree bounded = new BoundedSearchTree(10);
+		for (int i = 0; i < 100; i++) assertTrue(bounded.add("key" + i), "Should add key" + i);
+		assertEquals(10, bounded.size(), "Size should never exceed the capacity");
+		assertEquals(90, bounded.evictions(), "Every add beyond capacity should evict one key");
+		assertTrue(bounded.find("key99"), "The key added last should not be evicted");
+	}
+
+	@Test
+	public void testBoundedTreeKeepsHotKey() {
+		BoundedSearchTree bounded = new BoundedSearchTree(5);
+		bounded.add("hot");
+		for (int i = 0; i < 50; i++) bounded.find("hot");
+		for (int i = 0; i < 100; i++) bounded.add("cold" + i);
+		assertTrue(bounded.find("hot"), "The most searched key should survive eviction");
+	}
+
+	@Test
+	public void testBoundedTreeRejectsInvalidCapacity() {
+		assertThrows(IllegalArgumentException.class, () -> new BoundedSearchTree(0), "Should reject a zero capacity");
+	}
+
+	@Test
+	public void testBoundedTreeSortedInsertsStayBalanced() {
+		BoundedSearchTree bounded = new BoundedSearchTree(200_000);
+		for (int i = 0; i < 100_000; i++) assertTrue(bounded.add(String.format("k%07d", i)), "Should add key " + i);
+		assertEquals(100_000, bounded.size(), "Every key should be kept below the capacity");
+		assertTrue(bounded.findDepth("k0099999") < 100, "Sorted inserts should not degenerate into a list");
+		assertTrue(bounded.find("k0000000"), "Should find the first key");
+	}
+
+	// ========== Tests for hottest(k) ==========
+	@Test
+	public void testHottestOrdersBySearchCount() {
+		for (int i = 0; i < 20; i++) tree.add("key" + i);
+		for (int i = 0; i < 5; i++) {
+			for (int j = 0; j <= 10 * i; j++) tree.find("key" + i);
+		}
+		assertEquals(List.of("key4", "key3", "key2"), tree.hottest(3), "Should list the most searched keys first");
+	}
+
+	@Test
+	public void testHottestReplacesDecayedKeys() {
+		assertTrue(tree.setHotKeyCapacity(4), "Should accept a positive capacity");
+		for (int i = 0; i < 40; i++) tree.add("key" + i);
+		for (int i = 0; i < 4; i++) {
+			for (int j = 0; j < 200; j++) tree.find("key" + i);
+		}
+		assertTrue(tree.setDecayInterval(10), "Should accept a decay interval");
+		for (int i = 0; i < 2000; i++) tree.find("key30");
+		assertEquals("key30", tree.hottest(2).get(0), "A newly hot key should displace keys whose counts have decayed");
+	}
+
+	@Test
+	public void testHottestDoesNotPromote() {
+		for (int i = 0; i < 20; i++) tree.add("key" + i);
+		for (int i = 0; i < 30; i++) tree.find("key7");
+		List<String> pathBefore = tree.findPath("key3");
+		tree.hottest(5);
+		assertEquals(pathBefore, tree.findPath("key3"), "Reading the report should not rotate nodes");
+	}
+
+	@Test
+	public void testHottestSkipsRemovedKeys() {
+		tree.add("apple");
+		tree.add("banana");
+		for (int i = 0; i < 5; i++) tree.find("apple");
+		tree.find("banana");
+		assertTrue(tree.remove("apple"), "Should remove 'apple'");
+		assertFalse(tree.hottest(5).contains("apple"), "Removed key should not be reported");
+		assertTrue(tree.hottest(5).contains("banana"), "Remaining searched key should be reported");
+	}
+
+	@Test
+	public void testSetHotKeyCapacity() {
+		assertFalse(tree.setHotKeyCapacity(0), "Should reject a zero capacity");
+		assertTrue(tree.setHotKeyCapacity(2), "Should accept a positive capacity");
+		for (int i = 0; i < 5; i++) {
+			tree.add("key" + i);
+			tree.find("key" + i);
+		}
+		assertEquals(2, tree.hottest(10).size(), "Report should be limited by the capacity");
+	}
+
+	// ========== Tests for the Bloom filter ==========
+	@Test
+	public void testBloomFilterGuardsFind() {
+		tree.setBloomFilter(100, 10);
+		for (int i = 0; i < 100; i++) assertTrue(tree.add("key" + i), "Should add key" + i);
+		for (int i = 0; i < 100; i++) assertTrue(tree.find("KEY" + i), "Should find key" + i + " through the filter");
+		assertFalse(tree.find("absent"), "Should not find an absent key");
+		assertTrue(tree.remove("key10"), "Should remove 'key10'");
+		assertFalse(tree.find("key10"), "Should not find 'key10' after removal");
+	}
+
+	// ========== Tests for the lookup cache ==========
+	@Test
+	public void testLookupCacheServesUncountedSearches() {
+		tree.setLookupCache(16);
+		tree.setSamplingRate(0.0);
+		for (int i = 0; i < 20; i++) tree.add("key" + i);
+		for (int i = 0; i < 3; i++) assertTrue(tree.find("Key7"), "Should find 'Key7'");
+		assertEquals(2, tree.lookupCache.hits(), "Repeated uncounted searches should hit the cache");
+		assertTrue(tree.remove("key7"), "Should remove 'key7'");
+		assertFalse(tree.find("Key7"), "Should not find 'Key7' after removal");
+
+		tree.setSamplingRate(1.0);
+		long lookups = tree.lookupCache.lookups();
+		assertTrue(tree.find("key8"), "Should find 'key8'");
+		assertEquals(lookups, tree.lookupCache.lookups(), "Counted searches should bypass the cache");
+	}
+
+	// ========== Tests for rebuild() ==========
+	@Test
+	public void testRebuildKeepsKeysInOrder() {
+		for (int i = 0; i < 50; i++) tree.add("key" + (char) ('a' + i % 26) + i);
+		List<String> keysBefore = tree.keys();
+		for (int i = 0; i < 20; i++) tree.find("keyc2");
+		tree.rebuild();
+		assertEquals(keysBefore, tree.keys(), "Rebuild should keep every key in sorted order");
+		for (String key : keysBefore) assertTrue(tree.find(key), "Should find '" + key + "' after the rebuild");
+		assertEquals(1, tree.rebuilds(), "One rebuild should be applied");
+	}
+
+	@Test
+	public void testRebuildPutsHottestKeyAtRoot() {
+		for (int i = 0; i < 30; i++) tree.add("key" + i);
+		tree.setSamplingRate(0.0);
+		for (int i = 0; i < 100; i++) tree.find("key17");
+		tree.setSamplingRate(1.0);
+		for (int i = 0; i < 100; i++) tree.find("key17");
+		tree.rebuild();
+		assertEquals(0, tree.findDepth("key17"), "The key with most of the weight should become the root");
+	}
+
+	@Test
+	public void testRebuildOfEmptyTree() {
+		tree.rebuild();
+		assertEquals(0, tree.size(), "Empty tree should stay empty");
+		assertTrue(tree.add("apple"), "Should add 'apple' after rebuilding an empty tree");
+		assertTrue(tree.find("apple"), "Should find 'apple'");
+	}
+
+	@Test
+	public void testBackgroundRebuildIsApplied() throws InterruptedException {
+		for (int i = 0; i < 100; i++) tree.add("key" + i);
+		for (int i = 0; i < 50; i++) tree.find("key42");
+		assertTrue(tree.rebuildInBackground(), "Should start a rebuild");
+		long deadline = System.currentTimeMillis() + 5000;
+		while (tree.rebuilds() == 0 && System.currentTimeMillis() < deadline) {
+			assertTrue(tree.find("key1"), "Should find 'key1' while the rebuild runs");
+			Thread.sleep(1);
+		}
+		assertEquals(1, tree.rebuilds(), "The finished rebuild should be applied by a later find");
+		assertEquals(100, tree.keys().size(), "Every key should survive the rebuild");
+		assertTrue(tree.rebuildInBackground(), "Should start another rebuild once the first was applied");
+	}
+
+	@Test
+	public void testBackgroundRebuildDroppedAfterKeyChange() throws InterruptedException {
+		for (int i = 0; i < 100; i++) tree.add("key" + i);
+		assertTrue(tree.rebuildInBackground(), "Should start a rebuild");
+		assertFalse(tree.rebuildInBackground(), "Should not start a second rebuild while one is pending");
+		Thread.sleep(100);
+		int heapValue = 1;
+		while (!tree.add("key100", heapValue)) heapValue++; // Treap.add() does not apply the plan first
+		for (int i = 0; i < 10; i++) tree.find("key1");
+		assertEquals(0, tree.rebuilds(), "A plan started before an insertion should be dropped");
+		assertTrue(tree.find("key100"), "Key added while the plan was computed should be found");
+		assertEquals(101, tree.keys().size(), "Every key should be intact");
+	}
+
+	@Test
+	public void testSetRebuildInterval() {
+		assertFalse(tree.setRebuildInterval(-1), "Should reject a negative interval");
+		assertTrue(tree.setRebuildInterval(0), "Should accept 0 to disable rebuilds");
+		assertTrue(tree.setRebuildInterval(10), "Should accept a positive interval");
+	}
 }
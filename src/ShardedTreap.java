@@ -0,0 +1,422 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The ShardedTreap class spreads one key space over several independent Treap shards so that
+ * threads working on different key ranges do not serialize on a single root. Shard i holds the
+ * keys from split point i - 1 (inclusive) to split point i (exclusive), and every shard has its own
+ * lock, so operations on different shards run in parallel.
+ *
+ * Split points are taken from a sample of keys (the constructor's sample, or all keys on build()).
+ * When inserts skew the data so that one shard grows to more than twice the average size of the
+ * other shards, the shards are rebalanced; growth that keeps the shards even never triggers one.
+ * The nodes of all shards are collected in key order, new split points are chosen at the
+ * quantiles and every shard is relinked from its slice in linear time. A
+ * read/write lock around the layout lets normal operations proceed together while a rebalance
+ * runs exclusively.
+ *
+ * Each shard is a plain Treap, so its rules apply per shard: heap values must be positive and
+ * unique within the shard, and findPath() reports the path to the root of the key's shard.
+ */
+public class ShardedTreap implements Searchable, Iterable<String> {
+
+	// Shard size below which skew is not worth a rebalance
+	private static final int MIN_REBALANCE_SIZE = 1024;
+
+	// A shard larger than this many times the average of the other shards triggers a rebalance
+	private static final int SKEW_FACTOR = 2;
+
+	// The shards, in key order
+	private final Treap[] shards;
+
+	// One lock per shard
+	private final ReentrantLock[] shardLocks;
+
+	// Guards splitPoints and the assignment of keys to shards
+	private final ReentrantReadWriteLock layoutLock;
+
+	// Lowest key of shards 1..n-1; shard i holds keys k with splitPoints[i-1] <= k < splitPoints[i]
+	private String[] splitPoints;
+
+	// Shard size that triggers the next rebalance
+	private volatile int rebalanceLimit;
+
+	// Number of rebalances performed
+	private volatile int rebalances;
+
+	/**
+	 * Constructs a sharded treap whose split points are chosen from a sample of expected keys.
+	 *
+	 * @param shardCount The number of shards; must be positive.
+	 * @param sample     Keys representative of the data, or null or empty to start with all keys in
+	 *                   the first shard until the first rebalance.
+	 */
+	public ShardedTreap(int shardCount, String[] sample) {
+		if (shardCount <= 0) throw new IllegalArgumentException("shardCount must be positive");
+		this.shards = new Treap[shardCount];
+		this.shardLocks = new ReentrantLock[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			shards[i] = new Treap();
+			shardLocks[i] = new ReentrantLock();
+		}
+		this.layoutLock = new ReentrantReadWriteLock();
+		this.splitPoints = sample == null ? new String[0] : splitPointsFrom(sample, shardCount);
+		this.rebalanceLimit = MIN_REBALANCE_SIZE;
+		this.rebalances = 0;
+	}
+
+	/**
+	 * Constructs a sharded treap without a key sample; split points are chosen by the first rebalance.
+	 *
+	 * @param shardCount The number of shards; must be positive.
+	 */
+	public ShardedTreap(int shardCount) {
+		this(shardCount, null);
+	}
+
+	// ==================== Helper Methods ====================
+
+	/**
+	 * Helper method to choose split points at the quantiles of a key sample. Duplicate quantiles
+	 * are dropped, so heavily repeated samples give fewer, never empty-ranged, split points.
+	 *
+	 * @param sample     The sample keys, in any order and case.
+	 * @param shardCount The number of shards.
+	 * @return           Strictly increasing lowercase split points, at most shardCount - 1 of them.
+	 */
+	private static String[] splitPointsFrom(String[] sample, int shardCount) {
+		List<String> sorted = new ArrayList<>(sample.length);
+		for (String key : sample) if (key != null) sorted.add(key.toLowerCase());
+		sorted.sort(null);
+
+		List<String> points = new ArrayList<>(shardCount - 1);
+		for (int i = 1; i < shardCount && !sorted.isEmpty(); i++) {
+			String point = sorted.get((int) ((long) i * sorted.size() / shardCount));
+			if (points.isEmpty() || point.compareTo(points.get(points.size() - 1)) > 0) points.add(point);
+		}
+		return points.toArray(new String[0]);
+	}
+
+	/**
+	 * Helper method to find the shard responsible for a key. The caller must hold the layout lock.
+	 *
+	 * @param lowerKey The lowercase key.
+	 * @return         The index of the shard.
+	 */
+	private int shardOf(String lowerKey) {
+		int index = Arrays.binarySearch(splitPoints, lowerKey);
+		return index >= 0 ? index + 1 : -index - 1;
+	}
+
+	/**
+	 * The ShardOperation interface is one operation on the shard that owns a key.
+	 */
+	private interface ShardOperation<T> {
+		T apply(Treap shard, String lowerKey);
+	}
+
+	/**
+	 * Helper method to run an operation on the shard of a key under the layout read lock and that
+	 * shard's lock.
+	 *
+	 * @param key       The key, not yet lowercased; must not be null.
+	 * @param operation The operation to run.
+	 * @return          The result of the operation.
+	 */
+	private <T> T onShard(String key, ShardOperation<T> operation) {
+		String lowerKey = key.toLowerCase();
+		layoutLock.readLock().lock();
+		try {
+			int index = shardOf(lowerKey);
+			shardLocks[index].lock();
+			try {
+				return operation.apply(shards[index], lowerKey);
+			} finally {
+				shardLocks[index].unlock();
+			}
+		} finally {
+			layoutLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Helper method to lock every shard in index order, for operations that need a consistent view
+	 * of all shards. The caller must hold the layout lock.
+	 */
+	private void lockAllShards() {
+		for (ReentrantLock lock : shardLocks) lock.lock();
+	}
+
+	/**
+	 * Helper method to release the locks taken by lockAllShards().
+	 */
+	private void unlockAllShards() {
+		for (int i = shardLocks.length - 1; i >= 0; i--) shardLocks[i].unlock();
+	}
+
+	// ==================== Add Method ====================
+
+	/**
+	 * Adds a key to its shard and rebalances if that shard has grown too large.
+	 *
+	 * @param key       The key to be added.
+	 * @param heapValue The associated heap value.
+	 * @return          True if the node was added, false otherwise.
+	 */
+	public boolean add(String key, int heapValue) {
+		if (key == null) return false;
+		int[] shardSize = new int[1];
+		boolean added = onShard(key, (shard, lowerKey) -> {
+			boolean result = shard.add(lowerKey, heapValue);
+			shardSize[0] = shard.size();
+			return result;
+		});
+		if (added && shardSize[0] > rebalanceLimit) rebalanceIfSkewed();
+		return added;
+	}
+
+	// ==================== Build Method ====================
+
+	/**
+	 * Replaces the contents with the given keys, choosing split points from the keys themselves.
+	 *
+	 * @param keys       Array of keys to be inserted.
+	 * @param heapValues Array of heap values corresponding to the keys.
+	 * @return           True if the treap was built successfully, false otherwise.
+	 */
+	public boolean build(String[] keys, int[] heapValues) {
+		if (keys == null || heapValues == null || keys.length != heapValues.length) return false;
+		layoutLock.writeLock().lock();
+		try {
+			splitPoints = splitPointsFrom(keys, shards.length);
+			for (int i = 0; i < shards.length; i++) shards[i] = new Treap();
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] != null) shards[shardOf(keys[i].toLowerCase())].add(keys[i], heapValues[i]);
+			}
+			updateRebalanceLimit();
+		} finally {
+			layoutLock.writeLock().unlock();
+		}
+		return true;
+	}
+
+	// ==================== Find / FindPath Methods ====================
+
+	/**
+	 * Finds if a key exists in its shard.
+	 *
+	 * @param key The key to search for.
+	 * @return    True if the key is found, false otherwise.
+	 */
+	public boolean find(String key) {
+		return key != null && onShard(key, Treap::find);
+	}
+
+	/**
+	 * Returns the path from the node with the given key to the root of its shard.
+	 *
+	 * @param key The key whose path is to be found.
+	 * @return    A list of keys from the node to the shard root, or null if the key is not found.
+	 */
+	public List<String> findPath(String key) {
+		return key == null ? null : onShard(key, Treap::findPath);
+	}
+
+	// ==================== ChangeOrder / Remove Methods ====================
+
+	/**
+	 * Changes the heap value of a key within its shard.
+	 *
+	 * @param key          The key whose heap value is to be changed.
+	 * @param newHeapValue The new heap value.
+	 * @return             True if the order was successfully changed, false otherwise.
+	 */
+	public boolean changeOrder(String key, int newHeapValue) {
+		return key != null && onShard(key, (shard, lowerKey) -> shard.changeOrder(lowerKey, newHeapValue));
+	}
+
+	/**
+	 * Removes a key from its shard.
+	 *
+	 * @param key The key of the node to be removed.
+	 * @return    True if the node was removed, false otherwise.
+	 */
+	public boolean remove(String key) {
+		return key != null && onShard(key, Treap::remove);
+	}
+
+	// ==================== Size / Keys Methods ====================
+
+	/**
+	 * Returns the total number of keys in all shards.
+	 *
+	 * @return The number of nodes.
+	 */
+	public int size() {
+		layoutLock.readLock().lock();
+		lockAllShards();
+		try {
+			int total = 0;
+			for (Treap shard : shards) total += shard.size();
+			return total;
+		} finally {
+			unlockAllShards();
+			layoutLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns all keys in ascending order. Shards cover consecutive key ranges, so the merged
+	 * order is the shards' key lists one after another.
+	 *
+	 * @return A new list of all keys.
+	 */
+	public List<String> keys() {
+		layoutLock.readLock().lock();
+		lockAllShards();
+		try {
+			List<String> keys = new ArrayList<>();
+			for (Treap shard : shards) keys.addAll(shard.keys());
+			return keys;
+		} finally {
+			unlockAllShards();
+			layoutLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns an iterator over a snapshot of all keys in ascending order.
+	 *
+	 * @return An iterator over the keys.
+	 */
+	@Override
+	public Iterator<String> iterator() {
+		return keys().iterator();
+	}
+
+	/**
+	 * Returns the number of keys in each shard, for monitoring the balance.
+	 *
+	 * @return The shard sizes in key order.
+	 */
+	public int[] shardSizes() {
+		layoutLock.readLock().lock();
+		lockAllShards();
+		try {
+			int[] sizes = new int[shards.length];
+			for (int i = 0; i < shards.length; i++) sizes[i] = shards[i].size();
+			return sizes;
+		} finally {
+			unlockAllShards();
+			layoutLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of rebalances performed so far.
+	 *
+	 * @return The rebalance count.
+	 */
+	public int rebalances() {
+		return rebalances;
+	}
+
+	// ==================== Rebalancing ====================
+
+	/**
+	 * Helper method to rebalance unless another thread already did so since the caller saw the skew.
+	 */
+	private void rebalanceIfSkewed() {
+		layoutLock.writeLock().lock();
+		try {
+			int largest = 0;
+			for (Treap shard : shards) largest = Math.max(largest, shard.size());
+			if (largest > rebalanceLimit && largest > skewLimit()) rebalance();
+			else updateRebalanceLimit(); // The shards grew evenly; only the limit is out of date
+		} finally {
+			layoutLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Redistributes all keys so that every shard holds about the same number. The nodes of all
+	 * shards are collected in key order, new split points are taken at the quantiles of the keys
+	 * and each shard's treap is relinked from its slice of nodes, reusing the node objects.
+	 */
+	public void rebalance() {
+		layoutLock.writeLock().lock();
+		try {
+			List<TreapNode> nodes = new ArrayList<>();
+			for (Treap shard : shards) nodes.addAll(Arrays.asList(shard.inOrderNodes()));
+
+			String[] keys = new String[nodes.size()];
+			for (int i = 0; i < keys.length; i++) keys[i] = nodes.get(i).key;
+			splitPoints = splitPointsFrom(keys, shards.length);
+
+			// Assign by split point rather than by position, so that equal keys stay in one shard
+			int from = 0;
+			for (int i = 0; i < shards.length; i++) {
+				int to = from;
+				while (to < keys.length && shardOf(keys[to]) == i) to++;
+				TreapNode[] slice = nodes.subList(from, to).toArray(new TreapNode[0]);
+				shards[i].root = shards[i].rebuildHeapOrder(slice);
+				shards[i].count = slice.length;
+				from = to;
+			}
+			updateRebalanceLimit();
+			rebalances++;
+		} finally {
+			layoutLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Helper method to compute the size above which the largest shard counts as skewed:
+	 * SKEW_FACTOR times the average size of the other shards. Comparing with the others rather
+	 * than with the average of all shards keeps the test meaningful for two or three shards,
+	 * where the largest shard dominates the overall average. The caller must hold the layout
+	 * write lock.
+	 *
+	 * @return The skew limit, or Long.MAX_VALUE if there is only one shard.
+	 */
+	private long skewLimit() {
+		if (shards.length == 1) return Long.MAX_VALUE;
+		int largest = 0;
+		long total = 0;
+		for (Treap shard : shards) {
+			largest = Math.max(largest, shard.size());
+			total += shard.size();
+		}
+		return SKEW_FACTOR * ((total - largest) / (shards.length - 1));
+	}
+
+	/**
+	 * Helper method to set the shard size at which add() checks for skew: the skew limit, but at
+	 * least MIN_REBALANCE_SIZE. If a shard is already above the skew limit, because equal keys
+	 * make it impossible to split, the limit is SKEW_FACTOR times that shard instead, which keeps
+	 * rebalances amortized. The caller must hold the layout write lock.
+	 */
+	private void updateRebalanceLimit() {
+		int largest = 0;
+		for (Treap shard : shards) largest = Math.max(largest, shard.size());
+		long limit = skewLimit();
+		if (largest > limit) limit = (long) SKEW_FACTOR * largest;
+		rebalanceLimit = (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_REBALANCE_SIZE, limit));
+	}
+
+	/**
+	 * Returns a shard for direct bulk loading by code in this package, such as benchmarks. The
+	 * caller must not use the treap concurrently and must call rebalance() afterwards, since the
+	 * loaded keys may not belong to the shard.
+	 *
+	 * @param index The index of the shard.
+	 * @return      The shard.
+	 */
+	Treap shard(int index) {
+		return shards[index];
+	}
+}
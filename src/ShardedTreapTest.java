@@ -0,0 +1,104 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ShardedTreapTest {
+
+	// ========================= Routing Tests =========================
+
+	@Test
+	public void testOperationsRouteToShards() {
+		ShardedTreap treap = new ShardedTreap(3, new String[] {"a", "h", "p", "z"});
+		assertTrue(treap.add("Apple", 10));
+		assertTrue(treap.add("melon", 20));
+		assertTrue(treap.add("zucchini", 30));
+		assertTrue(treap.find("APPLE"));
+		assertFalse(treap.find("banana"));
+		assertTrue(treap.changeOrder("melon", 40));
+		assertEquals(List.of("melon"), treap.findPath("melon"));  // Path within its shard
+		assertTrue(treap.remove("zucchini"));
+		assertFalse(treap.remove("zucchini"));
+		assertEquals(2, treap.size());
+	}
+
+	@Test
+	public void testInvalidArguments() {
+		ShardedTreap treap = new ShardedTreap(4);
+		assertFalse(treap.add(null, 5));
+		assertFalse(treap.find(null));
+		assertNull(treap.findPath(null));
+		assertFalse(treap.build(new String[] {"a"}, new int[0]));
+		assertThrows(IllegalArgumentException.class, () -> new ShardedTreap(0));
+	}
+
+	// ========================= Keys() / Size() Tests =========================
+
+	@Test
+	public void testKeysMergeAcrossShards() {
+		ShardedTreap treap = new ShardedTreap(4);
+		String[] keys = {"delta", "alpha", "echo", "charlie", "bravo", "foxtrot", "golf", "hotel"};
+		int[] heapValues = {8, 7, 6, 5, 4, 3, 2, 1};
+		assertTrue(treap.build(keys, heapValues));
+		assertEquals(List.of("alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel"), treap.keys());
+		assertEquals(8, treap.size());
+
+		List<String> iterated = new ArrayList<>();
+		for (String key : treap) iterated.add(key);
+		assertEquals(treap.keys(), iterated);
+	}
+
+	// ========================= Rebalance Tests =========================
+
+	@Test
+	public void testSkewedInsertsTriggerRebalance() {
+		ShardedTreap treap = new ShardedTreap(4, new String[] {"a", "b", "c", "d"});
+		Random random = new Random(42);
+		for (int i = 0; i < 10_000; i++) assertTrue(treap.add("zz" + i, 1 + random.nextInt(Integer.MAX_VALUE - 1)));  // All past the last split point
+
+		assertTrue(treap.rebalances() > 0);
+		for (int size : treap.shardSizes()) assertTrue(size > 1000);  // Spread over all shards again
+		assertEquals(10_000, treap.size());
+		assertTrue(treap.find("zz1234"));
+	}
+
+	@Test
+	public void testSkewedInsertsRebalanceTwoShards() {
+		ShardedTreap treap = new ShardedTreap(2);
+		for (int i = 0; i < 20_000; i++) assertTrue(treap.add(String.format("key%05d", i), i + 1));  // Ascending: always the last shard
+
+		int[] sizes = treap.shardSizes();
+		int largest = Math.max(sizes[0], sizes[1]);
+		int smallest = Math.min(sizes[0], sizes[1]);
+		assertTrue(largest <= 2 * smallest + 1);  // Never more than twice the other shard
+		assertEquals(20_000, treap.size());
+	}
+
+	@Test
+	public void testEvenGrowthDoesNotRebalance() {
+		ShardedTreap treap = new ShardedTreap(4);
+		Random random = new Random(42);
+		String[] keys = new String[4000];
+		int[] heapValues = new int[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = String.format("%08d", random.nextInt(100_000_000));
+			heapValues[i] = 1 + random.nextInt(Integer.MAX_VALUE - 1);
+		}
+		assertTrue(treap.build(keys, heapValues));
+		for (int i = 0; i < 40_000; i++) treap.add(String.format("%08d", random.nextInt(100_000_000)), 1 + random.nextInt(Integer.MAX_VALUE - 1));
+
+		assertEquals(0, treap.rebalances());  // Every shard grew about tenfold, none beyond twice the average
+	}
+
+	@Test
+	public void testRebalanceKeepsKeys() {
+		ShardedTreap treap = new ShardedTreap(3);
+		for (int i = 0; i < 30; i++) treap.add("key" + i, i + 1);  // No sample: all in the first shard
+		treap.rebalance();
+		assertArrayEquals(new int[] {10, 10, 10}, treap.shardSizes());
+		for (int i = 0; i < 30; i++) assertTrue(treap.find("key" + i));
+	}
+}
@@ -0,0 +1,568 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The TombstoneTreap class is a thread-safe Treap that deletes lazily. remove() descends once to
+ * the node and marks it as a tombstone instead of rotating it down to a leaf; find(), the path
+ * lookups and the key scans treat tombstones as absent, and size() counts only live keys. Once
+ * tombstones make up more than a configurable share of the nodes, a background thread removes
+ * them physically in batches, taking the treap's lock for one batch at a time so callers are
+ * never blocked for a whole purge.
+ *
+ * Adding a key whose node is a tombstone inserts a fresh node next to it; the tombstone is
+ * dropped by the next purge. Heap values of tombstones may be reused right away.
+ */
+public class TombstoneTreap extends Treap {
+
+	/**
+	 * The TombstoneNode class extends TreapNode with a flag that marks the node as removed.
+	 */
+	protected static class TombstoneNode extends TreapNode {
+		boolean deleted; // True once the key has been removed but the node is still linked
+
+		/**
+		 * Constructs a new live TombstoneNode with the specified key and heap value.
+		 *
+		 * @param key       The key to be stored in this node.
+		 * @param heapValue The priority value for maintaining the heap property.
+		 */
+		public TombstoneNode(String key, int heapValue) {
+			super(key, heapValue);
+			this.deleted = false;
+		}
+	}
+
+	// Default share of tombstones among all nodes above which a purge is started
+	public static final double DEFAULT_PURGE_RATIO = 0.25;
+
+	// Tombstones needed before any purge is started, so small treaps are not purged constantly
+	private static final int MIN_PURGE_SIZE = 64;
+
+	// Number of nodes a purge examines while holding the lock once
+	private static final int PURGE_BATCH = 4096;
+
+	// Thread shared by all instances that runs the background purges
+	private static ExecutorService purgeExecutor;
+
+	// Share of tombstones among all nodes above which a purge is started
+	private final double purgeRatio;
+
+	// Number of nodes that are marked as tombstones but still linked into the treap
+	private int tombstones;
+
+	// Set while a background purge is queued or running
+	private boolean purgeScheduled;
+
+	// Number of tombstones removed by purges so far
+	private long purged;
+
+	/**
+	 * Constructs an empty tombstone treap with the default purge ratio.
+	 */
+	public TombstoneTreap() {
+		this(DEFAULT_PURGE_RATIO);
+	}
+
+	/**
+	 * Constructs an empty tombstone treap.
+	 *
+	 * @param purgeRatio The share of tombstones among all nodes (between 0 and 1, exclusive) above
+	 *                   which the tombstones are purged in the background.
+	 */
+	public TombstoneTreap(double purgeRatio) {
+		if (!(purgeRatio > 0 && purgeRatio < 1)) throw new IllegalArgumentException("purgeRatio must be between 0 and 1");
+		this.purgeRatio = purgeRatio;
+		this.tombstones = 0;
+		this.purgeScheduled = false;
+		this.purged = 0;
+	}
+
+	// ==================== Helper Methods ====================
+
+	/**
+	 * Creates a TombstoneNode instead of a TreapNode for each new key.
+	 *
+	 * @param key       The lowercase key of the new node.
+	 * @param heapValue The heap value of the new node.
+	 * @return          The new node.
+	 */
+	@Override
+	protected TreapNode createNode(String key, int heapValue) {
+		return new TombstoneNode(key, heapValue);
+	}
+
+	/**
+	 * Helper method to check whether a node is a tombstone.
+	 */
+	private static boolean isTombstone(TreapNode node) {
+		return ((TombstoneNode) node).deleted;
+	}
+
+	/**
+	 * Finds the live node with the given key. Equal keys can sit on either side of a tombstone
+	 * with the same key, so both subtrees of such a tombstone are searched.
+	 *
+	 * @param node The root of the subtree to search.
+	 * @param key  The lowercase key to search for.
+	 * @return     The live node with the key, or null if there is none.
+	 */
+	private TreapNode locateLive(TreapNode node, String key) {
+		while (node != null) {
+			int cmp = key.compareTo(node.key);
+			if (cmp == 0) {
+				if (!isTombstone(node)) return node;
+				TreapNode found = locateLive(node.right, key);
+				return found != null ? found : locateLive(node.left, key);
+			}
+			node = cmp < 0 ? node.left : node.right;
+		}
+		return null;
+	}
+
+	/**
+	 * Helper method to check whether a live node already uses a heap value.
+	 */
+	private boolean hasLiveHeapValue(TreapNode node, int heapValue) {
+		if (node == null) return false;
+		return (node.heapValue == heapValue && !isTombstone(node)) ||
+				hasLiveHeapValue(node.left, heapValue) ||
+				hasLiveHeapValue(node.right, heapValue);
+	}
+
+	// ==================== Add and Build Methods ====================
+
+	/**
+	 * Adds a new node with the given key and heap value. Only live nodes count as duplicates of
+	 * the heap value.
+	 *
+	 * @param key       The key to be added.
+	 * @param heapValue The associated heap value.
+	 * @return          True if the node was added, false otherwise.
+	 */
+	@Override
+	public synchronized boolean add(String key, int heapValue) {
+		if (!isValidKey(key) || heapValue <= 0 || hasLiveHeapValue(root, heapValue)) return false;
+		root = insertNode(root, key.toLowerCase(), heapValue);
+		count++;
+		return true;
+	}
+
+	/**
+	 * Builds the treap from arrays of keys and heap values, dropping all tombstones.
+	 *
+	 * @param keys       Array of keys to be inserted.
+	 * @param heapValues Array of heap values corresponding to the keys.
+	 * @return           True if the treap was built successfully, false otherwise.
+	 */
+	@Override
+	public synchronized boolean build(String[] keys, int[] heapValues) {
+		if (keys == null || heapValues == null || keys.length != heapValues.length) return false;
+		tombstones = 0;
+		return super.build(keys, heapValues);
+	}
+
+	// ==================== Find Methods ====================
+
+	/**
+	 * Finds if a live node with the given key exists.
+	 *
+	 * @param key The key to search for.
+	 * @return    True if the key is found, false otherwise.
+	 */
+	@Override
+	public synchronized boolean find(String key) {
+		return isValidKey(key) && locateLive(root, key.toLowerCase()) != null;
+	}
+
+	/**
+	 * Finds the path from the live node with the given key to the root. Tombstones above the node
+	 * are still linked into the tree and therefore appear on the path.
+	 *
+	 * @param key  The key whose path to the root is to be found.
+	 * @param path The buffer that receives the keys from the node to the root; cleared first.
+	 * @return     True if a live node with the key was found, false otherwise.
+	 */
+	@Override
+	public synchronized boolean findPath(String key, PathBuffer path) {
+		path.clear();
+		if (!isValidKey(key)) return false;
+
+		List<TreapNode> nodes = new ArrayList<>();
+		TreapNode target = locateLive(root, key.toLowerCase());
+		if (target == null || !collectPath(root, target, nodes)) return false;
+		for (int i = nodes.size() - 1; i >= 0; i--) path.append(nodes.get(i).key);
+		return true;
+	}
+
+	/**
+	 * Helper method to collect the nodes from the root of a subtree down to a given node, which
+	 * may sit on either side of a tombstone with the same key.
+	 *
+	 * @param node   The root of the subtree to search.
+	 * @param target The node to reach.
+	 * @param nodes  Receives the nodes in root-to-target order; left unchanged if the target is not found.
+	 * @return       True if the target is in the subtree.
+	 */
+	private boolean collectPath(TreapNode node, TreapNode target, List<TreapNode> nodes) {
+		int mark = nodes.size();
+		while (node != null) {
+			nodes.add(node);
+			if (node == target) return true;
+			int cmp = target.key.compareTo(node.key);
+			if (cmp == 0) {
+				if (collectPath(node.right, target, nodes) || collectPath(node.left, target, nodes)) return true;
+				break;
+			}
+			node = cmp < 0 ? node.left : node.right;
+		}
+		nodes.subList(mark, nodes.size()).clear();
+		return false;
+	}
+
+	/**
+	 * Returns the depth of the live node with the given key.
+	 *
+	 * @param key The key to look up.
+	 * @return    The number of edges between the root and the node, or -1 if the key is not found.
+	 */
+	@Override
+	public synchronized int findDepth(String key) {
+		PathBuffer path = new PathBuffer();
+		return findPath(key, path) ? path.size() - 1 : -1;
+	}
+
+	// ==================== ChangeOrder Methods ====================
+
+	/**
+	 * Changes the heap value of a live node. The old node becomes a tombstone and a new node is
+	 * inserted with the new heap value.
+	 *
+	 * @param key          The key whose heap value is to be changed.
+	 * @param newHeapValue The new heap value.
+	 * @return             True if the order was successfully changed, false otherwise.
+	 */
+	@Override
+	public synchronized boolean changeOrder(String key, int newHeapValue) {
+		return super.changeOrder(key, newHeapValue);
+	}
+
+	/**
+	 * Purges all tombstones and then changes the heap values like the Treap does, so every key in
+	 * the batch refers to exactly one node.
+	 *
+	 * @param keys       The keys whose heap values are to be changed.
+	 * @param heapValues The new heap values, in the same order as the keys.
+	 * @return           True if the batch was applied, false if the arrays are null or of unequal length.
+	 */
+	@Override
+	public synchronized boolean changeOrderAll(String[] keys, int[] heapValues) {
+		if (keys == null || heapValues == null || keys.length != heapValues.length) return false;
+		purge();
+		return super.changeOrderAll(keys, heapValues);
+	}
+
+	// ==================== Remove Methods ====================
+
+	/**
+	 * Removes a key by marking its node as a tombstone in a single descent. Starts a background
+	 * purge when the share of tombstones passes the purge ratio.
+	 *
+	 * @param key The key of the node to be removed.
+	 * @return    True if the key was removed, false otherwise.
+	 */
+	@Override
+	public synchronized boolean remove(String key) {
+		if (!isValidKey(key)) return false;
+		TreapNode node = locateLive(root, key.toLowerCase());
+		if (node == null) return false;
+
+		((TombstoneNode) node).deleted = true;
+		count--;
+		tombstones++;
+		if (!purgeScheduled && purgeDue()) {
+			purgeScheduled = true;
+			purgeExecutor().execute(this::purgeInBackground);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes every live key in the inclusive range [lo, hi]; tombstones in the range are dropped
+	 * along with them.
+	 *
+	 * @param lo The smallest key to remove.
+	 * @param hi The largest key to remove.
+	 * @return   The number of removed live keys.
+	 */
+	@Override
+	public synchronized int removeRange(String lo, String hi) {
+		int before = count;
+		super.removeRange(lo, hi);
+		return before - count;
+	}
+
+	/**
+	 * Removes a batch of keys in one traversal. Tombstones with these keys may be dropped as well.
+	 *
+	 * @param sortedKeys The keys to remove; null entries are ignored.
+	 * @return           The number of removed live keys.
+	 */
+	@Override
+	public synchronized int removeAll(String[] sortedKeys) {
+		int before = count;
+		super.removeAll(sortedKeys);
+		return before - count;
+	}
+
+	/**
+	 * Keeps the counts exact when a bulk removal cuts out a tombstone: the caller subtracts every
+	 * released node from the live count, so a tombstone is added back there and taken off the
+	 * tombstone count instead.
+	 *
+	 * @param node The removed node.
+	 */
+	@Override
+	protected void releaseNode(TreapNode node) {
+		if (isTombstone(node)) {
+			tombstones--;
+			count++;
+		}
+	}
+
+	// ==================== Purge Methods ====================
+
+	/**
+	 * Physically removes all tombstones now, on the calling thread.
+	 *
+	 * @return The number of tombstones removed.
+	 */
+	public synchronized int purge() {
+		int removed = 0;
+		String last = null;
+		do {
+			int[] batch = {0};
+			last = purgeNextBatch(last, batch);
+			removed += batch[0];
+		} while (last != null && tombstones > 0);
+		return removed;
+	}
+
+	/**
+	 * Returns the number of tombstones that are still linked into the treap.
+	 *
+	 * @return The number of tombstones.
+	 */
+	public synchronized int tombstones() {
+		return tombstones;
+	}
+
+	/**
+	 * Returns the number of tombstones removed by purges so far.
+	 *
+	 * @return The number of purged tombstones.
+	 */
+	public synchronized long purged() {
+		return purged;
+	}
+
+	/**
+	 * Background task: while the share of tombstones is above the purge ratio, sweeps the treap in
+	 * key order, taking the lock once per PURGE_BATCH nodes.
+	 */
+	private void purgeInBackground() {
+		while (true) {
+			synchronized (this) {
+				if (!purgeDue()) {
+					purgeScheduled = false;
+					return;
+				}
+			}
+			String last = null;
+			do {
+				synchronized (this) {
+					last = purgeNextBatch(last, new int[1]);
+				}
+			} while (last != null);
+		}
+	}
+
+	/**
+	 * Helper method to check whether tombstones make up more than the purge ratio of all nodes.
+	 */
+	private boolean purgeDue() {
+		return tombstones >= MIN_PURGE_SIZE && tombstones > purgeRatio * (count + tombstones);
+	}
+
+	/**
+	 * Helper method to remove the tombstones among the next PURGE_BATCH nodes in key order. The
+	 * window is split out of the treap, its live nodes are relinked in key order in linear time and
+	 * the result is joined back, so each call costs O(PURGE_BATCH + log n).
+	 *
+	 * @param after   The last key covered by the previous call, or null to start at the smallest key.
+	 * @param removed Single-element counter that receives the number of removed tombstones.
+	 * @return        The last key covered by this call, or null if the window reached the largest key.
+	 */
+	private String purgeNextBatch(String after, int[] removed) {
+		String last = keyAfter(after, PURGE_BATCH);
+
+		TreapNode[] parts = new TreapNode[2];
+		TreapNode less = null;
+		TreapNode window = root;
+		TreapNode greater = null;
+		if (after != null) {
+			split(window, after, true, parts);
+			less = parts[0];
+			window = parts[1];
+		}
+		if (last != null) {
+			split(window, last, true, parts);
+			window = parts[0];
+			greater = parts[1];
+		}
+
+		// Collect the live nodes of the window in key order
+		List<TreapNode> live = new ArrayList<>();
+		List<TreapNode> stack = new ArrayList<>();
+		TreapNode node = window;
+		while (node != null || !stack.isEmpty()) {
+			while (node != null) {
+				stack.add(node);
+				node = node.left;
+			}
+			node = stack.remove(stack.size() - 1);
+			if (isTombstone(node)) removed[0]++;
+			else live.add(node);
+			node = node.right;
+		}
+
+		root = join(join(less, rebuildHeapOrder(live.toArray(new TreapNode[0]))), greater);
+		tombstones -= removed[0];
+		purged += removed[0];
+		return last;
+	}
+
+	/**
+	 * Helper method to find the key of the n-th node after a given key in key order.
+	 *
+	 * @param after The key to start after, or null to start before the smallest key.
+	 * @param n     The number of nodes to step over.
+	 * @return      The key of the n-th node, or null if fewer than n nodes follow.
+	 */
+	private String keyAfter(String after, int n) {
+		List<TreapNode> stack = new ArrayList<>();
+		TreapNode node = root;
+		while (node != null) {
+			if (after == null || node.key.compareTo(after) > 0) {
+				stack.add(node);
+				node = node.left;
+			} else {
+				node = node.right;
+			}
+		}
+		for (int seen = 1; !stack.isEmpty(); seen++) {
+			node = stack.remove(stack.size() - 1);
+			if (seen == n) return node.key;
+			for (TreapNode next = node.right; next != null; next = next.left) stack.add(next);
+		}
+		return null;
+	}
+
+	/**
+	 * Helper method to create the shared purge thread on first use.
+	 */
+	private static synchronized ExecutorService purgeExecutor() {
+		if (purgeExecutor == null) {
+			purgeExecutor = Executors.newSingleThreadExecutor(task -> {
+				Thread thread = new Thread(task, "tombstone-treap-purge");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return purgeExecutor;
+	}
+
+	// ==================== Scan Methods ====================
+
+	/**
+	 * Returns the live key with the largest heap value.
+	 *
+	 * @return The key, or null if the treap has no live keys.
+	 */
+	@Override
+	public synchronized String peekMax() {
+		List<String> top = topK(1);
+		return top.isEmpty() ? null : top.get(0);
+	}
+
+	/**
+	 * Removes and returns the live key with the largest heap value.
+	 *
+	 * @return The removed key, or null if the treap has no live keys.
+	 */
+	@Override
+	public synchronized String pollMax() {
+		String key = peekMax();
+		if (key != null) remove(key);
+		return key;
+	}
+
+	/**
+	 * Returns the k live keys with the largest heap values, in decreasing heap order. Tombstones are
+	 * expanded like other nodes but not reported.
+	 *
+	 * @param k The number of keys to return.
+	 * @return  Up to k keys ordered from the largest heap value down (empty if k is not positive).
+	 */
+	@Override
+	public synchronized List<String> topK(int k) {
+		List<String> result = new ArrayList<>(Math.max(0, Math.min(k, count)));
+		if (k <= 0 || root == null) return result;
+
+		PriorityQueue<TreapNode> frontier = new PriorityQueue<>((a, b) -> Integer.compare(b.heapValue, a.heapValue));
+		frontier.add(root);
+		while (result.size() < k && !frontier.isEmpty()) {
+			TreapNode node = frontier.poll();
+			if (!isTombstone(node)) result.add(node.key);
+			if (node.left != null) frontier.add(node.left);
+			if (node.right != null) frontier.add(node.right);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns all live keys in ascending order.
+	 *
+	 * @return A new list of the live keys.
+	 */
+	@Override
+	public synchronized List<String> keys() {
+		List<String> keys = new ArrayList<>(count);
+		for (TreapNode node : inOrderNodes()) {
+			if (!isTombstone(node)) keys.add(node.key);
+		}
+		return keys;
+	}
+
+	/**
+	 * Creates an immutable snapshot of the live keys; tombstones are left out.
+	 *
+	 * @return A frozen snapshot of the current live keys.
+	 */
+	@Override
+	public synchronized FrozenTreap freeze() {
+		return new FrozenTreap(keys().toArray(new String[0]));
+	}
+
+	/**
+	 * Returns the number of live keys.
+	 *
+	 * @return The number of live keys.
+	 */
+	@Override
+	public synchronized int size() {
+		return count;
+	}
+}
@@ -0,0 +1,130 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TombstoneTreapTest {
+
+	private TombstoneTreap treap;
+
+	@BeforeEach
+	public void setUp() {
+		treap = new TombstoneTreap();
+	}
+
+	// ========================= Remove() Tests =========================
+
+	@Test
+	public void testRemoveLeavesTombstone() {
+		treap.add("Apple", 30);
+		treap.add("banana", 20);
+		assertTrue(treap.remove("APPLE"));
+		assertFalse(treap.remove("apple"));
+		assertFalse(treap.find("apple"));
+		assertNull(treap.findPath("apple"));
+		assertEquals(-1, treap.findDepth("apple"));
+		assertEquals(1, treap.size());
+		assertEquals(1, treap.tombstones());
+	}
+
+	@Test
+	public void testPathMayPassTombstones() {
+		treap.add("b", 30);  // Root
+		treap.add("a", 20);
+		treap.remove("b");
+		assertEquals(List.of("a", "b"), treap.findPath("a"));  // The tombstone is still linked above "a"
+		assertEquals(1, treap.findDepth("a"));
+	}
+
+	@Test
+	public void testReAddRemovedKey() {
+		treap.add("key", 10);
+		treap.remove("key");
+		assertTrue(treap.add("key", 10));  // Heap values of tombstones are free again
+		assertTrue(treap.find("key"));
+		assertEquals(1, treap.size());
+		assertTrue(treap.remove("key"));
+		assertFalse(treap.find("key"));
+	}
+
+	@Test
+	public void testInvalidArguments() {
+		assertFalse(treap.remove(null));
+		assertFalse(treap.add(null, 5));
+		assertThrows(IllegalArgumentException.class, () -> new TombstoneTreap(0));
+		assertThrows(IllegalArgumentException.class, () -> new TombstoneTreap(1));
+	}
+
+	// ========================= Scan Tests =========================
+
+	@Test
+	public void testScansSkipTombstones() {
+		treap.build(new String[] {"a", "b", "c", "d"}, new int[] {40, 30, 20, 10});
+		treap.remove("a");
+		treap.remove("c");
+		assertEquals(List.of("b", "d"), treap.keys());
+		assertEquals(List.of("b", "d"), treap.topK(5));
+		assertEquals("b", treap.peekMax());
+		assertEquals("b", treap.pollMax());
+		assertEquals(1, treap.size());
+	}
+
+	@Test
+	public void testFreezeSkipsTombstones() {
+		treap.add("apple", 10);
+		treap.add("banana", 20);
+		treap.remove("apple");
+		FrozenTreap frozen = treap.freeze();
+		assertFalse(frozen.find("apple"));
+		assertTrue(frozen.find("banana"));
+		assertEquals(1, frozen.size());
+	}
+
+	@Test
+	public void testRemoveRangeCountsLiveKeysOnly() {
+		treap.build(new String[] {"a", "b", "c", "d"}, new int[] {40, 30, 20, 10});
+		treap.remove("b");
+		assertEquals(2, treap.removeRange("a", "c"));
+		assertEquals(List.of("d"), treap.keys());
+		assertEquals(1, treap.size());
+		assertEquals(0, treap.tombstones());
+	}
+
+	@Test
+	public void testChangeOrder() {
+		treap.add("a", 10);
+		treap.add("b", 20);
+		assertTrue(treap.changeOrder("a", 30));
+		assertEquals("a", treap.peekMax());
+		assertEquals(2, treap.size());
+	}
+
+	// ========================= Purge Tests =========================
+
+	@Test
+	public void testPurgeRemovesTombstones() {
+		for (int i = 0; i < 50; i++) treap.add("key" + i, i + 1);
+		for (int i = 0; i < 50; i += 2) treap.remove("key" + i);
+
+		assertEquals(25, treap.purge());
+		assertEquals(0, treap.tombstones());
+		assertEquals(25, treap.size());
+		assertEquals(25, treap.keys().size());
+		assertTrue(treap.find("key1"));
+		assertFalse(treap.find("key0"));
+	}
+
+	@Test
+	public void testBackgroundPurgeAfterThreshold() throws InterruptedException {
+		for (int i = 0; i < 1000; i++) treap.add("key" + i, i + 1);
+		for (int i = 0; i < 600; i++) treap.remove("key" + i);  // Well past the 25% purge ratio
+
+		for (int wait = 0; wait < 500 && treap.purged() == 0; wait++) Thread.sleep(10);
+		assertTrue(treap.purged() > 0);
+		assertEquals(400, treap.size());  // Exact throughout
+		assertTrue(treap.find("key999"));
+		assertFalse(treap.find("key0"));
+	}
+}
@@ -1,5 +1,8 @@
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.PriorityQueue;
 
 /**
  * The Treap class implements a treap data structure, which combines the properties of a binary search tree
@@ -16,6 +19,16 @@ public class Treap implements Searchable {
 	// Number of nodes currently in the treap
 	protected int count;
 
+	// Bloom filter over the keys that lets find() reject most absent keys without a descent, or null if disabled
+	protected BloomFilter bloom;
+
+	// Number of keys the Bloom filter is sized for at least, and bits spent per key
+	private int bloomCapacity;
+	private int bloomBitsPerKey;
+
+	// Cache from raw queries to the nodes they found, consulted before the descent, or null if disabled
+	protected LookupCache lookupCache;
+
 	/**
 	 * Constructor to initialize an empty treap.
 	 */
@@ -52,6 +65,56 @@ public class Treap implements Searchable {
 		return y;
 	}
 
+	// ==================== Split and Join ====================
+
+	/**
+	 * Splits a subtree by key into the nodes before the key and the nodes from the key on.
+	 * Both parts keep the BST and heap properties; the node objects are reused.
+	 *
+	 * @param node      The root of the subtree to split.
+	 * @param key       The lowercase key to split at.
+	 * @param inclusive True to put nodes equal to the key in the left part, false for the right part.
+	 * @param parts     Two-element array that receives the left part at index 0 and the right part at index 1.
+	 */
+	protected void split(TreapNode node, String key, boolean inclusive, TreapNode[] parts) {
+		if (node == null) {
+			parts[0] = null;
+			parts[1] = null;
+			return;
+		}
+
+		int cmp = node.key.compareTo(key);
+		if (cmp < 0 || (inclusive && cmp == 0)) {
+			split(node.right, key, inclusive, parts);
+			node.right = parts[0];
+			parts[0] = node;
+		} else {
+			split(node.left, key, inclusive, parts);
+			node.left = parts[1];
+			parts[1] = node;
+		}
+	}
+
+	/**
+	 * Joins two treaps where every key in the left one is smaller than every key in the right one,
+	 * keeping the node with the larger heap value on top at each step.
+	 *
+	 * @param left  The root of the treap holding the smaller keys.
+	 * @param right The root of the treap holding the larger keys.
+	 * @return      The root of the joined treap.
+	 */
+	protected TreapNode join(TreapNode left, TreapNode right) {
+		if (left == null) return right;
+		if (right == null) return left;
+
+		if (left.heapValue > right.heapValue) {
+			left.right = join(left.right, right);
+			return left;
+		}
+		right.left = join(left, right.left);
+		return right;
+	}
+
 	// ==================== Helper Methods ====================
 
 	/**
@@ -93,11 +156,24 @@ public class Treap implements Searchable {
 		if (isValidKey(key) && heapValue > 0 && !findDuplicateHeapValue(root, heapValue)) {
 			root = insertNode(root, key.toLowerCase(), heapValue);
 			count++;
+			checkBloomFilter();
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * Creates the node that stores a newly inserted key. Subclasses override this to use their own
+	 * node type.
+	 *
+	 * @param key       The lowercase key of the new node.
+	 * @param heapValue The heap value of the new node.
+	 * @return          The new node.
+	 */
+	protected TreapNode createNode(String key, int heapValue) {
+		return new TreapNode(key, heapValue);
+	}
+
 	/**
 	 * Helper method to insert a new node into the treap.
 	 *
@@ -107,7 +183,10 @@ public class Treap implements Searchable {
 	 * @return          The root of the subtree after insertion.
 	 */
 	protected TreapNode insertNode(TreapNode node, String key, int heapValue) {
-		if (node == null) return new TreapNode(key, heapValue);
+		if (node == null) {
+			if (bloom != null) bloom.add(key);
+			return createNode(key, heapValue);
+		}
 
 		if (key.compareTo(node.key) < 0) node.left = insertNode(node.left, key, heapValue);
 		else node.right = insertNode(node.right, key, heapValue);
@@ -132,6 +211,8 @@ public class Treap implements Searchable {
 		if (keys == null || heapValues == null || keys.length != heapValues.length) return false;
 		root = null;
 		count = 0;
+		if (lookupCache != null) lookupCache.clear();
+		if (bloom != null) bloom = new BloomFilter(Math.max(bloomCapacity, keys.length), bloomBitsPerKey);
 		for (int i = 0; i < keys.length; i++) add(keys[i], heapValues[i]);
 		return true;
 	}
@@ -145,7 +226,46 @@ public class Treap implements Searchable {
 	 * @return    True if the key is found, false otherwise.
 	 */
 	public boolean find(String key) {
-		return isValidKey(key) && findRecursive(root, key.toLowerCase());
+		if (!isValidKey(key)) return false;
+		if (lookupCache == null) {
+			String lowerKey = key.toLowerCase();
+			return mightContain(lowerKey) && findRecursive(root, lowerKey);
+		}
+		return findCached(key) != null;
+	}
+
+	/**
+	 * Finds the node for a query through the lookup cache: a cached query is answered without
+	 * case folding or descent, and a query that finds its node is cached for the next lookup.
+	 *
+	 * @param key The query as passed by the caller (not null).
+	 * @return    The node with the key, or null if the key is not found.
+	 */
+	protected TreapNode findCached(String key) {
+		TreapNode node = lookupCache.get(key);
+		if (node != null) return node;
+
+		String lowerKey = key.toLowerCase();
+		if (!mightContain(lowerKey)) return null;
+		node = locate(lowerKey);
+		if (node != null) lookupCache.put(key, node);
+		return node;
+	}
+
+	/**
+	 * Finds the node with the given key by descending from the root.
+	 *
+	 * @param key The lowercase key to search for.
+	 * @return    The node with the given key, or null if the key is not found.
+	 */
+	protected TreapNode locate(String key) {
+		TreapNode node = root;
+		while (node != null) {
+			int cmp = key.compareTo(node.key);
+			if (cmp == 0) return node;
+			node = cmp < 0 ? node.left : node.right;
+		}
+		return null;
 	}
 
 	/**
@@ -170,58 +290,58 @@ public class Treap implements Searchable {
 	 * @return    A list of keys representing the path from the node to the root, or null if the key is not found.
 	 */
 	public List<String> findPath(String key) {
-		if (!isValidKey(key)) return null;
-
-		String[] path = new String[100]; // Fixed-size array to hold the path
-		int[] index = {0}; // To keep track of the path length
-
-		if (findPathRecursive(root, key.toLowerCase(), path, index)) {
-			return reverseToList(path, index[0]);
-		} else {
-			return null;
-		}
+		PathBuffer path = new PathBuffer();
+		return findPath(key, path) ? path.toList() : null;
 	}
 
 	/**
-	 * Helper method to recursively find the path to a node by key.
+	 * Finds the path from the node with the given key to the root of the treap and writes it into a
+	 * caller-supplied buffer. The descent is iterative, so paths of any depth are supported, and a
+	 * reused buffer makes the lookup allocation-free once it has grown to the tree's depth.
 	 *
-	 * @param node  The current node in the treap.
-	 * @param key   The key to find the path for.
-	 * @param path  Array to store the path.
-	 * @param index Current index in the path array.
-	 * @return      True if the path is found, false otherwise.
+	 * @param key  The key whose path to the root is to be found.
+	 * @param path The buffer that receives the keys from the node to the root; cleared first.
+	 * @return     True if the key was found, false otherwise (the buffer is then left empty).
 	 */
-	protected boolean findPathRecursive(TreapNode node, String key, String[] path, int[] index) {
-		if (node == null) return false;
-
-		path[index[0]] = node.key;
-		index[0]++;
-
-		if (key.equals(node.key)) return true;
-
-		if (key.compareTo(node.key) < 0) {
-			if (findPathRecursive(node.left, key, path, index)) return true;
-		} else {
-			if (findPathRecursive(node.right, key, path, index)) return true;
+	public boolean findPath(String key, PathBuffer path) {
+		path.clear();
+		if (!isValidKey(key)) return false;
+
+		String lowerKey = key.toLowerCase();
+		TreapNode node = root;
+		while (node != null) {
+			path.append(node.key);
+			int cmp = lowerKey.compareTo(node.key);
+			if (cmp == 0) {
+				path.reverse(); // Collected root-to-node, report node-to-root
+				return true;
+			}
+			node = cmp < 0 ? node.left : node.right;
 		}
 
-		index[0]--;
+		path.clear();
 		return false;
 	}
 
 	/**
-	 * Helper method to reverse the path array and convert it to a list.
+	 * Returns the depth of the node with the given key without recording the path.
 	 *
-	 * @param path   Array of keys representing the path.
-	 * @param length The length of the valid path.
-	 * @return       A list of keys representing the path in reverse order (from node to root).
+	 * @param key The key to look up.
+	 * @return    The number of edges between the root and the node, or -1 if the key is not found.
 	 */
-	private List<String> reverseToList(String[] path, int length) {
-		List<String> reversedPath = new ArrayList<>();
-		for (int i = length - 1; i >= 0; i--) {
-			reversedPath.add(path[i]);
+	public int findDepth(String key) {
+		if (!isValidKey(key)) return -1;
+
+		String lowerKey = key.toLowerCase();
+		TreapNode node = root;
+		int depth = 0;
+		while (node != null) {
+			int cmp = lowerKey.compareTo(node.key);
+			if (cmp == 0) return depth;
+			node = cmp < 0 ? node.left : node.right;
+			depth++;
 		}
-		return reversedPath;
+		return -1;
 	}
 
 	// ==================== ChangeOrder Method ====================
@@ -243,6 +363,104 @@ public class Treap implements Searchable {
 		return true;
 	}
 
+	/**
+	 * Changes the heap values of many nodes at once. When only a few keys change relative to the
+	 * size of the treap, each one is handled like {@link #changeOrder(String, int)}. Otherwise all
+	 * new heap values are applied to the existing nodes and heap order is restored in a single
+	 * linear pass over the nodes in key order, costing O(n + k log n) instead of k separate
+	 * remove and insert cycles. Entries that changeOrder would reject (invalid or missing keys,
+	 * heap values that are not positive) are skipped.
+	 *
+	 * @param keys       The keys whose heap values are to be changed.
+	 * @param heapValues The new heap values, in the same order as the keys.
+	 * @return           True if the batch was applied, false if the arrays are null or of unequal length.
+	 */
+	public boolean changeOrderAll(String[] keys, int[] heapValues) {
+		if (keys == null || heapValues == null || keys.length != heapValues.length) return false;
+
+		// k changeOrder calls cost about k log n; the rebuild touches every node and measured about
+		// four times slower per node, so it only pays off once k log n exceeds 4n
+		int n = count;
+		int log2n = Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(1, n));
+		if ((long) keys.length * log2n < 4L * n) {
+			for (int i = 0; i < keys.length; i++) changeOrder(keys[i], heapValues[i]);
+			return true;
+		}
+
+		TreapNode[] nodes = inOrderNodes();
+		for (int i = 0; i < keys.length; i++) {
+			if (!isValidKey(keys[i]) || heapValues[i] <= 0) continue;
+			int index = indexOfKey(nodes, keys[i].toLowerCase());
+			if (index >= 0) nodes[index].heapValue = heapValues[i];
+		}
+		root = rebuildHeapOrder(nodes);
+		return true;
+	}
+
+	/**
+	 * Helper method to collect all nodes in ascending key order without recursion.
+	 *
+	 * @return The nodes of the treap in key order.
+	 */
+	protected TreapNode[] inOrderNodes() {
+		List<TreapNode> nodes = new ArrayList<>(count);
+		List<TreapNode> stack = new ArrayList<>();
+		TreapNode node = root;
+		while (node != null || !stack.isEmpty()) {
+			while (node != null) {
+				stack.add(node);
+				node = node.left;
+			}
+			node = stack.remove(stack.size() - 1);
+			nodes.add(node);
+			node = node.right;
+		}
+		return nodes.toArray(new TreapNode[0]);
+	}
+
+	/**
+	 * Helper method to binary search an array of nodes in key order.
+	 *
+	 * @param nodes The nodes in ascending key order.
+	 * @param key   The lowercase key to search for.
+	 * @return      The index of a node with the key, or -1 if there is none.
+	 */
+	private int indexOfKey(TreapNode[] nodes, String key) {
+		int low = 0;
+		int high = nodes.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = key.compareTo(nodes[mid].key);
+			if (cmp == 0) return mid;
+			if (cmp < 0) high = mid - 1;
+			else low = mid + 1;
+		}
+		return -1;
+	}
+
+	/**
+	 * Relinks nodes given in key order into a treap that satisfies the heap property, reusing the
+	 * node objects. Each node is pushed on a stack of the current right spine exactly once and
+	 * popped at most once, so the pass is linear in the number of nodes.
+	 *
+	 * @param nodes The nodes in ascending key order.
+	 * @return      The root of the rebuilt treap.
+	 */
+	protected TreapNode rebuildHeapOrder(TreapNode[] nodes) {
+		TreapNode[] spine = new TreapNode[nodes.length];
+		int top = 0;
+		for (TreapNode node : nodes) {
+			node.left = null;
+			node.right = null;
+			TreapNode lastPopped = null;
+			while (top > 0 && spine[top - 1].heapValue < node.heapValue) lastPopped = spine[--top];
+			node.left = lastPopped;
+			if (top > 0) spine[top - 1].right = node;
+			spine[top++] = node;
+		}
+		return top > 0 ? spine[0] : null;
+	}
+
 	// ==================== Remove Method ====================
 
 	/**
@@ -252,9 +470,13 @@ public class Treap implements Searchable {
 	 * @return    True if the node was removed, false otherwise.
 	 */
 	public boolean remove(String key) {
-		if (!isValidKey(key) || !find(key)) return false;
-		root = deleteNode(root, key.toLowerCase());
+		if (!isValidKey(key)) return false;
+		String lowerKey = key.toLowerCase();
+		if (locate(lowerKey) == null) return false; // Not find(), which would cache the node just before it goes
+		root = deleteNode(root, lowerKey);
 		count--;
+		invalidateCachedKey(lowerKey);
+		checkBloomFilter();
 		return true;
 	}
 
@@ -286,6 +508,298 @@ public class Treap implements Searchable {
 		return node;
 	}
 
+	/**
+	 * Removes every key in the inclusive range [lo, hi] by splitting the range out of the treap and
+	 * joining the remaining parts. For example, removeRange("tenant42/", "tenant42/\uffff") purges
+	 * every key with the prefix "tenant42/". Costs expected O(log n) plus the size of the removed range.
+	 *
+	 * @param lo The smallest key to remove.
+	 * @param hi The largest key to remove.
+	 * @return   The number of removed nodes (0 if either bound is invalid or lo is greater than hi).
+	 */
+	public int removeRange(String lo, String hi) {
+		if (!isValidKey(lo) || !isValidKey(hi)) return 0;
+		String lowerLo = lo.toLowerCase();
+		String lowerHi = hi.toLowerCase();
+		if (lowerLo.compareTo(lowerHi) > 0) return 0;
+
+		TreapNode[] parts = new TreapNode[2];
+		split(root, lowerLo, false, parts);
+		TreapNode less = parts[0];
+		split(parts[1], lowerHi, true, parts);
+		TreapNode range = parts[0];
+		TreapNode greater = parts[1];
+
+		root = join(less, greater);
+		int removed = releaseSubtree(range);
+		count -= removed;
+		if (removed > 0 && lookupCache != null) lookupCache.clear();
+		checkBloomFilter();
+		return removed;
+	}
+
+	/**
+	 * Removes a batch of keys in one traversal. The keys are case-folded and sorted (a no-op pass
+	 * for input that is already sorted), then each node on the way down binary-searches its slice
+	 * of the batch and hands the smaller and larger keys to its left and right subtree. Removed
+	 * nodes are replaced by the join of their children.
+	 *
+	 * @param sortedKeys The keys to remove; null entries are ignored.
+	 * @return           The number of removed nodes.
+	 */
+	public int removeAll(String[] sortedKeys) {
+		if (sortedKeys == null) return 0;
+
+		String[] keys = new String[sortedKeys.length];
+		int n = 0;
+		for (String key : sortedKeys) {
+			if (isValidKey(key)) keys[n++] = key.toLowerCase();
+		}
+		Arrays.sort(keys, 0, n);
+
+		int[] removed = {0};
+		root = deleteAll(root, keys, 0, n, removed);
+		count -= removed[0];
+		if (removed[0] > 0 && lookupCache != null) lookupCache.clear();
+		checkBloomFilter();
+		return removed[0];
+	}
+
+	/**
+	 * Helper method to recursively delete every key of a sorted slice from a subtree.
+	 *
+	 * @param node    The current node in the treap.
+	 * @param keys    The sorted lowercase keys to delete.
+	 * @param from    The first index of the slice (inclusive).
+	 * @param to      The last index of the slice (exclusive).
+	 * @param removed Single-element counter of removed nodes.
+	 * @return        The root of the subtree after deletion.
+	 */
+	protected TreapNode deleteAll(TreapNode node, String[] keys, int from, int to, int[] removed) {
+		if (node == null || from >= to) return node;
+
+		int index = Arrays.binarySearch(keys, from, to, node.key);
+		int boundary = index >= 0 ? index : -index - 1;
+		node.left = deleteAll(node.left, keys, from, boundary, removed);
+		node.right = deleteAll(node.right, keys, index >= 0 ? index + 1 : boundary, to, removed);
+
+		if (index < 0) return node;
+
+		TreapNode joined = join(node.left, node.right);
+		node.left = null;
+		node.right = null;
+		removed[0] += releaseSubtree(node);
+		return joined;
+	}
+
+	/**
+	 * Releases a subtree that has been cut out of the treap and counts its nodes, calling
+	 * {@link #releaseNode(TreapNode)} for each of them.
+	 *
+	 * @param node The root of the detached subtree, may be null.
+	 * @return     The number of nodes in the subtree.
+	 */
+	protected int releaseSubtree(TreapNode node) {
+		int released = 0;
+		List<TreapNode> stack = new ArrayList<>();
+		if (node != null) stack.add(node);
+		while (!stack.isEmpty()) {
+			TreapNode current = stack.remove(stack.size() - 1);
+			released++;
+			releaseNode(current);
+			if (current.left != null) stack.add(current.left);
+			if (current.right != null) stack.add(current.right);
+		}
+		return released;
+	}
+
+	/**
+	 * Called for every node that leaves the treap through a bulk removal. Subclasses that keep
+	 * per-node bookkeeping override this to drop the node from it.
+	 *
+	 * @param node The removed node.
+	 */
+	protected void releaseNode(TreapNode node) {
+	}
+
+	// ==================== Priority Queue Methods ====================
+
+	/**
+	 * Returns the key with the largest heap value, which the heap property keeps at the root.
+	 *
+	 * @return The key of the root, or null if the treap is empty.
+	 */
+	public String peekMax() {
+		return root == null ? null : root.key;
+	}
+
+	/**
+	 * Removes and returns the key with the largest heap value by joining the root's subtrees.
+	 *
+	 * @return The removed key, or null if the treap is empty.
+	 */
+	public String pollMax() {
+		if (root == null) return null;
+
+		TreapNode top = root;
+		root = join(top.left, top.right);
+		top.left = null;
+		top.right = null;
+		count -= releaseSubtree(top);
+		invalidateCachedKey(top.key);
+		checkBloomFilter();
+		return top.key;
+	}
+
+	/**
+	 * Returns the k keys with the largest heap values, in decreasing heap order, without modifying
+	 * the treap. The walk follows heap order from the root: it repeatedly takes the largest node
+	 * from a frontier of candidates and adds that node's children, so the frontier never holds more
+	 * than k + 1 nodes and the cost is O(k log k) regardless of the size of the treap.
+	 *
+	 * Note that SearchTree reorders nodes by search count, so there the result follows tree order
+	 * rather than strict heap value order.
+	 *
+	 * @param k The number of keys to return.
+	 * @return  Up to k keys ordered from the largest heap value down (empty if k is not positive).
+	 */
+	public List<String> topK(int k) {
+		List<String> result = new ArrayList<>(Math.max(0, Math.min(k, count)));
+		if (k <= 0 || root == null) return result;
+
+		PriorityQueue<TreapNode> frontier = new PriorityQueue<>(Math.min(k, count) + 1,
+				(a, b) -> Integer.compare(b.heapValue, a.heapValue));
+		frontier.add(root);
+		while (result.size() < k && !frontier.isEmpty()) {
+			TreapNode node = frontier.poll();
+			result.add(node.key);
+			if (node.left != null) frontier.add(node.left);
+			if (node.right != null) frontier.add(node.right);
+		}
+		return result;
+	}
+
+	// ==================== Keys Method ====================
+
+	/**
+	 * Returns all keys in ascending order.
+	 *
+	 * @return A new list of the keys of the treap.
+	 */
+	public List<String> keys() {
+		TreapNode[] nodes = inOrderNodes();
+		List<String> keys = new ArrayList<>(nodes.length);
+		for (TreapNode node : nodes) keys.add(node.key);
+		return keys;
+	}
+
+	// ==================== Freeze Method ====================
+
+	/**
+	 * Creates an immutable snapshot of the keys for read-only use. The snapshot answers find(),
+	 * rank() and range() from a cache-friendly array layout and is not affected by later changes
+	 * to the treap.
+	 *
+	 * @return A frozen snapshot of the current keys.
+	 */
+	public FrozenTreap freeze() {
+		TreapNode[] nodes = inOrderNodes();
+		String[] keys = new String[nodes.length];
+		for (int i = 0; i < nodes.length; i++) keys[i] = nodes[i].key;
+		return new FrozenTreap(keys);
+	}
+
+	// ==================== Bloom Filter ====================
+
+	/**
+	 * Enables a blocked Bloom filter in front of find(). Every key that enters the treap is added
+	 * to the filter, so a lookup of an absent key is rejected without descending the tree unless
+	 * it hits a false positive (about 1% at 10 bits per key). Removed keys stay in the filter and
+	 * only cost false positives; once they make up a quarter of the filter, or insertions exceed
+	 * twice the size it was built for, the filter is rebuilt from the current keys.
+	 *
+	 * @param capacity   The number of keys to size the filter for, or 0 to disable it.
+	 * @param bitsPerKey The number of bits per key; more bits mean fewer false positives.
+	 * @return           True if the filter was configured, false if a value is out of range.
+	 */
+	public boolean setBloomFilter(int capacity, int bitsPerKey) {
+		if (capacity < 0 || bitsPerKey <= 0) return false;
+		if (capacity == 0) {
+			bloom = null;
+			return true;
+		}
+		bloomCapacity = capacity;
+		bloomBitsPerKey = bitsPerKey;
+		rebuildBloomFilter();
+		return true;
+	}
+
+	/**
+	 * Checks a lowercase key against the Bloom filter.
+	 *
+	 * @param key The lowercase key.
+	 * @return    False if the key is certainly absent, true if it may be present or no filter is set.
+	 */
+	protected boolean mightContain(String key) {
+		return bloom == null || bloom.mightContain(key);
+	}
+
+	/**
+	 * Rebuilds the Bloom filter when removed keys make up more than a quarter of its insertions or
+	 * when it holds more than twice the keys it was sized for. Called after every change to the
+	 * set of keys.
+	 */
+	protected void checkBloomFilter() {
+		if (bloom == null) return;
+		int insertions = bloom.insertions();
+		if (insertions - count > insertions / 4 || insertions > 2 * bloom.capacity()) rebuildBloomFilter();
+	}
+
+	/**
+	 * Helper method to replace the Bloom filter by one that holds exactly the current keys.
+	 */
+	private void rebuildBloomFilter() {
+		BloomFilter filter = new BloomFilter(Math.max(bloomCapacity, count), bloomBitsPerKey);
+		List<TreapNode> stack = new ArrayList<>();
+		if (root != null) stack.add(root);
+		while (!stack.isEmpty()) {
+			TreapNode node = stack.remove(stack.size() - 1);
+			filter.add(node.key);
+			if (node.left != null) stack.add(node.left);
+			if (node.right != null) stack.add(node.right);
+		}
+		bloom = filter;
+	}
+
+	// ==================== Lookup Cache ====================
+
+	/**
+	 * Enables a small cache in front of find() that maps raw query strings to the nodes they found.
+	 * Repeated lookups of popular keys then skip case folding, the Bloom filter and the descent.
+	 * Entries are dropped when their key is removed; bulk removals clear the whole cache. Note that
+	 * find() then writes to the cache, so concurrent readers need the same exclusion as writers.
+	 * SearchTree consults the cache only for the searches its sampling rate leaves uncounted,
+	 * because counted searches must descend to promote the node.
+	 *
+	 * @param capacity The number of cached queries (at most LookupCache.MAX_CAPACITY, since every
+	 *                 removal scans the cache), or 0 to disable the cache.
+	 * @return         True if the cache was configured, false if the capacity is out of range.
+	 */
+	public boolean setLookupCache(int capacity) {
+		if (capacity < 0 || capacity > LookupCache.MAX_CAPACITY) return false;
+		lookupCache = capacity == 0 ? null : new LookupCache(capacity);
+		return true;
+	}
+
+	/**
+	 * Drops a removed key from the lookup cache.
+	 *
+	 * @param key The lowercase key that left the treap.
+	 */
+	protected void invalidateCachedKey(String key) {
+		if (lookupCache != null) lookupCache.invalidate(key);
+	}
+
 	// ==================== Size Method ====================
 
 	/**
@@ -300,33 +814,19 @@ public class Treap implements Searchable {
 	// ==================== Display Tree ====================
 
 	/**
-	 * Displays the treap structure in a human-readable format.
+	 * Displays the treap structure in a human-readable format. The output is produced by a
+	 * {@link TreeExporter}, which walks the tree iteratively and writes it in large buffered
+	 * pieces; use an exporter directly to write to a file or channel, as DOT, or with a depth limit.
 	 */
 	public void displayTree() {
 		if (root == null) {
 			System.out.println("Tree is empty.");
-		} else {
-			displayTreeRecursive(root, "", true);
+			return;
 		}
-	}
-
-	/**
-	 * Helper method to recursively display the treap structure.
-	 *
-	 * @param node  The current node in the treap.
-	 * @param prefix The prefix for formatting the output.
-	 * @param isTail True if this is the last child, false otherwise.
-	 */
-	protected void displayTreeRecursive(TreapNode node, String prefix, boolean isTail) {
-		System.out.println(prefix + (isTail ? "└── " : "├── ") + node.key + " (" + node.heapValue + ")");
-
-		List<TreapNode> children = new ArrayList<>();
-		if (node.left != null) children.add(node.left);
-		if (node.right != null) children.add(node.right);
-
-		for (int i = 0; i < children.size(); i++) {
-			boolean isLastChild = (i == children.size() - 1);
-			displayTreeRecursive(children.get(i), prefix + (isTail ? "    " : "│   "), isLastChild);
+		try {
+			new TreeExporter(TreeExporter.Format.ASCII).export(this, System.out);
+		} catch (IOException e) {
+			throw new IllegalStateException("System.out does not throw", e); // PrintStream records errors instead
 		}
 	}
 
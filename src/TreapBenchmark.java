@@ -0,0 +1,1408 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The TreapBenchmark class contains simple replay benchmarks for the treap variants in this project.
+ * Each benchmark is selected by name on the command line (for example {@code java TreapBenchmark decay});
+ * when no names are given every benchmark is run. Workloads use a fixed seed so runs are comparable.
+ */
+public class TreapBenchmark {
+
+	// Seed shared by every workload generator so that results are reproducible
+	private static final long SEED = 42L;
+
+	public static void main(String[] args) {
+		Set<String> selected = new HashSet<>(Arrays.asList(args));
+
+		if (selected.isEmpty() || selected.contains("decay")) benchmarkDecay();
+		if (selected.isEmpty() || selected.contains("sampling")) benchmarkSampling();
+		if (selected.isEmpty() || selected.contains("sketch")) benchmarkSketch();
+		if (selected.isEmpty() || selected.contains("priorities")) benchmarkPriorities();
+		if (selected.isEmpty() || selected.contains("batch")) benchmarkBatchReprioritize();
+		if (selected.isEmpty() || selected.contains("lfu")) benchmarkBoundedCache();
+		if (selected.isEmpty() || selected.contains("pq")) benchmarkPriorityQueue();
+		if (selected.isEmpty() || selected.contains("implicit")) benchmarkImplicitSequence();
+		if (selected.isEmpty() || selected.contains("arena")) benchmarkKeyArena();
+		if (selected.isEmpty() || selected.contains("prefix")) benchmarkPrefixCompression();
+		if (selected.isEmpty() || selected.contains("server")) benchmarkServer();
+		if (selected.isEmpty() || selected.contains("async")) benchmarkAsyncWriter();
+		if (selected.isEmpty() || selected.contains("sharded")) benchmarkSharded();
+		if (selected.isEmpty() || selected.contains("tombstone")) benchmarkTombstones();
+		if (selected.isEmpty() || selected.contains("cow")) benchmarkCopyOnWrite();
+		if (selected.isEmpty() || selected.contains("export")) benchmarkExport();
+		if (selected.isEmpty() || selected.contains("freeze")) benchmarkFreeze();
+		if (selected.isEmpty() || selected.contains("bloom")) benchmarkBloomFilter();
+		if (selected.isEmpty() || selected.contains("cache")) benchmarkLookupCache();
+		if (selected.isEmpty() || selected.contains("indexed")) benchmarkIndexedTreap();
+		if (selected.isEmpty() || selected.contains("rebuild")) benchmarkRebuild();
+	}
+
+	// ==================== Helper Methods ====================
+
+	/**
+	 * Generates {@code n} distinct keys of the form "key0", "key1", ... in shuffled order.
+	 *
+	 * @param n      The number of keys to generate.
+	 * @param random The random source used to shuffle the keys.
+	 * @return       The shuffled keys.
+	 */
+	private static String[] shuffledKeys(int n, Random random) {
+		String[] keys = new String[n];
+		for (int i = 0; i < n; i++) keys[i] = "key" + i;
+		for (int i = n - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			String tmp = keys[i];
+			keys[i] = keys[j];
+			keys[j] = tmp;
+		}
+		return keys;
+	}
+
+	/**
+	 * Fills a treap with the given keys and random heap values. Nodes are inserted through
+	 * insertNode directly because Treap.add scans the whole tree for a duplicate heap value,
+	 * which would make building large benchmark trees quadratic.
+	 *
+	 * @param treap  The treap to fill.
+	 * @param keys   The keys to insert.
+	 * @param random The random source for the heap values.
+	 */
+	private static void fill(Treap treap, String[] keys, Random random) {
+		for (String key : keys) {
+			treap.root = treap.insertNode(treap.root, key, 1 + random.nextInt(Integer.MAX_VALUE - 1));
+			treap.count++;
+		}
+	}
+
+	/**
+	 * Computes the average and maximum node depth of a tree with an explicit stack, so that even
+	 * badly degenerated trees can be measured. The root has depth 0.
+	 *
+	 * @param root The root of the tree.
+	 * @return     A two-element array holding the average depth and the maximum depth.
+	 */
+	private static double[] depthStats(TreapNode root) {
+		if (root == null) return new double[] {0, 0};
+		ArrayDeque<TreapNode> nodes = new ArrayDeque<>();
+		ArrayDeque<Integer> depths = new ArrayDeque<>();
+		nodes.push(root);
+		depths.push(0);
+		long total = 0;
+		long n = 0;
+		int max = 0;
+		while (!nodes.isEmpty()) {
+			TreapNode node = nodes.pop();
+			int depth = depths.pop();
+			total += depth;
+			n++;
+			max = Math.max(max, depth);
+			if (node.left != null) { nodes.push(node.left); depths.push(depth + 1); }
+			if (node.right != null) { nodes.push(node.right); depths.push(depth + 1); }
+		}
+		return new double[] {(double) total / n, max};
+	}
+
+	/**
+	 * Zipf-distributed index sampler over [0, n). Rank 0 is the most popular index.
+	 */
+	private static class Zipf {
+		private final double[] cumulative; // Cumulative probability of ranks 0..i
+
+		/**
+		 * Precomputes the cumulative distribution for a Zipf law with the given exponent.
+		 *
+		 * @param n        The number of distinct ranks.
+		 * @param exponent The skew of the distribution (1.0 is classic Zipf).
+		 */
+		Zipf(int n, double exponent) {
+			cumulative = new double[n];
+			double sum = 0;
+			for (int i = 0; i < n; i++) {
+				sum += 1.0 / Math.pow(i + 1, exponent);
+				cumulative[i] = sum;
+			}
+			for (int i = 0; i < n; i++) cumulative[i] /= sum;
+		}
+
+		/**
+		 * Draws the next rank.
+		 *
+		 * @param random The random source.
+		 * @return       A rank in [0, n).
+		 */
+		int next(Random random) {
+			int index = Arrays.binarySearch(cumulative, random.nextDouble());
+			return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+		}
+	}
+
+	/**
+	 * Generates a trace of key indexes drawn from a Zipf distribution.
+	 *
+	 * @param length The number of accesses in the trace.
+	 * @param zipf   The Zipf sampler.
+	 * @param random The random source.
+	 * @return       The trace.
+	 */
+	private static int[] zipfTrace(int length, Zipf zipf, Random random) {
+		int[] trace = new int[length];
+		for (int i = 0; i < length; i++) trace[i] = zipf.next(random);
+		return trace;
+	}
+
+	// ==================== Decay Benchmark ====================
+
+	/**
+	 * Replays a moving-hotspot workload against a SearchTree with and without search count decay
+	 * and reports the average depth of the accessed keys. Every phase picks a new small hot set
+	 * that receives 90% of the traffic, so a tree that only remembers lifetime totals keeps old
+	 * hot keys near the root while a decaying tree promotes the current ones.
+	 */
+	private static void benchmarkDecay() {
+		final int keyCount = 20_000;
+		final int phases = 20;
+		final int accessesPerPhase = 50_000;
+		final int hotSetSize = 50;
+
+		System.out.println("----- SEARCH COUNT DECAY (moving hotspot) -----");
+		for (int decayInterval : new int[] {0, 20_000, 5_000}) {
+			Random random = new Random(SEED);
+			String[] keys = shuffledKeys(keyCount, random);
+
+			SearchTree tree = new SearchTree();
+			tree.setDecayInterval(decayInterval);
+			for (String key : keys) tree.add(key);
+
+			long totalDepth = 0;
+			long start = System.nanoTime();
+			for (int phase = 0; phase < phases; phase++) {
+				String[] hotSet = new String[hotSetSize];
+				for (int i = 0; i < hotSetSize; i++) hotSet[i] = keys[random.nextInt(keyCount)];
+
+				for (int i = 0; i < accessesPerPhase; i++) {
+					String key = random.nextInt(10) < 9 ? hotSet[random.nextInt(hotSetSize)] : keys[random.nextInt(keyCount)];
+					totalDepth += tree.findDepth(key);
+					tree.find(key);
+				}
+			}
+			long elapsed = System.nanoTime() - start;
+
+			System.out.printf("decayInterval=%-6d avg depth=%6.2f  time=%d ms%n",
+					decayInterval, (double) totalDepth / (phases * accessesPerPhase), elapsed / 1_000_000);
+		}
+	}
+
+	// ==================== Sampling Benchmark ====================
+
+	/**
+	 * Replays a Zipf read workload against SearchTrees with different promotion sampling rates and
+	 * reports throughput and the average depth of accessed keys once the tree has adapted. A rate of
+	 * 0 disables promotion and serves as the non-adaptive baseline.
+	 */
+	private static void benchmarkSampling() {
+		final int keyCount = 100_000;
+		final int traceLength = 2_000_000;
+
+		System.out.println("----- SAMPLED PROMOTION (Zipf 1.0 reads) -----");
+		Random random = new Random(SEED);
+		String[] keys = shuffledKeys(keyCount, random);
+		int[] trace = zipfTrace(traceLength, new Zipf(keyCount, 1.0), random);
+
+		for (double rate : new double[] {1.0, 0.1, 0.01, 0.0}) {
+			SearchTree tree = new SearchTree();
+			tree.setSamplingRate(rate);
+			for (String key : keys) tree.add(key);
+
+			long start = System.nanoTime();
+			for (int index : trace) tree.find(keys[index]);
+			long elapsed = System.nanoTime() - start;
+
+			long totalDepth = 0;
+			for (int i = 0; i < 100_000; i++) totalDepth += tree.findDepth(keys[trace[i]]);
+
+			System.out.printf("rate=%-5.2f %7.1f ns/op  avg depth=%6.2f%n",
+					rate, (double) elapsed / traceLength, totalDepth / 100_000.0);
+		}
+	}
+
+	// ==================== Sketch Benchmark ====================
+
+	/**
+	 * Compares per-node exact search counts with a shared Count-Min sketch on a Zipf read workload,
+	 * reporting throughput, the average depth of accessed keys and the size of the frequency state.
+	 */
+	private static void benchmarkSketch() {
+		final int keyCount = 100_000;
+		final int traceLength = 2_000_000;
+
+		System.out.println("----- COUNT-MIN SKETCH FREQUENCIES (Zipf 1.0 reads) -----");
+		Random random = new Random(SEED);
+		String[] keys = shuffledKeys(keyCount, random);
+		int[] trace = zipfTrace(traceLength, new Zipf(keyCount, 1.0), random);
+
+		for (int width : new int[] {0, 1 << 14, 1 << 12}) {
+			SearchTree tree = width == 0 ? new SearchTree() : new SearchTree(new CountMinSketch(width, 4, 10 * keyCount));
+			for (String key : keys) tree.add(key);
+
+			long start = System.nanoTime();
+			for (int index : trace) tree.find(keys[index]);
+			long elapsed = System.nanoTime() - start;
+
+			long totalDepth = 0;
+			for (int i = 0; i < 100_000; i++) totalDepth += tree.findDepth(keys[trace[i]]);
+
+			// Per-node counters cost two ints per node; the sketch costs width * depth ints in total
+			long frequencyBytes = width == 0 ? 8L * keyCount : 4L * width * 4;
+			System.out.printf("%-14s %7.1f ns/op  avg depth=%6.2f  frequency state=%d KB%n",
+					width == 0 ? "per-node" : "sketch w=" + width, (double) elapsed / traceLength,
+					totalDepth / 100_000.0, frequencyBytes / 1024);
+		}
+	}
+
+	// ==================== Priorities Benchmark ====================
+
+	/**
+	 * Reports average and maximum depth against tree size for three ways of choosing heap values:
+	 * the legacy draw from [0, 99], random values over the full positive int range, and values
+	 * hashed from the key. Keys are inserted both shuffled and in sorted order; with heavily tied
+	 * priorities the sorted order exposes how far the tree collapses towards a list.
+	 */
+	private static void benchmarkPriorities() {
+		System.out.println("----- HEAP VALUE GENERATION (depth vs size) -----");
+		for (int size : new int[] {1_000, 10_000, 100_000}) {
+			String[] shuffled = shuffledKeys(size, new Random(SEED));
+			String[] sorted = shuffled.clone();
+			Arrays.sort(sorted);
+
+			for (String[] order : new String[][] {shuffled, sorted}) {
+				String orderName = order == shuffled ? "shuffled" : "sorted";
+
+				// Legacy generator, inserted through insertNode directly as SearchTree.add used to
+				Treap legacy = new Treap();
+				Random random = new Random(SEED);
+				for (String key : order) legacy.root = legacy.insertNode(legacy.root, key, random.nextInt(100));
+
+				SearchTree full = new SearchTree();
+				for (String key : order) full.add(key);
+
+				SearchTree hashed = new SearchTree();
+				hashed.setHashedPriorities(true);
+				for (String key : order) hashed.add(key);
+
+				double[] legacyStats = depthStats(legacy.root);
+				double[] fullStats = depthStats(full.root);
+				double[] hashedStats = depthStats(hashed.root);
+				System.out.printf("n=%-7d %-8s  [0,99] avg=%7.2f max=%5.0f  | full-range avg=%5.2f max=%3.0f  | hashed avg=%5.2f max=%3.0f%n",
+						size, orderName, legacyStats[0], legacyStats[1], fullStats[0], fullStats[1], hashedStats[0], hashedStats[1]);
+			}
+		}
+	}
+
+	// ==================== Batch Reprioritization Benchmark ====================
+
+	/**
+	 * Compares k individual changeOrder calls with one changeOrderAll call for growing k on a
+	 * treap of fixed size.
+	 */
+	private static void benchmarkBatchReprioritize() {
+		final int keyCount = 500_000;
+
+		System.out.println("----- BATCH REPRIORITIZATION (changeOrder x k vs changeOrderAll) -----");
+		Random random = new Random(SEED);
+		String[] keys = shuffledKeys(keyCount, random);
+
+		for (int k : new int[] {10_000, 100_000, 500_000}) {
+			String[] batchKeys = Arrays.copyOf(keys, k);
+			int[] batchValues = new int[k];
+			for (int i = 0; i < k; i++) batchValues[i] = 1 + random.nextInt(Integer.MAX_VALUE - 1);
+
+			Treap individual = new Treap();
+			fill(individual, keys, new Random(SEED));
+			long start = System.nanoTime();
+			for (int i = 0; i < k; i++) individual.changeOrder(batchKeys[i], batchValues[i]);
+			long individualTime = System.nanoTime() - start;
+
+			Treap batched = new Treap();
+			fill(batched, keys, new Random(SEED));
+			start = System.nanoTime();
+			batched.changeOrderAll(batchKeys, batchValues);
+			long batchedTime = System.nanoTime() - start;
+
+			System.out.printf("n=%d k=%-7d changeOrder x k: %5d ms   changeOrderAll: %5d ms%n",
+					keyCount, k, individualTime / 1_000_000, batchedTime / 1_000_000);
+		}
+	}
+
+	// ==================== Bounded Cache Benchmark ====================
+
+	/**
+	 * Replays Zipf traces against a BoundedSearchTree (LFU eviction) and an LRU LinkedHashMap of the
+	 * same capacity, treating every miss as a fill from the slow store, and reports hit rates and
+	 * throughput.
+	 */
+	private static void benchmarkBoundedCache() {
+		final int keyCount = 1_000_000;
+		final int capacity = 10_000;
+		final int traceLength = 3_000_000;
+
+		System.out.println("----- BOUNDED LFU SEARCHTREE vs LRU LinkedHashMap -----");
+		Random random = new Random(SEED);
+		String[] keys = shuffledKeys(keyCount, random);
+
+		for (double exponent : new double[] {0.8, 1.0, 1.2}) {
+			int[] trace = zipfTrace(traceLength, new Zipf(keyCount, exponent), random);
+
+			BoundedSearchTree lfu = new BoundedSearchTree(capacity);
+			long hits = 0;
+			long start = System.nanoTime();
+			for (int index : trace) {
+				if (lfu.find(keys[index])) hits++;
+				else lfu.add(keys[index]);
+			}
+			long lfuTime = System.nanoTime() - start;
+			double lfuHitRate = (double) hits / traceLength;
+
+			Map<String, Boolean> lru = new LinkedHashMap<String, Boolean>(capacity * 2, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+					return size() > capacity;
+				}
+			};
+			hits = 0;
+			start = System.nanoTime();
+			for (int index : trace) {
+				String key = keys[index].toLowerCase(); // Same case folding as the tree
+				if (lru.get(key) != null) hits++;
+				else lru.put(key, Boolean.TRUE);
+			}
+			long lruTime = System.nanoTime() - start;
+			double lruHitRate = (double) hits / traceLength;
+
+			System.out.printf("zipf %.1f capacity=%d  LFU tree: hit rate=%5.1f%% %6.1f ns/op  |  LRU map: hit rate=%5.1f%% %6.1f ns/op%n",
+					exponent, capacity, 100 * lfuHitRate, (double) lfuTime / traceLength, 100 * lruHitRate, (double) lruTime / traceLength);
+		}
+	}
+
+	// ==================== Priority Queue Benchmark ====================
+
+	/**
+	 * Compares the treap's priority queue methods with a java.util.PriorityQueue kept next to a
+	 * HashMap for key lookups, which is how callers tracked the maximum before. Measures repeated
+	 * top-10 queries and draining the whole structure in heap order.
+	 */
+	private static void benchmarkPriorityQueue() {
+		final int keyCount = 1_000_000;
+		final int topKQueries = 100_000;
+
+		System.out.println("----- PRIORITY QUEUE API (Treap vs PriorityQueue + HashMap) -----");
+		Random random = new Random(SEED);
+		String[] keys = shuffledKeys(keyCount, random);
+		int[] heapValues = new int[keyCount];
+		for (int i = 0; i < keyCount; i++) heapValues[i] = 1 + random.nextInt(Integer.MAX_VALUE - 1);
+
+		Treap treap = new Treap();
+		for (int i = 0; i < keyCount; i++) {
+			treap.root = treap.insertNode(treap.root, keys[i], heapValues[i]); // See fill() for why add() is bypassed
+			treap.count++;
+		}
+		Map<String, Integer> priorities = new HashMap<>();
+		PriorityQueue<String> queue = new PriorityQueue<>((a, b) -> Integer.compare(priorities.get(b), priorities.get(a)));
+		for (int i = 0; i < keyCount; i++) {
+			priorities.put(keys[i], heapValues[i]);
+			queue.add(keys[i]);
+		}
+
+		long start = System.nanoTime();
+		for (int q = 0; q < topKQueries; q++) treap.topK(10);
+		long treapTopK = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		String[] top = new String[10];
+		for (int q = 0; q < topKQueries; q++) {
+			for (int i = 0; i < 10; i++) top[i] = queue.poll(); // PriorityQueue has no ordered peek beyond the head
+			for (int i = 0; i < 10; i++) queue.add(top[i]);
+		}
+		long queueTopK = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		while (treap.pollMax() != null) { }
+		long treapDrain = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		while (!queue.isEmpty()) priorities.remove(queue.poll());
+		long queueDrain = System.nanoTime() - start;
+
+		System.out.printf("topK(10):   Treap %6.0f ns/query   PriorityQueue+HashMap %6.0f ns/query%n",
+				(double) treapTopK / topKQueries, (double) queueTopK / topKQueries);
+		System.out.printf("pollMax:    Treap %6.0f ns/op      PriorityQueue+HashMap %6.0f ns/op%n",
+				(double) treapDrain / keyCount, (double) queueDrain / keyCount);
+	}
+
+	// ==================== Implicit Sequence Benchmark ====================
+
+	/**
+	 * Compares positional insert, remove and get on an ImplicitTreap with ArrayList and LinkedList
+	 * holding the same large sequence. Positions are uniform, so ArrayList shifts half the array
+	 * per update and LinkedList walks a quarter of the list on average; both therefore run far fewer
+	 * operations than the treap and are reported per operation. The sequence length defaults to 10M
+	 * and can be lowered with {@code -Dimplicit.size=N} on machines with little memory.
+	 */
+	private static void benchmarkImplicitSequence() {
+		final int size = Integer.getInteger("implicit.size", 10_000_000);
+		final int treapOps = 1_000_000;
+		final int arrayListOps = 2_000;
+		final int linkedListOps = 200;
+
+		System.out.println("----- IMPLICIT SEQUENCE (" + size + " elements, uniform positions) -----");
+		System.out.println("structure       ops       insertAt ns   removeAt ns   get ns");
+
+		ImplicitTreap<Integer> treap = new ImplicitTreap<>();
+		for (int i = 0; i < size; i++) treap.add(i & 1023); // Small values come from the Integer cache
+		reportSequence("ImplicitTreap", treapOps, sequenceOps(treap::insertAt, treap::removeAt, treap::get, size, treapOps));
+		treap = null;
+
+		List<Integer> arrayList = new ArrayList<>(size + 1);
+		for (int i = 0; i < size; i++) arrayList.add(i & 1023);
+		reportSequence("ArrayList", arrayListOps, sequenceOps(arrayList::add, arrayList::remove, arrayList::get, size, arrayListOps));
+		arrayList = null;
+
+		List<Integer> linkedList = new LinkedList<>();
+		for (int i = 0; i < size; i++) linkedList.add(i & 1023);
+		reportSequence("LinkedList", linkedListOps, sequenceOps(linkedList::add, linkedList::remove, linkedList::get, size, linkedListOps));
+	}
+
+	/**
+	 * Helper interface for a positional insert, so the three sequence types can share one replay.
+	 */
+	private interface PositionalInsert {
+		void insertAt(int index, Integer value);
+	}
+
+	/**
+	 * Helper interface for a positional remove or get.
+	 */
+	private interface PositionalAccess {
+		Integer at(int index);
+	}
+
+	/**
+	 * Replays {@code ops} inserts at random positions, then {@code ops} gets, then {@code ops}
+	 * removes at random positions, so the sequence ends at its original length.
+	 *
+	 * @param insert The positional insert of the sequence.
+	 * @param remove The positional remove of the sequence.
+	 * @param get    The positional get of the sequence.
+	 * @param size   The initial length of the sequence.
+	 * @param ops    The number of operations of each kind.
+	 * @return       The total nanoseconds spent in inserts, removes and gets, in that order.
+	 */
+	private static long[] sequenceOps(PositionalInsert insert, PositionalAccess remove, PositionalAccess get, int size, int ops) {
+		Random random = new Random(SEED);
+		long sink = 0;
+
+		long start = System.nanoTime();
+		for (int i = 0; i < ops; i++) insert.insertAt(random.nextInt(size + i + 1), i & 1023);
+		long insertNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < ops; i++) sink += get.at(random.nextInt(size + ops));
+		long getNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < ops; i++) sink += remove.at(random.nextInt(size + ops - i));
+		long removeNanos = System.nanoTime() - start;
+
+		if (sink == 42) System.out.print(""); // Keep the reads from being optimized away
+		return new long[] {insertNanos, removeNanos, getNanos};
+	}
+
+	/**
+	 * Prints one row of the implicit sequence benchmark.
+	 *
+	 * @param name   The name of the structure.
+	 * @param ops    The number of operations of each kind.
+	 * @param nanos  The total nanoseconds for inserts, removes and gets.
+	 */
+	private static void reportSequence(String name, int ops, long[] nanos) {
+		System.out.printf("%-14s %9d %13.0f %13.0f %8.0f%n", name, ops,
+				(double) nanos[0] / ops, (double) nanos[1] / ops, (double) nanos[2] / ops);
+	}
+
+	// ==================== Key Arena Benchmark ====================
+
+	/**
+	 * Compares the heap footprint and lookup speed of a Treap, which keeps one String per node,
+	 * with an ArenaTreap, which keeps all keys in a shared byte arena. Keys are short
+	 * ("user" followed by a number), where object headers dominate. The key count defaults to 20M
+	 * and can be lowered with {@code -Darena.size=N}.
+	 */
+	private static void benchmarkKeyArena() {
+		final int keyCount = Integer.getInteger("arena.size", 20_000_000);
+		final int lookups = 1_000_000;
+
+		System.out.println("----- KEY ARENA (" + keyCount + " short keys) -----");
+
+		Random random = new Random(SEED);
+		long before = usedHeap();
+		Treap treap = new Treap();
+		for (int i = 0; i < keyCount; i++) {
+			treap.root = treap.insertNode(treap.root, "user" + i, 1 + random.nextInt(Integer.MAX_VALUE - 1)); // See fill()
+			treap.count++;
+		}
+		long treapBytes = usedHeap() - before;
+		long treapNanos = timeLookups(treap, keyCount, lookups);
+		treap = null;
+
+		random = new Random(SEED);
+		before = usedHeap();
+		ArenaTreap arenaTreap = new ArenaTreap();
+		for (int i = 0; i < keyCount; i++) arenaTreap.add("user" + i, 1 + random.nextInt(Integer.MAX_VALUE - 1));
+		long arenaBytes = usedHeap() - before;
+		long arenaNanos = timeLookups(arenaTreap, keyCount, lookups);
+
+		System.out.printf("Treap:      %6.1f bytes/key   find %5.0f ns%n", (double) treapBytes / keyCount, (double) treapNanos / lookups);
+		System.out.printf("ArenaTreap: %6.1f bytes/key   find %5.0f ns   (%d key bytes in arena)%n",
+				(double) arenaBytes / keyCount, (double) arenaNanos / lookups, arenaTreap.arenaBytes());
+	}
+
+	/**
+	 * Runs a garbage collection and returns the heap space in use.
+	 *
+	 * @return The number of bytes in use.
+	 */
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Times random lookups of present keys of the form "user" followed by a number.
+	 *
+	 * @param tree     The tree to search.
+	 * @param keyCount The number of keys in the tree.
+	 * @param lookups  The number of lookups.
+	 * @return         The total nanoseconds spent.
+	 */
+	private static long timeLookups(Searchable tree, int keyCount, int lookups) {
+		Random random = new Random(SEED + 1);
+		String[] queries = new String[lookups];
+		for (int i = 0; i < lookups; i++) queries[i] = "user" + random.nextInt(keyCount);
+		return timeFinds(tree, queries);
+	}
+
+	// ==================== Prefix Compression Benchmark ====================
+
+	// Path segments used to generate URL-like keys
+	private static final String[] URL_SECTIONS = {"catalog", "account", "support", "blog", "search", "checkout"};
+	private static final String[] URL_CATEGORIES = {"electronics", "home-and-garden", "sports-outdoors", "books", "toys-and-games",
+			"fashion/women", "fashion/men", "grocery/fresh-produce"};
+
+	/**
+	 * Builds the i-th URL-like key. Keys share a scheme and a handful of hosts, sections and
+	 * categories, so neighbouring keys in sorted order have long common prefixes.
+	 *
+	 * @param i The index of the key.
+	 * @return  The key.
+	 */
+	private static String urlKey(int i) {
+		int mix = i * 0x9E3779B1;
+		return "https://www.shop" + ((mix >>> 28) & 3) + ".example.com/" + URL_SECTIONS[((mix >>> 20) & 0xff) % URL_SECTIONS.length]
+				+ "/" + URL_CATEGORIES[((mix >>> 12) & 0xff) % URL_CATEGORIES.length] + "/item-" + i;
+	}
+
+	/**
+	 * Compares the heap footprint and lookup speed of a Treap, which stores every URL in full, with
+	 * a PrefixTreap, which stores each key as a prefix length relative to its parent plus a suffix.
+	 * The key count defaults to 2M and can be changed with {@code -Dprefix.size=N}.
+	 */
+	private static void benchmarkPrefixCompression() {
+		final int keyCount = Integer.getInteger("prefix.size", 2_000_000);
+		final int lookups = 1_000_000;
+
+		System.out.println("----- PREFIX COMPRESSION (" + keyCount + " URL keys, e.g. " + urlKey(0) + ") -----");
+		Random random = new Random(SEED);
+		String[] queries = new String[lookups];
+		for (int i = 0; i < lookups; i++) queries[i] = urlKey(random.nextInt(keyCount));
+
+		random = new Random(SEED);
+		long before = usedHeap();
+		Treap treap = new Treap();
+		for (int i = 0; i < keyCount; i++) {
+			treap.root = treap.insertNode(treap.root, urlKey(i), 1 + random.nextInt(Integer.MAX_VALUE - 1)); // See fill()
+			treap.count++;
+		}
+		long treapBytes = usedHeap() - before;
+		long treapNanos = timeFinds(treap, queries);
+		treap = null;
+
+		random = new Random(SEED);
+		before = usedHeap();
+		PrefixTreap prefixTreap = new PrefixTreap();
+		for (int i = 0; i < keyCount; i++) prefixTreap.add(urlKey(i), 1 + random.nextInt(Integer.MAX_VALUE - 1));
+		long prefixBytes = usedHeap() - before;
+		long prefixNanos = timeFinds(prefixTreap, queries);
+
+		System.out.printf("Treap:       %6.1f bytes/key   find %5.0f ns%n", (double) treapBytes / keyCount, (double) treapNanos / lookups);
+		System.out.printf("PrefixTreap: %6.1f bytes/key   find %5.0f ns%n", (double) prefixBytes / keyCount, (double) prefixNanos / lookups);
+	}
+
+	/**
+	 * Times lookups of keys that are all present in the tree.
+	 *
+	 * @param tree    The tree to search.
+	 * @param queries The keys to look up.
+	 * @return        The total nanoseconds spent.
+	 */
+	private static long timeFinds(Searchable tree, String[] queries) {
+		int found = 0;
+		long start = System.nanoTime();
+		for (String query : queries) if (tree.find(query)) found++;
+		long nanos = System.nanoTime() - start;
+		if (found != queries.length) throw new IllegalStateException("lookup missed a present key");
+		return nanos;
+	}
+
+	// ==================== Server Benchmark ====================
+
+	/**
+	 * Load generator for TreapServer over localhost. Several client threads each send a mix of
+	 * 80% find, 10% add and 10% remove requests on Zipf-distributed keys, in pipelined rounds of
+	 * {@code depth} requests: a round is written and flushed at once and then all its answers are
+	 * read. The latency of a request is the time from flushing its round to reading its answer.
+	 * Runs once without pipelining (depth 1) and once with it, and reports throughput and latency
+	 * percentiles.
+	 */
+	private static void benchmarkServer() {
+		final int keyCount = 100_000;
+		final int clients = 4;
+		final int requestsPerClient = 100_000;
+
+		System.out.println("----- TREAP SERVER (localhost, " + clients + " connections) -----");
+		SearchTree tree = new SearchTree();
+		for (String key : shuffledKeys(keyCount, new Random(SEED))) tree.add(key);
+		Zipf zipf = new Zipf(keyCount * 2, 1.0); // Half of the key space is absent, so adds and removes both succeed
+
+		try (TreapServer server = new TreapServer(tree, 0)) {
+			for (int depth : new int[] {1, 32}) {
+				long[] latencies = new long[clients * requestsPerClient];
+				Thread[] threads = new Thread[clients];
+				long start = System.nanoTime();
+				for (int c = 0; c < clients; c++) {
+					final int client = c;
+					threads[c] = new Thread(() -> runClient(server.port(), zipf, new Random(SEED + client), depth,
+							latencies, client * requestsPerClient, requestsPerClient));
+					threads[c].start();
+				}
+				for (Thread thread : threads) thread.join();
+				long elapsed = System.nanoTime() - start;
+
+				Arrays.sort(latencies);
+				System.out.printf("pipeline depth %2d: %9.0f ops/s   p50 %6.1f us   p99 %7.1f us%n", depth,
+						latencies.length * 1e9 / elapsed, latencies[latencies.length / 2] / 1e3,
+						latencies[(int) (latencies.length * 0.99)] / 1e3);
+			}
+		} catch (IOException | InterruptedException e) {
+			throw new IllegalStateException("server benchmark failed", e);
+		}
+	}
+
+	/**
+	 * Runs one load generator connection and records the latency of each request.
+	 *
+	 * @param port      The server port.
+	 * @param zipf      The key popularity distribution.
+	 * @param random    The random source of this connection.
+	 * @param depth     The number of requests per pipelined round.
+	 * @param latencies The array that receives the latencies in nanoseconds.
+	 * @param offset    The first index of this connection in the latency array.
+	 * @param requests  The number of requests to send.
+	 */
+	private static void runClient(int port, Zipf zipf, Random random, int depth, long[] latencies, int offset, int requests) {
+		try (TreapClient client = new TreapClient("127.0.0.1", port)) {
+			for (int sent = 0; sent < requests; sent += depth) {
+				int round = Math.min(depth, requests - sent);
+				for (int i = 0; i < round; i++) {
+					int mix = random.nextInt(10);
+					byte op = mix == 0 ? TreapServer.OP_ADD : mix == 1 ? TreapServer.OP_REMOVE : TreapServer.OP_FIND;
+					client.send(op, "key" + zipf.next(random), 0);
+				}
+				long roundStart = System.nanoTime();
+				client.flush();
+				for (int i = 0; i < round; i++) {
+					client.readStatus();
+					latencies[offset + sent + i] = System.nanoTime() - roundStart;
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("load generator connection failed", e);
+		}
+	}
+
+	// ==================== Async Writer Benchmark ====================
+
+	/**
+	 * Compares several threads updating one Treap under a shared lock with the same threads
+	 * submitting to an AsyncTreap, whose single writer applies batches and coalesces repeated
+	 * changeOrder requests. Producers send changeOrder requests for Zipf-distributed keys, so hot
+	 * keys are updated repeatedly, as with frequency-driven priorities.
+	 */
+	private static void benchmarkAsyncWriter() {
+		final int keyCount = 100_000;
+		final int producers = 4;
+		final int updatesPerProducer = 250_000;
+
+		System.out.println("----- ASYNC SINGLE WRITER (" + producers + " producers, changeOrder on Zipf keys) -----");
+		Random random = new Random(SEED);
+		String[] keys = shuffledKeys(keyCount, random);
+		Zipf zipf = new Zipf(keyCount, 1.0);
+		int[][] traces = new int[producers][];
+		for (int p = 0; p < producers; p++) traces[p] = zipfTrace(updatesPerProducer, zipf, new Random(SEED + p));
+
+		Treap locked = new Treap();
+		fill(locked, keys, new Random(SEED));
+		long lockedNanos = runProducers(producers, p -> {
+			Random heapValues = new Random(SEED + p);
+			for (int index : traces[p]) {
+				synchronized (locked) {
+					locked.changeOrder(keys[index], 1 + heapValues.nextInt(Integer.MAX_VALUE - 1));
+				}
+			}
+		});
+
+		Treap owned = new Treap();
+		fill(owned, keys, new Random(SEED));
+		AsyncTreap async = new AsyncTreap(owned);
+		long asyncNanos = runProducers(producers, p -> {
+			Random heapValues = new Random(SEED + p);
+			CompletableFuture<Boolean> last = null;
+			for (int index : traces[p]) last = async.changeOrderAsync(keys[index], 1 + heapValues.nextInt(Integer.MAX_VALUE - 1));
+			last.join(); // Requests of one producer complete in order
+		});
+		async.close();
+
+		// Same again while a reader keeps asking for fresh snapshots
+		Treap observed = new Treap();
+		fill(observed, keys, new Random(SEED));
+		AsyncTreap watched = new AsyncTreap(observed);
+		AtomicBoolean reading = new AtomicBoolean(true);
+		long[] snapshotsSeen = {0};
+		Thread reader = new Thread(() -> {
+			long lastVersion = -1;
+			while (reading.get()) {
+				AsyncTreap.Snapshot snapshot = watched.snapshot();
+				if (snapshot.version() != lastVersion) {
+					lastVersion = snapshot.version();
+					snapshotsSeen[0]++;
+				}
+				Thread.yield();
+			}
+		});
+		reader.start();
+		long watchedNanos = runProducers(producers, p -> {
+			Random heapValues = new Random(SEED + p);
+			CompletableFuture<Boolean> last = null;
+			for (int index : traces[p]) last = watched.changeOrderAsync(keys[index], 1 + heapValues.nextInt(Integer.MAX_VALUE - 1));
+			last.join();
+		});
+		reading.set(false);
+		try {
+			reader.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		watched.close();
+
+		long updates = (long) producers * updatesPerProducer;
+		System.out.printf("synchronized Treap: %9.0f updates/s%n", updates * 1e9 / lockedNanos);
+		System.out.printf("AsyncTreap:         %9.0f updates/s   (%.1f%% coalesced)%n",
+				updates * 1e9 / asyncNanos, 100.0 * async.coalesced() / updates);
+		System.out.printf("AsyncTreap + reader:%9.0f updates/s   (%d snapshots seen)%n",
+				updates * 1e9 / watchedNanos, snapshotsSeen[0]);
+	}
+
+	/**
+	 * Helper interface for the body of one producer thread.
+	 */
+	private interface Producer {
+		void run(int producer);
+	}
+
+	/**
+	 * Runs the given body on several threads at once and returns the wall-clock time until all finish.
+	 *
+	 * @param producers The number of threads.
+	 * @param body      The work of each thread, given its index.
+	 * @return          The elapsed nanoseconds.
+	 */
+	private static long runProducers(int producers, Producer body) {
+		Thread[] threads = new Thread[producers];
+		long start = System.nanoTime();
+		for (int p = 0; p < producers; p++) {
+			final int producer = p;
+			threads[p] = new Thread(() -> body.run(producer));
+			threads[p].start();
+		}
+		try {
+			for (Thread thread : threads) thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return System.nanoTime() - start;
+	}
+
+	// ==================== Sharded Benchmark ====================
+
+	/**
+	 * Measures how throughput scales with the number of threads for one Treap behind a single
+	 * lock and for a ShardedTreap with 16 shards. Threads run 90% find and 10% changeOrder on
+	 * uniformly distributed keys, so with sharding they rarely meet on the same lock.
+	 */
+	private static void benchmarkSharded() {
+		final int keyCount = 1_000_000;
+		final int opsPerThread = 500_000;
+		final int shardCount = 16;
+
+		System.out.println("----- SHARDED TREAP (" + shardCount + " shards, uniform keys, "
+				+ Runtime.getRuntime().availableProcessors() + " CPUs) -----");
+		String[] keys = shuffledKeys(keyCount, new Random(SEED));
+
+		Treap single = new Treap();
+		fill(single, keys, new Random(SEED));
+		ShardedTreap sharded = new ShardedTreap(shardCount);
+		fill(sharded.shard(0), keys, new Random(SEED)); // Bulk load one shard, then spread it out
+		sharded.rebalance();
+
+		for (int threads : new int[] {1, 2, 4, 8}) {
+			long singleNanos = runProducers(threads, t -> {
+				Random random = new Random(SEED + t);
+				for (int i = 0; i < opsPerThread; i++) {
+					String key = keys[random.nextInt(keyCount)];
+					boolean update = random.nextInt(10) == 0;
+					synchronized (single) {
+						if (update) single.changeOrder(key, 1 + random.nextInt(Integer.MAX_VALUE - 1));
+						else single.find(key);
+					}
+				}
+			});
+			long shardedNanos = runProducers(threads, t -> {
+				Random random = new Random(SEED + t);
+				for (int i = 0; i < opsPerThread; i++) {
+					String key = keys[random.nextInt(keyCount)];
+					if (random.nextInt(10) == 0) sharded.changeOrder(key, 1 + random.nextInt(Integer.MAX_VALUE - 1));
+					else sharded.find(key);
+				}
+			});
+			long ops = (long) threads * opsPerThread;
+			System.out.printf("%d threads: locked Treap %9.0f ops/s   ShardedTreap %9.0f ops/s%n",
+					threads, ops * 1e9 / singleNanos, ops * 1e9 / shardedNanos);
+		}
+	}
+
+	// ==================== Tombstone Benchmark ====================
+
+	/**
+	 * Replays write-heavy churn (each step removes a random live key and inserts a new one) against
+	 * a Treap and a TombstoneTreap. Reports the time remove() takes on the caller's thread and the
+	 * total time including the background purges, which is measured after a final purge().
+	 */
+	private static void benchmarkTombstones() {
+		final int keyCount = 1_000_000;
+		final int steps = 1_000_000;
+
+		System.out.println("----- TOMBSTONE DELETION (" + keyCount + " keys, " + steps + " remove+insert steps) -----");
+		for (boolean lazy : new boolean[] {false, true}) {
+			Treap tree = lazy ? new TombstoneTreap() : new Treap(); // One tree at a time, so the other does not load the GC
+			String[] live = shuffledKeys(keyCount, new Random(SEED));
+			fill(tree, live, new Random(SEED));
+			Random random = new Random(SEED + 1);
+			long removeNanos = 0;
+			long start = System.nanoTime();
+			for (int i = 0; i < steps; i++) {
+				int slot = random.nextInt(keyCount);
+				long before = System.nanoTime();
+				tree.remove(live[slot]);
+				removeNanos += System.nanoTime() - before;
+
+				live[slot] = "new" + i;
+				synchronized (tree) { // The purge thread relinks a TombstoneTreap under this lock
+					tree.root = tree.insertNode(tree.root, live[slot], 1 + random.nextInt(Integer.MAX_VALUE - 1));
+					tree.count++;
+				}
+			}
+			if (lazy) ((TombstoneTreap) tree).purge();
+			long totalNanos = System.nanoTime() - start;
+			System.out.printf("%-15s remove %6.0f ns/op   churn total %6.2f s   size %d%n",
+					tree.getClass().getSimpleName(), (double) removeNanos / steps, totalNanos / 1e9, tree.size());
+		}
+	}
+
+	// ==================== Copy-On-Write Benchmark ====================
+
+	/**
+	 * Measures find() latency while a writer thread keeps calling changeOrder(), for a Treap behind
+	 * a ReentrantReadWriteLock and for a CopyOnWriteTreap whose readers take no lock. Reader threads
+	 * look up uniformly distributed keys and time every call; the writer pauses briefly after each
+	 * update, so that reads dominate, and runs until the readers finish.
+	 */
+	private static void benchmarkCopyOnWrite() {
+		final int keyCount = 1_000_000;
+		final int readers = 3;
+		final int readsPerReader = 1_000_000;
+
+		System.out.println("----- COPY-ON-WRITE READERS (" + readers + " readers, 1 writer, "
+				+ Runtime.getRuntime().availableProcessors() + " CPUs) -----");
+		String[] keys = shuffledKeys(keyCount, new Random(SEED));
+
+		Treap locked = new Treap();
+		fill(locked, keys, new Random(SEED));
+		ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true); // Fair, so the writer is not starved by the readers
+		reportReadLatency("ReadWriteLock Treap", keys, readers, readsPerReader, key -> {
+			lock.readLock().lock();
+			try {
+				return locked.find(key);
+			} finally {
+				lock.readLock().unlock();
+			}
+		}, (key, heapValue) -> {
+			lock.writeLock().lock();
+			try {
+				locked.changeOrder(key, heapValue);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		});
+		locked.root = null; // Release the first tree before building the second
+
+		CopyOnWriteTreap cow = new CopyOnWriteTreap();
+		Random heapValues = new Random(SEED);
+		for (String key : keys) cow.add(key, 1 + heapValues.nextInt(Integer.MAX_VALUE - 1));
+		reportReadLatency("CopyOnWriteTreap", keys, readers, readsPerReader, cow::find, cow::changeOrder);
+	}
+
+	// Pause between two writes of the copy-on-write benchmark's writer thread
+	private static final long WRITE_PAUSE_NANOS = 1_000_000;
+
+	/**
+	 * Helper interface for a lookup under test.
+	 */
+	private interface Lookup {
+		boolean find(String key);
+	}
+
+	/**
+	 * Helper interface for an update under test.
+	 */
+	private interface Update {
+		void changeOrder(String key, int heapValue);
+	}
+
+	/**
+	 * Runs reader threads against a lookup while one writer thread applies updates until the
+	 * readers are done, and prints read latency percentiles and both throughputs.
+	 *
+	 * @param name           The label of the variant.
+	 * @param keys           The keys in the tree.
+	 * @param readers        The number of reader threads.
+	 * @param readsPerReader The number of lookups per reader.
+	 * @param lookup         The lookup to time.
+	 * @param update         The update the writer applies.
+	 */
+	private static void reportReadLatency(String name, String[] keys, int readers, int readsPerReader, Lookup lookup, Update update) {
+		long[] latencies = new long[readers * readsPerReader];
+		AtomicBoolean done = new AtomicBoolean(false);
+		long[] writes = {0};
+		Thread writer = new Thread(() -> {
+			Random random = new Random(SEED - 1);
+			while (!done.get()) {
+				update.changeOrder(keys[random.nextInt(keys.length)], 1 + random.nextInt(Integer.MAX_VALUE - 1));
+				writes[0]++;
+				LockSupport.parkNanos(WRITE_PAUSE_NANOS); // Paced to a read-mostly mix
+			}
+		});
+		writer.start();
+		long elapsed = runProducers(readers, r -> {
+			Random random = new Random(SEED + r);
+			for (int i = 0; i < readsPerReader; i++) {
+				String key = keys[random.nextInt(keys.length)];
+				long start = System.nanoTime();
+				lookup.find(key);
+				latencies[r * readsPerReader + i] = System.nanoTime() - start;
+			}
+		});
+		done.set(true);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		Arrays.sort(latencies);
+		System.out.printf("%-20s p50 %6.2f us   p99 %7.2f us   p99.9 %8.1f us   %9.0f reads/s   %7.0f writes/s%n", name,
+				latencies[latencies.length / 2] / 1e3, latencies[(int) (latencies.length * 0.99)] / 1e3,
+				latencies[(int) (latencies.length * 0.999)] / 1e3, latencies.length * 1e9 / elapsed, writes[0] * 1e9 / elapsed);
+	}
+
+	// ==================== Export Benchmark ====================
+
+	/**
+	 * Times exporting a large treap with TreeExporter into a byte channel that discards its input,
+	 * in both formats, with and without a depth limit, and through displayTree() into a discarding
+	 * System.out.
+	 */
+	private static void benchmarkExport() {
+		final int keyCount = 1_000_000;
+
+		System.out.println("----- TREE EXPORT (" + keyCount + " nodes) -----");
+		Treap treap = new Treap();
+		fill(treap, shuffledKeys(keyCount, new Random(SEED)), new Random(SEED));
+		long[] written = {0};
+		OutputStream discard = new OutputStream() {
+			@Override
+			public void write(int b) {
+				written[0]++;
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+				written[0] += len;
+			}
+		};
+
+		try {
+			for (TreeExporter.Format format : TreeExporter.Format.values()) {
+				for (int maxDepth : new int[] {TreeExporter.UNLIMITED, 10}) {
+					TreeExporter exporter = new TreeExporter(format, maxDepth);
+					written[0] = 0;
+					long start = System.nanoTime();
+					exporter.export(treap, Channels.newChannel(discard));
+					long elapsed = System.nanoTime() - start;
+					System.out.printf("%-5s depth %-9s %8.1f ms   %7.1f MB%n", format,
+							maxDepth == TreeExporter.UNLIMITED ? "unlimited" : String.valueOf(maxDepth),
+							elapsed / 1e6, written[0] / 1e6);
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("export benchmark failed", e);
+		}
+
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(discard, false));
+		long start = System.nanoTime();
+		treap.displayTree();
+		long elapsed = System.nanoTime() - start;
+		System.setOut(out);
+		System.out.printf("displayTree()             %8.1f ms%n", elapsed / 1e6);
+	}
+
+	// ==================== Frozen Snapshot Benchmark ====================
+
+	/**
+	 * Compares random lookups in a Treap (pointer-chasing descent) with lookups in the FrozenTreap
+	 * snapshot of the same keys, on a tree large enough that neither fits in the last-level cache.
+	 * Half of the lookups hit, half miss. Also times rank() and short range() queries.
+	 */
+	private static void benchmarkFreeze() {
+		final int keyCount = 10_000_000;
+		final int lookups = 5_000_000;
+
+		System.out.println("----- FROZEN SNAPSHOT (" + keyCount + " keys, " + lookups + " lookups) -----");
+		String[] keys = shuffledKeys(keyCount, new Random(SEED));
+		Treap treap = new Treap();
+		fill(treap, keys, new Random(SEED));
+
+		long start = System.nanoTime();
+		FrozenTreap frozen = treap.freeze();
+		System.out.printf("freeze():      %8.1f ms%n", (System.nanoTime() - start) / 1e6);
+
+		Random random = new Random(SEED + 1);
+		String[] queries = new String[lookups];
+		for (int i = 0; i < lookups; i++) queries[i] = random.nextBoolean() ? keys[random.nextInt(keyCount)] : "missing" + i;
+
+		for (int round = 0; round < 2; round++) { // The first round warms up the JIT
+			int found = 0;
+			start = System.nanoTime();
+			for (String query : queries) if (treap.find(query)) found++;
+			long treapNanos = System.nanoTime() - start;
+
+			int frozenFound = 0;
+			start = System.nanoTime();
+			for (String query : queries) if (frozen.find(query)) frozenFound++;
+			long frozenNanos = System.nanoTime() - start;
+
+			long ranks = 0;
+			start = System.nanoTime();
+			for (String query : queries) ranks += frozen.rank(query);
+			long rankNanos = System.nanoTime() - start;
+
+			int ranged = 0;
+			start = System.nanoTime();
+			for (int i = 0; i < lookups / 10; i++) ranged += frozen.range(queries[i], queries[i] + "0").size();
+			long rangeNanos = System.nanoTime() - start;
+
+			if (found != frozenFound) throw new IllegalStateException("snapshot disagrees with the treap");
+			System.out.printf("Treap.find %6.0f ns   FrozenTreap.find %6.0f ns   rank %6.0f ns   range %6.0f ns   (%d hits, %d ranged, %d)%n",
+					(double) treapNanos / lookups, (double) frozenNanos / lookups, (double) rankNanos / lookups,
+					(double) rangeNanos / (lookups / 10), found, ranged, ranks % 10);
+		}
+	}
+
+	// ==================== Bloom Filter Benchmark ====================
+
+	/**
+	 * Replays lookups where 80% of the keys are absent against the same treap with and without a
+	 * Bloom filter, reporting the cost of misses alone, of the mixed workload and of hits (which
+	 * pay for the filter probe on top of the descent), plus the filter's size and false-positive
+	 * rate.
+	 */
+	private static void benchmarkBloomFilter() {
+		final int keyCount = 2_000_000;
+		final int lookups = 5_000_000;
+
+		System.out.println("----- BLOOM FILTER (" + keyCount + " keys, " + lookups + " lookups, 80% misses) -----");
+		String[] keys = shuffledKeys(keyCount, new Random(SEED));
+		Treap treap = new Treap();
+		fill(treap, keys, new Random(SEED));
+
+		Random random = new Random(SEED + 1);
+		String[] queries = new String[lookups];
+		String[] misses = new String[lookups];
+		String[] hits = new String[lookups];
+		for (int i = 0; i < lookups; i++) {
+			misses[i] = "key" + (keyCount + random.nextInt(keyCount)); // Absent, but shaped like the stored keys
+			hits[i] = keys[random.nextInt(keyCount)];
+			queries[i] = random.nextInt(5) == 0 ? hits[i] : misses[i];
+		}
+
+		long start = System.nanoTime();
+		treap.setBloomFilter(keyCount, 10);
+		System.out.printf("filter build:  %8.1f ms, %d bytes (%.1f bits per key)%n", (System.nanoTime() - start) / 1e6,
+				treap.bloom.sizeInBytes(), 8.0 * treap.bloom.sizeInBytes() / keyCount);
+		int falsePositives = 0;
+		for (String miss : misses) if (treap.bloom.mightContain(miss)) falsePositives++;
+		System.out.printf("false positives: %.2f%%%n", 100.0 * falsePositives / lookups);
+
+		for (int round = 0; round < 2; round++) { // The first round warms up the JIT
+			for (boolean filtered : new boolean[] {false, true}) {
+				treap.setBloomFilter(filtered ? keyCount : 0, 10);
+				double missNanos = averageFindNanos(treap, misses);
+				double mixedNanos = averageFindNanos(treap, queries);
+				double hitNanos = averageFindNanos(treap, hits);
+				System.out.printf("%-9s misses %6.0f ns   mixed %6.0f ns   hits %6.0f ns%n",
+						filtered ? "filter" : "no filter", missNanos, mixedNanos, hitNanos);
+			}
+		}
+	}
+
+	/**
+	 * Times lookups of keys that may be present or absent.
+	 *
+	 * @param treap   The treap to search.
+	 * @param queries The keys to look up.
+	 * @return        The average nanoseconds per lookup.
+	 */
+	private static double averageFindNanos(Treap treap, String[] queries) {
+		int found = 0;
+		long start = System.nanoTime();
+		for (String query : queries) if (treap.find(query)) found++;
+		long elapsed = System.nanoTime() - start;
+		if (found < 0) throw new IllegalStateException(); // Keeps the lookups from being optimized away
+		return (double) elapsed / queries.length;
+	}
+
+	// ==================== Lookup Cache Benchmark ====================
+
+	/**
+	 * Replays Zipf reads against a Treap without a lookup cache and with caches of several sizes,
+	 * and against a sampled SearchTree with and without one, reporting ns/op and the hit ratio.
+	 * The trace is replayed twice: once with the stored key instances as queries (their hash codes
+	 * are already computed and the cache matches them by reference) and once with fresh copies, as
+	 * a server would see them after parsing a request.
+	 */
+	private static void benchmarkLookupCache() {
+		final int keyCount = 100_000;
+		final int traceLength = 5_000_000;
+
+		System.out.println("----- LOOKUP CACHE (" + keyCount + " keys, Zipf 1.0 reads) -----");
+		Random random = new Random(SEED);
+		String[] keys = shuffledKeys(keyCount, random);
+		int[] trace = zipfTrace(traceLength, new Zipf(keyCount, 1.0), random);
+		String[] sameQueries = new String[traceLength];
+		String[] freshQueries = new String[traceLength];
+		for (int i = 0; i < traceLength; i++) {
+			sameQueries[i] = keys[trace[i]];
+			freshQueries[i] = new String(keys[trace[i]].toCharArray());
+		}
+
+		Treap treap = new Treap();
+		fill(treap, keys, new Random(SEED));
+		SearchTree tree = new SearchTree();
+		tree.setSamplingRate(0.01);
+		for (String key : keys) tree.add(key);
+
+		for (int round = 0; round < 2; round++) { // The first round warms up the JIT
+			for (int capacity : new int[] {0, 256, 1024, 4096}) {
+				treap.setLookupCache(capacity);
+				reportCachedFinds("Treap cache=" + capacity, treap, sameQueries, freshQueries);
+			}
+			for (int capacity : new int[] {0, 1024}) {
+				tree.setLookupCache(capacity);
+				reportCachedFinds("SearchTree@0.01 cache=" + capacity, tree, sameQueries, freshQueries);
+			}
+		}
+	}
+
+	/**
+	 * Helper method to replay both query traces against a tree and print ns/op and the cache hit ratio.
+	 */
+	private static void reportCachedFinds(String name, Treap tree, String[] sameQueries, String[] freshQueries) {
+		double sameNanos = averageFindNanos(tree, sameQueries);
+		double hitRatio = tree.lookupCache == null ? 0 : (double) tree.lookupCache.hits() / tree.lookupCache.lookups();
+		double freshNanos = averageFindNanos(tree, freshQueries);
+		System.out.printf("%-26s same instances %6.0f ns/op   fresh strings %6.0f ns/op   hit ratio %5.1f%%%n",
+				name, sameNanos, freshNanos, 100 * hitRatio);
+	}
+
+	// ==================== Indexed Treap Benchmark ====================
+
+	/**
+	 * Compares a Treap, a LinkedTreap and an IndexedTreap holding the same keys: heap bytes per key
+	 * (excluding the key strings, which all three share), then the latency of find() hits and
+	 * misses, changeOrder() and a remove()/add() cycle on uniformly random keys.
+	 */
+	private static void benchmarkIndexedTreap() {
+		final int keyCount = 5_000_000;
+		final int operations = 2_000_000;
+
+		System.out.println("----- INDEXED TREAP (" + keyCount + " keys, " + operations + " operations) -----");
+		String[] keys = shuffledKeys(keyCount, new Random(SEED));
+		Random random = new Random(SEED + 1);
+		String[] hits = new String[operations];
+		String[] misses = new String[operations];
+		int[] heapValues = new int[operations];
+		for (int i = 0; i < operations; i++) {
+			hits[i] = keys[random.nextInt(keyCount)];
+			misses[i] = "key" + (keyCount + random.nextInt(keyCount));
+			heapValues[i] = 1 + random.nextInt(Integer.MAX_VALUE - 1);
+		}
+
+		for (int round = 0; round < 2; round++) { // The first round warms up the JIT
+			for (String variant : new String[] {"Treap", "LinkedTreap", "IndexedTreap"}) {
+				long before = usedHeap();
+				Treap treap = variant.equals("Treap") ? new Treap() : variant.equals("LinkedTreap") ? new LinkedTreap() : new IndexedTreap();
+				fill(treap, keys, new Random(SEED));
+				double bytesPerKey = (double) (usedHeap() - before) / keyCount;
+
+				double hitNanos = averageFindNanos(treap, hits);
+				double missNanos = averageFindNanos(treap, misses);
+
+				long start = System.nanoTime();
+				for (int i = 0; i < operations; i++) treap.changeOrder(hits[i], heapValues[i]);
+				double changeNanos = (double) (System.nanoTime() - start) / operations;
+
+				start = System.nanoTime();
+				for (int i = 0; i < operations / 10; i++) { // Treap.add() scans for duplicate heap values, so re-insert directly
+					if (!treap.remove(hits[i])) continue;
+					treap.root = treap.insertNode(treap.root, hits[i], heapValues[i]);
+					treap.count++;
+				}
+				double churnNanos = (double) (System.nanoTime() - start) / (operations / 10);
+
+				System.out.printf("%-13s %5.1f bytes/key   find hit %5.0f ns   miss %5.0f ns   changeOrder %5.0f ns   remove+insert %5.0f ns%n",
+						variant, bytesPerKey, hitNanos, missNanos, changeNanos, churnNanos);
+			}
+		}
+	}
+
+	// ==================== Rebuild Benchmark ====================
+
+	/**
+	 * Trains a SearchTree on a Zipf trace and compares the expected number of comparisons per
+	 * search on a fresh trace from the same distribution for a plain Treap, the trained tree shaped
+	 * by promotions alone and the same tree after rebuild(), against the entropy H of the
+	 * distribution: no binary search tree averages fewer than H / log2(3) three-way comparisons,
+	 * and a weight-balanced one stays below H + 2. Also reports find() latency and the time a rebuild takes, in total and
+	 * on the calling thread when it runs in the background.
+	 */
+	private static void benchmarkRebuild() {
+		final int keyCount = 100_000;
+		final int traceLength = 2_000_000;
+
+		System.out.println("----- REBUILD (" + keyCount + " keys, Zipf 1.0 reads) -----");
+		Random random = new Random(SEED);
+		String[] keys = shuffledKeys(keyCount, random);
+		Zipf zipf = new Zipf(keyCount, 1.0);
+		int[] training = zipfTrace(traceLength, zipf, random);
+		int[] evaluation = zipfTrace(traceLength, zipf, random);
+		String[] queries = new String[traceLength];
+		for (int i = 0; i < traceLength; i++) queries[i] = keys[evaluation[i]];
+
+		double entropy = 0;
+		for (int i = 0; i < keyCount; i++) {
+			double p = zipf.cumulative[i] - (i == 0 ? 0 : zipf.cumulative[i - 1]);
+			entropy -= p * Math.log(p) / Math.log(2);
+		}
+		int[] accesses = new int[keyCount];
+		for (int rank : evaluation) accesses[rank]++;
+		System.out.printf("entropy H = %.2f bits, H / log2(3) = %.2f, H + 2 = %.2f%n", entropy, entropy * Math.log(2) / Math.log(3), entropy + 2);
+
+		for (int round = 0; round < 2; round++) { // The first round warms up the JIT
+			Treap treap = new Treap();
+			fill(treap, keys, new Random(SEED));
+			reportWeightedSearch("Treap", treap, keys, accesses, queries);
+
+			SearchTree tree = new SearchTree();
+			for (String key : keys) tree.add(key);
+			for (int rank : training) tree.find(keys[rank]);
+			tree.setSamplingRate(0.0); // Measure without further promotions
+			reportWeightedSearch("SearchTree promoted", tree, keys, accesses, queries);
+
+			long start = System.nanoTime();
+			tree.rebuild();
+			double rebuildMillis = (System.nanoTime() - start) / 1e6;
+			reportWeightedSearch("SearchTree rebuilt", tree, keys, accesses, queries);
+
+			start = System.nanoTime();
+			tree.rebuildInBackground();
+			double callerMillis = (System.nanoTime() - start) / 1e6;
+			while (tree.rebuilds() < 2) tree.find(keys[0]);
+			double backgroundMillis = (System.nanoTime() - start) / 1e6;
+			System.out.printf("rebuild() %.1f ms   rebuildInBackground() %.1f ms on the caller, applied after %.1f ms%n",
+					rebuildMillis, callerMillis, backgroundMillis);
+		}
+	}
+
+	/**
+	 * Helper method to print the expected comparisons per search under the given access counts
+	 * and the measured find() latency.
+	 */
+	private static void reportWeightedSearch(String name, Treap tree, String[] keys, int[] accesses, String[] queries) {
+		long comparisons = 0;
+		long total = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (accesses[i] == 0) continue;
+			comparisons += (long) accesses[i] * (tree.findDepth(keys[i]) + 1);
+			total += accesses[i];
+		}
+		System.out.printf("%-20s %5.2f comparisons/search   find %5.0f ns/op%n",
+				name, (double) comparisons / total, averageFindNanos(tree, queries));
+	}
+}
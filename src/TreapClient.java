@@ -0,0 +1,145 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The TreapClient class talks to a {@link TreapServer}. The blocking methods send one request and
+ * wait for its answer. For pipelining, several requests can be written with send(), pushed out
+ * with flush(), and their answers read back in the same order with readStatus() or readPath().
+ * A client must not be shared between threads.
+ */
+public class TreapClient implements Closeable {
+
+	// Connection to the server
+	private final Socket socket;
+
+	// Buffered request stream
+	private final DataOutputStream out;
+
+	// Buffered response stream
+	private final DataInputStream in;
+
+	/**
+	 * Connects to a TreapServer.
+	 *
+	 * @param host The server host.
+	 * @param port The server port.
+	 * @throws IOException If the connection fails.
+	 */
+	public TreapClient(String host, int port) throws IOException {
+		this.socket = new Socket(host, port);
+		this.socket.setTcpNoDelay(true);
+		this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 8192));
+		this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 8192));
+	}
+
+	// ==================== Blocking Requests ====================
+
+	/**
+	 * Adds a key with the given heap value, or with a generated one if the heap value is 0.
+	 */
+	public boolean add(String key, int heapValue) throws IOException {
+		send(TreapServer.OP_ADD, key, heapValue);
+		flush();
+		return readStatus();
+	}
+
+	/**
+	 * Finds a key; on the server this counts as a search and may promote the key.
+	 */
+	public boolean find(String key) throws IOException {
+		send(TreapServer.OP_FIND, key, 0);
+		flush();
+		return readStatus();
+	}
+
+	/**
+	 * Returns the path from the node with the given key to the root, or null if the key is not found.
+	 */
+	public List<String> findPath(String key) throws IOException {
+		send(TreapServer.OP_FIND_PATH, key, 0);
+		flush();
+		return readPath();
+	}
+
+	/**
+	 * Removes a key.
+	 */
+	public boolean remove(String key) throws IOException {
+		send(TreapServer.OP_REMOVE, key, 0);
+		flush();
+		return readStatus();
+	}
+
+	/**
+	 * Changes the heap value of a key.
+	 */
+	public boolean changeOrder(String key, int heapValue) throws IOException {
+		send(TreapServer.OP_CHANGE_ORDER, key, heapValue);
+		flush();
+		return readStatus();
+	}
+
+	// ==================== Pipelining ====================
+
+	/**
+	 * Writes a request into the send buffer without waiting for its answer.
+	 *
+	 * @param op        One of the TreapServer.OP_* codes.
+	 * @param key       The key the request applies to; must not be null.
+	 * @param heapValue The heap value, used only by OP_ADD and OP_CHANGE_ORDER.
+	 * @throws IOException If writing fails.
+	 */
+	public void send(byte op, String key, int heapValue) throws IOException {
+		out.writeByte(op);
+		out.writeUTF(key);
+		if (op == TreapServer.OP_ADD || op == TreapServer.OP_CHANGE_ORDER) out.writeInt(heapValue);
+	}
+
+	/**
+	 * Sends all buffered requests to the server.
+	 *
+	 * @throws IOException If writing fails.
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Reads the answer to the oldest outstanding request other than OP_FIND_PATH.
+	 *
+	 * @return The status returned by the server.
+	 * @throws IOException If reading fails or the server closed the connection.
+	 */
+	public boolean readStatus() throws IOException {
+		return in.readUnsignedByte() == 1;
+	}
+
+	/**
+	 * Reads the answer to the oldest outstanding request, which must be OP_FIND_PATH.
+	 *
+	 * @return The path from the node to the root, or null if the key was not found.
+	 * @throws IOException If reading fails or the server closed the connection.
+	 */
+	public List<String> readPath() throws IOException {
+		if (!readStatus()) return null;
+		int length = in.readInt();
+		List<String> path = new ArrayList<>(length);
+		for (int i = 0; i < length; i++) path.add(in.readUTF());
+		return path;
+	}
+
+	/**
+	 * Closes the connection.
+	 */
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+}
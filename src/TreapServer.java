@@ -0,0 +1,347 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The TreapServer class shares one SearchTree with several clients over TCP. Every connection is
+ * served by a reader and a response writer, which run on virtual threads when the JVM has them and
+ * on a cached thread pool otherwise. Readers never touch the tree: they put each request on a
+ * shared queue, and a single tree thread drains the queue in batches and applies the requests one
+ * after another. This is required because even find() restructures a SearchTree. Clients may
+ * pipeline requests; the response writer answers them in the order they were sent and flushes only
+ * when no further answers are ready.
+ *
+ * Protocol (all integers big-endian, strings as in {@link DataOutputStream#writeUTF(String)}):
+ * <pre>
+ *   request:  op (1 byte)  key (UTF)  [heapValue (int) for OP_ADD and OP_CHANGE_ORDER]
+ *   response: status (1 byte, 1 = true, 0 = false)
+ *             [for OP_FIND_PATH with status 1: length (int), then that many keys (UTF) from node to root]
+ * </pre>
+ * OP_ADD with heap value 0 adds the key with a generated heap value. An unknown op closes the
+ * connection, and so does a request that fails with an exception in the tree; the tree thread
+ * carries on with the requests of other connections.
+ */
+public class TreapServer implements Closeable {
+
+	// Request op codes
+	public static final byte OP_ADD = 1;
+	public static final byte OP_FIND = 2;
+	public static final byte OP_FIND_PATH = 3;
+	public static final byte OP_REMOVE = 4;
+	public static final byte OP_CHANGE_ORDER = 5;
+
+	// Maximum number of requests the tree thread applies per batch
+	private static final int MAX_BATCH = 256;
+
+	// Size of the socket stream buffers
+	private static final int BUFFER_SIZE = 8192;
+
+	// Maximum number of requests a connection may have read but not yet answered; once reached,
+	// the reader stops consuming from the socket until the response writer catches up
+	static final int MAX_IN_FLIGHT = 1024;
+
+	/**
+	 * The Request class carries one decoded request to the tree thread and its result back to the
+	 * connection's response writer.
+	 */
+	private static class Request {
+		final byte op;            // The operation
+		final String key;         // The key the operation applies to
+		final int heapValue;      // The heap value for OP_ADD and OP_CHANGE_ORDER
+		List<String> path;        // The path found by OP_FIND_PATH, set before the result is completed
+		final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+		Request(byte op, String key, int heapValue) {
+			this.op = op;
+			this.key = key;
+			this.heapValue = heapValue;
+		}
+	}
+
+	// Marks the end of a connection's pending responses
+	private static final Request END_OF_STREAM = new Request((byte) 0, null, 0);
+
+	// The tree shared by all connections; only the tree thread touches it
+	private final SearchTree tree;
+
+	// Requests waiting for the tree thread, from all connections (at most MAX_IN_FLIGHT per connection)
+	private final BlockingQueue<Request> requests;
+
+	// Executor for connection readers and response writers
+	private final ExecutorService connections;
+
+	// Listening socket
+	private final ServerSocket serverSocket;
+
+	// Sockets of open connections, closed when the server shuts down
+	private final Set<Socket> openSockets;
+
+	// Thread that applies requests to the tree
+	private final Thread treeThread;
+
+	// Set when the server is shutting down
+	private volatile boolean closed;
+
+	/**
+	 * Starts a server for the given tree on the loopback interface.
+	 *
+	 * @param tree The tree to share; it must not be used by anyone else while the server runs.
+	 * @param port The port to listen on, or 0 to pick a free port.
+	 * @throws IOException If the port cannot be bound.
+	 */
+	public TreapServer(SearchTree tree, int port) throws IOException {
+		if (tree == null) throw new IllegalArgumentException("tree must not be null");
+		this.tree = tree;
+		this.requests = new LinkedBlockingQueue<>();
+		this.connections = newConnectionExecutor();
+		this.serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+		this.openSockets = ConcurrentHashMap.newKeySet();
+		this.closed = false;
+
+		this.treeThread = new Thread(this::applyRequests, "treap-server-tree");
+		this.treeThread.setDaemon(true);
+		this.treeThread.start();
+
+		Thread acceptThread = new Thread(this::acceptConnections, "treap-server-accept");
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+	}
+
+	/**
+	 * Returns the port the server listens on.
+	 *
+	 * @return The local port.
+	 */
+	public int port() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Stops accepting connections, closes open connections and stops the tree thread. Requests
+	 * that have not been applied yet are dropped.
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		serverSocket.close();
+		for (Socket socket : openSockets) socket.close();
+		treeThread.interrupt();
+		connections.shutdownNow();
+	}
+
+	// ==================== Threads ====================
+
+	/**
+	 * Helper method to create the executor for connection threads. Virtual threads are looked up
+	 * reflectively so the server also runs on JVMs that do not have them.
+	 *
+	 * @return An executor that starts a new (virtual, if available) thread per task.
+	 */
+	private static ExecutorService newConnectionExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(task, "treap-server-connection");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Accepts connections until the server is closed and starts a reader for each one.
+	 */
+	private void acceptConnections() {
+		while (!closed) {
+			try {
+				Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+				openSockets.add(socket);
+				if (closed) socket.close(); // close() may have missed this socket
+				else connections.execute(() -> serve(socket));
+			} catch (IOException e) {
+				if (!closed) System.err.println("TreapServer: accept failed: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Applies queued requests to the tree in batches until the server is closed. Taking a whole
+	 * batch from the queue at once keeps the hand-off cost per request low under load.
+	 */
+	private void applyRequests() {
+		List<Request> batch = new ArrayList<>(MAX_BATCH);
+		try {
+			while (!closed) {
+				batch.add(requests.take());
+				requests.drainTo(batch, MAX_BATCH - 1);
+				for (Request request : batch) apply(request);
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt(); // Server is closing
+		}
+	}
+
+	/**
+	 * Helper method to apply one request to the tree and complete it. A failure in the tree
+	 * completes the request exceptionally instead of ending the tree thread, so that the response
+	 * writer can close the connection and every other connection keeps being served.
+	 *
+	 * @param request The request to apply.
+	 */
+	private void apply(Request request) {
+		try {
+			request.result.complete(applyToTree(request));
+		} catch (Throwable e) {
+			System.err.println("TreapServer: request failed: " + e);
+			request.result.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Helper method to run one request against the tree.
+	 *
+	 * @param request The request to run.
+	 * @return        The status to answer with.
+	 */
+	private boolean applyToTree(Request request) {
+		boolean status;
+		switch (request.op) {
+			case OP_ADD:
+				status = request.heapValue == 0 ? tree.add(request.key) : tree.add(request.key, request.heapValue);
+				break;
+			case OP_FIND:
+				status = tree.find(request.key);
+				break;
+			case OP_FIND_PATH:
+				request.path = tree.findPath(request.key);
+				status = request.path != null;
+				break;
+			case OP_REMOVE:
+				status = tree.remove(request.key);
+				break;
+			default: // OP_CHANGE_ORDER; unknown ops are rejected by the reader
+				status = tree.changeOrder(request.key, request.heapValue);
+				break;
+		}
+		return status;
+	}
+
+	// ==================== Connections ====================
+
+	/**
+	 * Reads requests from a connection and queues them for the tree thread, while a second thread
+	 * writes the responses in request order. At most MAX_IN_FLIGHT requests of the connection are
+	 * unanswered at a time: a client that pipelines without reading its responses stalls the
+	 * response writer on a full socket, and then this reader, so TCP flow control pushes back on
+	 * the client instead of the server buffering its requests.
+	 *
+	 * @param socket The connected socket.
+	 */
+	private void serve(Socket socket) {
+		BlockingQueue<Request> pending = new ArrayBlockingQueue<>(MAX_IN_FLIGHT);
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+			connections.execute(() -> writeResponses(socket, out, pending));
+
+			while (!closed && !socket.isClosed()) {
+				Request request = readRequest(in);
+				if (request == null) break;
+				pending.put(request); // Queue for the response writer first, so responses keep request order
+				requests.add(request);
+			}
+			pending.put(END_OF_STREAM);
+		} catch (IOException e) {
+			// Connection reset or malformed request; the response writer closes the socket
+			try {
+				pending.put(END_OF_STREAM);
+			} catch (InterruptedException interrupted) {
+				Thread.currentThread().interrupt(); // Server is closing
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt(); // Server is closing
+		}
+	}
+
+	/**
+	 * Helper method to decode one request.
+	 *
+	 * @param in The connection's input stream.
+	 * @return   The request, or null at the end of the stream.
+	 * @throws IOException If the stream fails or the request is malformed.
+	 */
+	private static Request readRequest(DataInputStream in) throws IOException {
+		int op = in.read();
+		if (op < 0) return null;
+		if (op < OP_ADD || op > OP_CHANGE_ORDER) throw new IOException("unknown op " + op);
+		try {
+			String key = in.readUTF();
+			int heapValue = op == OP_ADD || op == OP_CHANGE_ORDER ? in.readInt() : 0;
+			return new Request((byte) op, key, heapValue);
+		} catch (EOFException e) {
+			return null; // Truncated final request
+		}
+	}
+
+	/**
+	 * Writes the responses of a connection in request order, flushing whenever no further response
+	 * is ready, and closes the socket once the reader has finished.
+	 *
+	 * @param socket  The connected socket.
+	 * @param out     The connection's output stream.
+	 * @param pending The requests of this connection in the order they were read.
+	 */
+	private void writeResponses(Socket socket, DataOutputStream out, BlockingQueue<Request> pending) {
+		try {
+			while (true) {
+				Request request = pending.poll();
+				if (request == null) {
+					out.flush(); // Nothing else is queued; send what has been written so far
+					request = pending.take();
+				}
+				if (request == END_OF_STREAM) break;
+
+				boolean status = request.result.get();
+				out.writeByte(status ? 1 : 0);
+				if (request.op == OP_FIND_PATH && status) {
+					out.writeInt(request.path.size());
+					for (String key : request.path) out.writeUTF(key);
+				}
+			}
+			out.flush();
+		} catch (IOException | ExecutionException e) {
+			// Client went away, or its request failed in the tree; either way the connection is closed
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt(); // Server is closing
+		} finally {
+			openSockets.remove(socket);
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// Already closed
+			}
+			pending.clear(); // Unblocks the reader if it is waiting for room; it then sees the closed socket
+		}
+	}
+}
@@ -0,0 +1,141 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TreapServerTest {
+
+	private TreapServer server;
+	private TreapClient client;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		server = new TreapServer(new SearchTree(), 0);
+		client = new TreapClient("127.0.0.1", server.port());
+	}
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		client.close();
+		server.close();
+	}
+
+	// ========================= Blocking Request Tests =========================
+
+	@Test
+	public void testBlockingRequests() throws IOException {
+		assertTrue(client.add("root", 10));
+		assertTrue(client.add("left", 5));
+		assertFalse(client.add("ROOT", 0));  // Duplicate key
+		assertTrue(client.find("Left"));
+		assertFalse(client.find("missing"));
+		assertTrue(client.changeOrder("left", 20));
+		assertEquals(List.of("left"), client.findPath("left"));  // Now the root
+		assertNull(client.findPath("missing"));
+		assertTrue(client.remove("root"));
+		assertFalse(client.find("root"));
+	}
+
+	// ========================= Pipelining Tests =========================
+
+	@Test
+	public void testPipelinedAnswersKeepRequestOrder() throws IOException {
+		for (int i = 0; i < 100; i++) client.send(TreapServer.OP_ADD, "key" + i, 0);
+		client.send(TreapServer.OP_FIND_PATH, "missing", 0);
+		for (int i = 0; i < 100; i++) client.send(TreapServer.OP_FIND, "key" + (i % 2 == 0 ? i : 1000 + i), 0);
+		client.flush();
+
+		for (int i = 0; i < 100; i++) assertTrue(client.readStatus());  // Every add succeeded
+		assertNull(client.readPath());
+		for (int i = 0; i < 100; i++) assertEquals(i % 2 == 0, client.readStatus());  // Answers in request order
+	}
+
+	@Test
+	public void testConnectionsShareTheTree() throws IOException {
+		assertTrue(client.add("shared", 0));
+		try (TreapClient other = new TreapClient("127.0.0.1", server.port())) {
+			assertTrue(other.find("shared"));
+		}
+	}
+
+	// ========================= Protocol Error Tests =========================
+
+	@Test
+	public void testUnknownOpClosesConnection() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", server.port())) {
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			out.writeByte(99);
+			out.flush();
+			assertEquals(-1, socket.getInputStream().read());  // Server closed the connection
+		}
+		assertTrue(client.add("still-served", 0));  // Other connections are unaffected
+	}
+
+	@Test
+	public void testFailingRequestClosesOnlyItsConnection() throws IOException {
+		SearchTree failing = new SearchTree() {
+			@Override
+			public boolean find(String key) {
+				if ("boom".equals(key)) throw new IllegalStateException("tree failure");
+				return super.find(key);
+			}
+		};
+		try (TreapServer failingServer = new TreapServer(failing, 0);
+				TreapClient victim = new TreapClient("127.0.0.1", failingServer.port());
+				TreapClient other = new TreapClient("127.0.0.1", failingServer.port())) {
+			assertTrue(other.add("before", 0));
+			assertThrows(IOException.class, () -> victim.find("boom"));  // Server closed the connection
+			assertTrue(other.add("after", 0));  // The tree thread is still running
+			assertTrue(other.find("before"));
+		}
+	}
+
+	@Test
+	public void testClientThatDoesNotReadIsThrottled() throws IOException, InterruptedException {
+		AtomicInteger applied = new AtomicInteger();
+		SearchTree counting = new SearchTree() {
+			@Override
+			public List<String> findPath(String key) {
+				applied.incrementAndGet();
+				return super.findPath(key);
+			}
+		};
+		for (int i = 0; i < 1000; i++) counting.add("key" + i);
+		final int requests = 300_000;
+
+		try (TreapServer throttled = new TreapServer(counting, 0);
+				Socket socket = new Socket("127.0.0.1", throttled.port())) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			Thread sender = new Thread(() -> {
+				try {
+					for (int i = 0; i < requests; i++) {
+						out.writeByte(TreapServer.OP_FIND_PATH);
+						out.writeUTF("key" + (i % 1000));
+					}
+					out.flush();
+				} catch (IOException e) {
+					// Server closed the connection at the end of the test
+				}
+			});
+			sender.setDaemon(true);
+			sender.start();
+
+			// Wait until the server stops applying requests, since no responses are read
+			int last = -1;
+			long deadline = System.currentTimeMillis() + 20_000;
+			while (applied.get() != last && System.currentTimeMillis() < deadline) {
+				last = applied.get();
+				Thread.sleep(500);
+			}
+			assertTrue(applied.get() < requests);  // The reader stopped consuming the socket
+		}
+	}
+}
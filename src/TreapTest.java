@@ -1,4 +1,7 @@
 import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -728,4 +731,273 @@ public class TreapTest {
 		treap.changeOrder("apple", 20);
 		assertEquals(1, treap.size());  // Size after changing heap value
 	}
-}
\ No newline at end of file
+
+
+
+	// ========================= FindPath(PathBuffer) / FindDepth() Tests =========================
+
+	@Test
+	public void testFindPathDeeperThanOneHundred() {
+		for (int i = 0; i < 150; i++) treap.add(String.format("k%03d", i), 1000 - i);  // Right-leaning chain of 150 nodes
+		List<String> path = treap.findPath("k149");
+		assertEquals(150, path.size());  // Path longer than the old 100-entry limit
+		assertEquals("k149", path.get(0));  // Starts at the node
+		assertEquals("k000", path.get(149));  // Ends at the root
+	}
+
+	@Test
+	public void testFindPathIntoReusedBuffer() {
+		treap.add("root", 10);
+		treap.add("left", 5);
+		PathBuffer buffer = new PathBuffer(1);
+		assertTrue(treap.findPath("LEFT", buffer));
+		assertEquals(2, buffer.size());  // Buffer grew past its initial capacity
+		assertEquals("left", buffer.get(0));
+		assertEquals("root", buffer.get(1));
+		assertFalse(treap.findPath("missing", buffer));
+		assertEquals(0, buffer.size());  // Buffer is emptied on a miss
+	}
+
+	@Test
+	public void testFindDepth() {
+		treap.add("root", 10);
+		treap.add("left", 5);
+		assertEquals(0, treap.findDepth("root"));  // Root has depth 0
+		assertEquals(1, treap.findDepth("Left"));  // Child has depth 1
+		assertEquals(-1, treap.findDepth("missing"));  // Missing key
+		assertEquals(-1, treap.findDepth(null));  // Null key
+	}
+
+
+
+	// ========================= ChangeOrderAll() Tests =========================
+
+	@Test
+	public void testChangeOrderAllMismatchedArrays() {
+		assertFalse(treap.changeOrderAll(null, new int[] {10}));  // Null key array
+		assertFalse(treap.changeOrderAll(new String[] {"apple"}, new int[] {10, 20}));  // Mismatched lengths
+	}
+
+	@Test
+	public void testChangeOrderAllMovesNewMaxToRoot() {
+		treap.build(new String[] {"apple", "banana", "cherry", "date"}, new int[] {40, 30, 20, 10});
+		assertTrue(treap.changeOrderAll(new String[] {"Date", "apple", "missing"}, new int[] {50, 5, 60}));
+		assertEquals(List.of("date"), treap.findPath("date"));  // Largest heap value is now the root
+		assertEquals(4, treap.size());  // Missing key was skipped
+	}
+
+	@Test
+	public void testChangeOrderAllRebuildKeepsAllKeys() {
+		String[] keys = new String[50];
+		int[] heapValues = new int[50];
+		for (int i = 0; i < 50; i++) {
+			keys[i] = "key" + i;
+			treap.add(keys[i], i + 1);
+			heapValues[i] = 100 - i;  // Reverse every priority, forcing the rebuild path
+		}
+		assertTrue(treap.changeOrderAll(keys, heapValues));
+		assertEquals(50, treap.size());
+		for (int i = 0; i < 50; i++) assertTrue(treap.find("key" + i));
+		assertEquals(List.of("key0"), treap.findPath("key0"));  // Heap value 100 is the new root
+	}
+
+
+
+	// ========================= RemoveRange() / RemoveAll() Tests =========================
+
+	@Test
+	public void testRemoveRangeInvalidBounds() {
+		treap.add("apple", 10);
+		assertEquals(0, treap.removeRange(null, "z"));  // Null bound
+		assertEquals(0, treap.removeRange("z", "a"));  // Reversed bounds
+		assertEquals(1, treap.size());
+	}
+
+	@Test
+	public void testRemoveRangePrefix() {
+		treap.build(new String[] {"a/1", "a/2", "b/1", "b/2", "b/3", "c/1"}, new int[] {60, 50, 40, 30, 20, 10});
+		assertEquals(3, treap.removeRange("B/", "b/\uffff"));  // Every key with prefix "b/"
+		assertEquals(3, treap.size());
+		assertFalse(treap.find("b/2"));
+		assertTrue(treap.find("a/2"));
+		assertTrue(treap.find("c/1"));
+	}
+
+	@Test
+	public void testRemoveRangeInclusiveBounds() {
+		treap.build(new String[] {"a", "b", "c", "d"}, new int[] {10, 40, 30, 20});
+		assertEquals(2, treap.removeRange("b", "c"));  // Both bounds are removed
+		assertTrue(treap.find("a"));
+		assertTrue(treap.find("d"));
+		assertEquals(2, treap.size());
+	}
+
+	@Test
+	public void testRemoveAllBatch() {
+		treap.build(new String[] {"apple", "banana", "cherry", "date", "elder"}, new int[] {50, 40, 30, 20, 10});
+		assertEquals(3, treap.removeAll(new String[] {"Date", "apple", "missing", "cherry", null}));
+		assertEquals(2, treap.size());
+		assertTrue(treap.find("banana"));
+		assertTrue(treap.find("elder"));
+		assertFalse(treap.find("cherry"));
+	}
+
+	@Test
+	public void testRemoveAllNull() {
+		treap.add("apple", 10);
+		assertEquals(0, treap.removeAll(null));  // Null batch
+		assertEquals(1, treap.size());
+	}
+
+
+
+	// ========================= PeekMax() / PollMax() / TopK() Tests =========================
+
+	@Test
+	public void testPeekAndPollEmptyTree() {
+		assertNull(treap.peekMax());  // Nothing to peek
+		assertNull(treap.pollMax());  // Nothing to poll
+		assertTrue(treap.topK(3).isEmpty());  // Nothing to list
+	}
+
+	@Test
+	public void testPollMaxInHeapOrder() {
+		treap.build(new String[] {"apple", "banana", "cherry", "date"}, new int[] {20, 40, 10, 30});
+		assertEquals("banana", treap.peekMax());  // Peek does not remove
+		assertEquals(4, treap.size());
+		assertEquals("banana", treap.pollMax());
+		assertEquals("date", treap.pollMax());
+		assertEquals("apple", treap.pollMax());
+		assertEquals("cherry", treap.pollMax());
+		assertEquals(0, treap.size());
+	}
+
+	@Test
+	public void testTopK() {
+		treap.build(new String[] {"apple", "banana", "cherry", "date", "elder"}, new int[] {20, 40, 10, 30, 50});
+		assertEquals(List.of("elder", "banana", "date"), treap.topK(3));
+		assertEquals(5, treap.topK(10).size());  // k larger than the tree
+		assertTrue(treap.topK(0).isEmpty());  // Non-positive k
+		assertEquals(5, treap.size());  // topK does not modify the tree
+	}
+
+	// ========================= Keys() Tests =========================
+
+	@Test
+	public void testKeysInAscendingOrder() {
+		assertTrue(treap.keys().isEmpty());
+		treap.build(new String[] {"Cherry", "apple", "banana"}, new int[] {10, 30, 20});
+		assertEquals(List.of("apple", "banana", "cherry"), treap.keys());
+	}
+
+	// ========================= Bloom Filter Tests =========================
+
+	@Test
+	public void testSetBloomFilterInvalid() {
+		assertFalse(treap.setBloomFilter(-1, 10));  // Negative capacity
+		assertFalse(treap.setBloomFilter(100, 0));  // No bits per key
+		assertTrue(treap.setBloomFilter(0, 10));    // Disables the filter
+		assertNull(treap.bloom);
+		assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 10));
+	}
+
+	@Test
+	public void testBloomFilterHasNoFalseNegatives() {
+		treap.add("existing", 1);
+		assertTrue(treap.setBloomFilter(1000, 10));
+		assertTrue(treap.find("EXISTING"));  // Keys present before the filter was enabled are added to it
+		for (int i = 0; i < 1000; i++) treap.add("key" + i, i + 2);
+		for (int i = 0; i < 1000; i++) assertTrue(treap.find("key" + i));
+
+		int falsePositives = 0;
+		for (int i = 0; i < 10000; i++) {
+			assertFalse(treap.find("absent" + i));
+			if (treap.bloom.mightContain("absent" + i)) falsePositives++;
+		}
+		assertTrue(falsePositives < 500, "Most absent keys should be rejected by the filter");
+	}
+
+	@Test
+	public void testBloomFilterRebuiltAfterRemovals() {
+		treap.setBloomFilter(100, 10);
+		for (int i = 0; i < 100; i++) treap.add("key" + i, i + 1);
+		for (int i = 0; i < 50; i++) treap.remove("key" + i);
+
+		assertTrue(treap.bloom.insertions() <= 50 + 50 / 4);  // Rebuilt once removed keys made up a quarter
+		for (int i = 0; i < 50; i++) assertFalse(treap.find("key" + i));
+		for (int i = 50; i < 100; i++) assertTrue(treap.find("key" + i));
+	}
+
+	@Test
+	public void testBloomFilterGrowsAndResetsOnBuild() {
+		treap.setBloomFilter(10, 10);
+		for (int i = 0; i < 1000; i++) treap.add("key" + i, i + 1);
+		assertTrue(treap.bloom.capacity() >= 500);  // Rebuilt larger as keys kept arriving
+		for (int i = 0; i < 1000; i++) assertTrue(treap.find("key" + i));
+
+		treap.build(new String[] {"apple", "banana"}, new int[] {2, 1});
+		assertTrue(treap.find("apple"));
+		assertFalse(treap.bloom.mightContain("key1"));  // Old keys do not survive a build
+	}
+
+	// ========================= Lookup Cache Tests =========================
+
+	@Test
+	public void testSetLookupCacheInvalid() {
+		assertFalse(treap.setLookupCache(-1));
+		assertFalse(treap.setLookupCache(LookupCache.MAX_CAPACITY + 1));  // Removals scan the whole cache
+		assertTrue(treap.setLookupCache(0));  // Disables the cache
+		assertNull(treap.lookupCache);
+		assertThrows(IllegalArgumentException.class, () -> new LookupCache(0));
+		assertThrows(IllegalArgumentException.class, () -> new LookupCache(LookupCache.MAX_CAPACITY + 1));
+	}
+
+	@Test
+	public void testLookupCacheAnswersRepeatedLookups() {
+		treap.setLookupCache(16);
+		treap.build(new String[] {"apple", "banana", "cherry"}, new int[] {30, 20, 10});
+		assertTrue(treap.find("Apple"));
+		assertTrue(treap.find("Apple"));
+		assertTrue(treap.find("APPLE"));
+		assertFalse(treap.find("durian"));  // Misses are not cached
+		assertFalse(treap.find("durian"));
+		assertEquals(5, treap.lookupCache.lookups());
+		assertEquals(1, treap.lookupCache.hits());
+	}
+
+	@Test
+	public void testLookupCacheInvalidatedOnRemove() {
+		treap.setLookupCache(16);
+		treap.build(new String[] {"apple", "banana", "cherry", "date"}, new int[] {40, 30, 20, 10});
+		for (String key : new String[] {"Apple", "APPLE", "banana", "cherry", "date"}) assertTrue(treap.find(key));
+
+		assertTrue(treap.remove("apple"));
+		assertFalse(treap.find("Apple"));  // Every cached spelling is dropped
+		assertFalse(treap.find("APPLE"));
+		assertEquals("banana", treap.pollMax());
+		assertFalse(treap.find("banana"));
+		assertEquals(1, treap.removeRange("c", "d"));
+		assertFalse(treap.find("cherry"));
+		assertTrue(treap.find("date"));
+	}
+
+	@Test
+	public void testRemoveDoesNotGoThroughLookupCache() {
+		treap.setLookupCache(16);
+		treap.build(new String[] {"apple", "banana"}, new int[] {20, 10});
+		assertTrue(treap.remove("Apple"));
+		assertFalse(treap.remove("apple"));
+		assertEquals(0, treap.lookupCache.lookups());  // Nothing was looked up or cached for the removals
+		assertTrue(treap.find("banana"));
+	}
+
+	@Test
+	public void testLookupCacheReplacesEntriesWhenFull() {
+		treap.setLookupCache(4);
+		for (int i = 0; i < 100; i++) treap.add("key" + i, i + 1);
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < 100; i++) assertTrue(treap.find("key" + i));
+		}
+		assertFalse(treap.find("key100"));
+	}
+}
@@ -0,0 +1,270 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The TreeExporter class writes the structure of a treap as text, either in the ASCII format of
+ * {@link Treap#displayTree()} or as a Graphviz DOT graph. The walk is iterative, so trees of any
+ * depth can be exported, and it keeps its own stack in arrays that are reused from node to node.
+ * Output is collected in a fixed-size buffer and handed to the destination in large pieces. An
+ * optional depth limit cuts the export off below a given level, which keeps dumps of huge trees
+ * small; cut-off subtrees are marked with "...".
+ */
+public class TreeExporter {
+
+	/**
+	 * The Format enum lists the supported output formats.
+	 */
+	public enum Format {
+		ASCII, // Indented lines with box-drawing connectors, as printed by displayTree()
+		DOT    // A Graphviz digraph with one node per key and labelled L/R edges
+	}
+
+	// Depth limit that exports the whole tree
+	public static final int UNLIMITED = Integer.MAX_VALUE;
+
+	// Number of characters collected before they are passed on to the destination
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	// Flags of a stacked node
+	private static final byte LAST_CHILD = 1;
+	private static final byte RIGHT_CHILD = 2;
+
+	// Output format
+	private final Format format;
+
+	// Deepest level that is exported; the root is at depth 0
+	private final int maxDepth;
+
+	// Pending output
+	private final StringBuilder buffer;
+
+	// Explicit stack of the walk: each node with its depth, flags and the DOT id of its parent
+	private TreapNode[] stackNodes;
+	private int[] stackDepths;
+	private byte[] stackFlags;
+	private long[] stackParents;
+
+	// Indentation of the current path, four characters per level; the segment of a level is
+	// "    " below a last child and "│   " below any other child
+	private char[] indent;
+
+	// Characters handed to a byte channel, copied out of the buffer for the encoder
+	private char[] chars;
+
+	/**
+	 * Constructs an exporter that writes the whole tree.
+	 *
+	 * @param format The output format.
+	 */
+	public TreeExporter(Format format) {
+		this(format, UNLIMITED);
+	}
+
+	/**
+	 * Constructs an exporter with a depth limit.
+	 *
+	 * @param format   The output format.
+	 * @param maxDepth The deepest level to export (0 exports only the root); must not be negative.
+	 */
+	public TreeExporter(Format format, int maxDepth) {
+		if (format == null) throw new IllegalArgumentException("format must not be null");
+		if (maxDepth < 0) throw new IllegalArgumentException("maxDepth must not be negative");
+		this.format = format;
+		this.maxDepth = maxDepth;
+		this.buffer = new StringBuilder(BUFFER_SIZE + 256);
+		this.stackNodes = new TreapNode[64];
+		this.stackDepths = new int[64];
+		this.stackFlags = new byte[64];
+		this.stackParents = new long[64];
+		this.indent = new char[4 * 64];
+		this.chars = new char[0];
+	}
+
+	// ==================== Export Methods ====================
+
+	/**
+	 * Writes a treap to a character destination such as a Writer, a PrintStream or a StringBuilder.
+	 *
+	 * @param treap The treap to export.
+	 * @param out   The destination.
+	 * @throws IOException If the destination fails.
+	 */
+	public void export(Treap treap, Appendable out) throws IOException {
+		walk(treap.root, new Sink() {
+			@Override
+			public void write(StringBuilder text) throws IOException {
+				out.append(text);
+			}
+		});
+	}
+
+	/**
+	 * Writes a treap to a byte channel, encoded as UTF-8.
+	 *
+	 * @param treap   The treap to export.
+	 * @param channel The destination.
+	 * @throws IOException If the channel fails.
+	 */
+	public void export(Treap treap, WritableByteChannel channel) throws IOException {
+		CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+		ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE * 3);
+		walk(treap.root, new Sink() {
+			@Override
+			public void write(StringBuilder text) throws IOException {
+				if (chars.length < text.length()) chars = new char[text.length()];
+				text.getChars(0, text.length(), chars, 0);
+				CharBuffer pending = CharBuffer.wrap(chars, 0, text.length()); // Array-backed, so the encoder takes its fast path
+				while (true) {
+					CoderResult result = encoder.encode(pending, bytes, false);
+					bytes.flip();
+					while (bytes.hasRemaining()) channel.write(bytes);
+					bytes.clear();
+					if (result.isUnderflow()) break;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Helper interface for the destination the buffer is drained into.
+	 */
+	private interface Sink {
+		void write(StringBuilder text) throws IOException;
+	}
+
+	// ==================== Walk ====================
+
+	/**
+	 * Visits the nodes in pre-order (a node, then its left and right subtree) and writes each one.
+	 *
+	 * @param root The root of the tree.
+	 * @param sink The destination of the output.
+	 * @throws IOException If the destination fails.
+	 */
+	private void walk(TreapNode root, Sink sink) throws IOException {
+		buffer.setLength(0);
+		if (format == Format.DOT) buffer.append("digraph Treap {\n\tnode [shape=box];\n");
+
+		long nextId = 0;
+		int top = 0;
+		if (root != null) top = push(top, root, 0, LAST_CHILD, -1);
+		while (top > 0) {
+			top--;
+			TreapNode node = stackNodes[top];
+			int depth = stackDepths[top];
+			byte flags = stackFlags[top];
+			long parent = stackParents[top];
+			stackNodes[top] = null; // Do not keep exported nodes reachable
+			long id = nextId++;
+
+			if (format == Format.ASCII) writeLine(node, depth, (flags & LAST_CHILD) != 0);
+			else writeDotNode(node, id, parent, (flags & RIGHT_CHILD) != 0);
+
+			boolean hasLeft = node.left != null;
+			boolean hasRight = node.right != null;
+			if ((hasLeft || hasRight) && depth == maxDepth) {
+				writeCutOff(id, depth);
+			} else {
+				// Push the right child first so the left child is written first
+				if (hasRight) top = push(top, node.right, depth + 1, (byte) (LAST_CHILD | RIGHT_CHILD), id);
+				if (hasLeft) top = push(top, node.left, depth + 1, hasRight ? 0 : LAST_CHILD, id);
+			}
+
+			if (buffer.length() >= BUFFER_SIZE) {
+				sink.write(buffer);
+				buffer.setLength(0);
+			}
+		}
+
+		if (format == Format.DOT) buffer.append("}\n");
+		if (buffer.length() > 0) sink.write(buffer);
+		buffer.setLength(0);
+	}
+
+	/**
+	 * Helper method to push a node on the walk stack, growing the arrays when they are full.
+	 *
+	 * @return The new stack size.
+	 */
+	private int push(int top, TreapNode node, int depth, byte flags, long parent) {
+		if (top == stackNodes.length) {
+			int capacity = top * 2;
+			stackNodes = Arrays.copyOf(stackNodes, capacity);
+			stackDepths = Arrays.copyOf(stackDepths, capacity);
+			stackFlags = Arrays.copyOf(stackFlags, capacity);
+			stackParents = Arrays.copyOf(stackParents, capacity);
+		}
+		stackNodes[top] = node;
+		stackDepths[top] = depth;
+		stackFlags[top] = flags;
+		stackParents[top] = parent;
+		return top + 1;
+	}
+
+	// ==================== ASCII Format ====================
+
+	/**
+	 * Helper method to write one node as an indented ASCII line. The indentation of its children
+	 * is recorded in the node's own segment of the indent array, so every line appends its whole
+	 * indentation with one copy.
+	 */
+	private void writeLine(TreapNode node, int depth, boolean isTail) {
+		if (4 * depth + 4 > indent.length) indent = Arrays.copyOf(indent, Math.max(4 * depth + 4, indent.length * 2));
+		"    ".getChars(0, 4, indent, 4 * depth);
+		if (!isTail) indent[4 * depth] = '│';
+		buffer.append(indent, 0, 4 * depth);
+		buffer.append(isTail ? "└── " : "├── ").append(node.key).append(" (").append(node.heapValue).append(")\n");
+	}
+
+	// ==================== DOT Format ====================
+
+	/**
+	 * Helper method to write one node and the edge from its parent as DOT statements.
+	 *
+	 * @param node    The node.
+	 * @param id      The id of the node in the graph.
+	 * @param parent  The id of the parent, or -1 for the root.
+	 * @param isRight True if the node is its parent's right child.
+	 */
+	private void writeDotNode(TreapNode node, long id, long parent, boolean isRight) {
+		buffer.append("\tn").append(id).append(" [label=\"");
+		appendEscaped(node.key);
+		buffer.append(" (").append(node.heapValue).append(")\"];\n");
+		if (parent >= 0) buffer.append("\tn").append(parent).append(" -> n").append(id).append(isRight ? " [label=\"R\"];\n" : " [label=\"L\"];\n");
+	}
+
+	/**
+	 * Helper method to append a key to a DOT string literal, escaping quotes and backslashes.
+	 */
+	private void appendEscaped(String key) {
+		for (int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			if (c == '"' || c == '\\') buffer.append('\\');
+			buffer.append(c);
+		}
+	}
+
+	// ==================== Depth Limit ====================
+
+	/**
+	 * Helper method to mark the children of a node at the depth limit as cut off.
+	 *
+	 * @param id    The DOT id of the node.
+	 * @param depth The depth of the node.
+	 */
+	private void writeCutOff(long id, int depth) {
+		if (format == Format.ASCII) {
+			buffer.append(indent, 0, 4 * depth + 4);
+			buffer.append("└── ...\n");
+		} else {
+			buffer.append("\tn").append(id).append("_more [label=\"...\", shape=plaintext];\n");
+			buffer.append("\tn").append(id).append(" -> n").append(id).append("_more [style=dashed];\n");
+		}
+	}
+}
@@ -0,0 +1,111 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TreeExporterTest {
+
+	private Treap treap;
+
+	@BeforeEach
+	public void setUp() {
+		treap = new Treap();
+		treap.build(new String[] {"d", "b", "f", "a", "c"}, new int[] {50, 40, 30, 20, 10});
+	}
+
+	// ========================= ASCII Tests =========================
+
+	@Test
+	public void testAsciiMatchesDisplayTreeFormat() throws IOException {
+		StringBuilder out = new StringBuilder();
+		new TreeExporter(TreeExporter.Format.ASCII).export(treap, out);
+		assertEquals("└── d (50)\n"
+				+ "    ├── b (40)\n"
+				+ "    │   ├── a (20)\n"
+				+ "    │   └── c (10)\n"
+				+ "    └── f (30)\n", out.toString());
+	}
+
+	@Test
+	public void testAsciiDepthLimit() throws IOException {
+		StringBuilder out = new StringBuilder();
+		new TreeExporter(TreeExporter.Format.ASCII, 1).export(treap, out);
+		assertEquals("└── d (50)\n"
+				+ "    ├── b (40)\n"
+				+ "    │   └── ...\n"
+				+ "    └── f (30)\n", out.toString());
+	}
+
+	@Test
+	public void testEmptyTree() throws IOException {
+		StringBuilder out = new StringBuilder();
+		new TreeExporter(TreeExporter.Format.ASCII).export(new Treap(), out);
+		assertEquals("", out.toString());
+	}
+
+	// ========================= DOT Tests =========================
+
+	@Test
+	public void testDotWithDepthLimit() throws IOException {
+		StringBuilder out = new StringBuilder();
+		new TreeExporter(TreeExporter.Format.DOT, 1).export(treap, out);
+		assertEquals("digraph Treap {\n"
+				+ "\tnode [shape=box];\n"
+				+ "\tn0 [label=\"d (50)\"];\n"
+				+ "\tn1 [label=\"b (40)\"];\n"
+				+ "\tn0 -> n1 [label=\"L\"];\n"
+				+ "\tn1_more [label=\"...\", shape=plaintext];\n"
+				+ "\tn1 -> n1_more [style=dashed];\n"
+				+ "\tn2 [label=\"f (30)\"];\n"
+				+ "\tn0 -> n2 [label=\"R\"];\n"
+				+ "}\n", out.toString());
+	}
+
+	@Test
+	public void testDotEscapesQuotes() throws IOException {
+		Treap quoted = new Treap();
+		quoted.add("say \"hi\"", 10);
+		StringBuilder out = new StringBuilder();
+		new TreeExporter(TreeExporter.Format.DOT).export(quoted, out);
+		assertTrue(out.toString().contains("[label=\"say \\\"hi\\\" (10)\"]"));
+	}
+
+	// ========================= Channel Tests =========================
+
+	@Test
+	public void testChannelWritesUtf8() throws IOException {
+		StringBuilder expected = new StringBuilder();
+		new TreeExporter(TreeExporter.Format.ASCII).export(treap, expected);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new TreeExporter(TreeExporter.Format.ASCII).export(treap, Channels.newChannel(bytes));
+		assertEquals(expected.toString(), new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testLargeTreeAcrossBufferFlushes() throws IOException {
+		Treap chain = new Treap();
+		TreapNode last = null;
+		for (int i = 0; i < 20_000; i++) {  // A 20,000-level right spine, linked directly since add() recurses
+			TreapNode node = new TreapNode(String.format("k%05d", i), 20_000 - i);
+			if (last == null) chain.root = node;
+			else last.right = node;
+			last = node;
+		}
+
+		StringBuilder out = new StringBuilder();
+		new TreeExporter(TreeExporter.Format.DOT).export(chain, out);
+		assertTrue(out.toString().endsWith("\tn19998 -> n19999 [label=\"R\"];\n}\n"));
+	}
+
+	@Test
+	public void testInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new TreeExporter(null));
+		assertThrows(IllegalArgumentException.class, () -> new TreeExporter(TreeExporter.Format.DOT, -1));
+	}
+}